@@ -9,11 +9,90 @@ repositories {
     mavenCentral()
 }
 
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val jmhImplementation: Configuration by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+
 dependencies {
+    implementation("org.ow2.asm:asm:9.8")
+
     testImplementation(platform("org.junit:junit-bom:5.9.1"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+
+    jmhImplementation("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+val jmhResults = layout.buildDirectory.file("reports/jmh/results.json")
+val jmhBaseline = layout.projectDirectory.file("src/jmh/baseline.json")
+
+// Runs the JMH benchmarks, e.g. ./gradlew jmh -Pjmh.includes=LexerBenchmark
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH benchmarks in src/jmh."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args(providers.gradleProperty("jmh.includes").getOrElse(".*"))
+    providers.gradleProperty("jmh.args").orNull?.let { args(it.split(" ")) }
+    args("-rf", "json", "-rff", jmhResults.get().asFile.absolutePath)
+    outputs.file(jmhResults)
+    outputs.upToDateWhen { false }
+    doFirst { jmhResults.get().asFile.parentFile.mkdirs() }
+}
+
+// Keys a JMH json result by benchmark name and parameters.
+fun jmhScores(file: File): Map<String, Double> {
+    @Suppress("UNCHECKED_CAST")
+    val results = groovy.json.JsonSlurper().parse(file) as List<Map<String, Any>>
+    return results.associate { result ->
+        val params = (result["params"] as Map<*, *>?).orEmpty().entries
+            .sortedBy { it.key.toString() }
+            .joinToString(",") { "${it.key}=${it.value}" }
+        val metric = result["primaryMetric"] as Map<*, *>
+        "${result["benchmark"]}($params)" to (metric["score"] as Number).toDouble()
+    }
+}
+
+// Fails if any benchmark is slower than the baseline by more than the
+// threshold, e.g. ./gradlew jmhCheck -Pjmh.threshold=0.1 for 10%.
+tasks.register("jmhCheck") {
+    group = "verification"
+    description = "Runs the JMH benchmarks and compares them against src/jmh/baseline.json."
+    dependsOn("jmh")
+    doLast {
+        val threshold = providers.gradleProperty("jmh.threshold").getOrElse("0.25").toDouble()
+        val baseline = jmhScores(jmhBaseline.asFile)
+        val current = jmhScores(jmhResults.get().asFile)
+        val regressions = current.filter { (key, score) ->
+            baseline[key]?.let { score > it * (1 + threshold) } ?: false
+        }
+        current.forEach { (key, score) ->
+            val reference = baseline[key]
+            val change = if (reference == null) "no baseline" else "%+.1f%%".format((score / reference - 1) * 100)
+            logger.lifecycle("%-70s %12.3f  %s".format(key, score, change))
+        }
+        if (regressions.isNotEmpty()) {
+            throw GradleException("${regressions.size} benchmark(s) regressed more than ${threshold * 100}%: ${regressions.keys}")
+        }
+    }
+}
+
+// Replaces the baseline with the results of the last jmh run.
+tasks.register<Copy>("jmhBaseline") {
+    group = "verification"
+    description = "Copies the last JMH results to src/jmh/baseline.json."
+    from(jmhResults)
+    into(jmhBaseline.asFile.parentFile)
+    rename { jmhBaseline.asFile.name }
+}
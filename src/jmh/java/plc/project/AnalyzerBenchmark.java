@@ -0,0 +1,62 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyzes a source with many functions, with the bodies analyzed
+ * sequentially or in parallel on the common pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+    @Param({"2000"})
+    public int functions;
+
+    private Ast.Source ast;
+
+    @Setup
+    public void setup() {
+        StringBuilder input = new StringBuilder("VAR x: Integer = 0;\n");
+        for (int function = 0; function < functions; function++) {
+            input.append("FUN f").append(function).append("(): Integer DO\n");
+            input.append("    LET i = 0;\n");
+            for (int i = 0; i < 20; i++) {
+                input.append("    IF i < ").append(i).append(" DO\n        i = i + x * 2;\n    END\n");
+            }
+            input.append("    RETURN i;\nEND\n");
+        }
+        input.append("FUN main(): Integer DO\n    RETURN f0();\nEND\n");
+        ast = new Parser(new Lexer(input.toString()).lex()).parseSource();
+    }
+
+    @Benchmark
+    public Ast.Source sequential() {
+        new Analyzer(new plc.project.Scope(null)).visit(ast);
+        return ast;
+    }
+
+    @Benchmark
+    public Ast.Source parallel() {
+        new Analyzer(new plc.project.Scope(null), ForkJoinPool.commonPool()).visit(ast);
+        return ast;
+    }
+
+}
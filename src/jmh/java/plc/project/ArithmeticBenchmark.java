@@ -0,0 +1,67 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interprets a tight counting loop, where nearly all of the work is integer
+ * arithmetic on intermediate values. A {@code start} of Long.MAX_VALUE makes
+ * the total overflow on the first iteration, so it is promoted to BigInteger
+ * while the counter stays a long. Run with {@code -prof gc} to compare the
+ * allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ArithmeticBenchmark {
+
+    @Param({"0", "9223372036854775807"})
+    public String start;
+
+    @Param({"10000"})
+    public int iterations;
+
+    private Ast.Source ast;
+    private Node compiled;
+
+    @Setup
+    public void setup() {
+        String input = "FUN main(): Integer DO\n"
+                + "    LET i = 0;\n"
+                + "    LET total = " + start + ";\n"
+                + "    WHILE i < " + iterations + " DO\n"
+                + "        total = total + 1;\n"
+                + "        i = i + 1;\n"
+                + "    END\n"
+                + "    RETURN total;\n"
+                + "END\n";
+        ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Resolver().visit(ast);
+        compiled = new Compiler(null).compile(ast);
+    }
+
+    @Benchmark
+    public Object count() {
+        return new Interpreter(new plc.project.Scope(null)).visit(ast).getValue();
+    }
+
+    @Benchmark
+    public Object countCompiled() {
+        return new Compiler(new plc.project.Scope(null)).execute(compiled).getValue();
+    }
+
+}
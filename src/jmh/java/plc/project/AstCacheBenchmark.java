@@ -0,0 +1,79 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Loads a source with many functions by lexing, parsing and analyzing it, or
+ * from a warm {@link AstCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class AstCacheBenchmark {
+
+    @Param({"1000"})
+    public int functions;
+
+    private Path directory;
+    private AstCache cache;
+    private String input;
+
+    @Setup
+    public void setup() throws IOException {
+        StringBuilder builder = new StringBuilder("VAR x: Integer = 0;\n");
+        for (int function = 0; function < functions; function++) {
+            builder.append("FUN f").append(function).append("(): Integer DO\n");
+            builder.append("    LET i = 0;\n");
+            for (int i = 0; i < 20; i++) {
+                builder.append("    IF i < ").append(i).append(" DO\n        i = i + x * 2;\n    END\n");
+            }
+            builder.append("    RETURN i;\nEND\n");
+        }
+        builder.append("FUN main(): Integer DO\n    RETURN f0();\nEND\n");
+        input = builder.toString();
+        directory = Files.createTempDirectory("plc-cache");
+        cache = new AstCache(directory);
+        cache.load(input);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Ast.Source analyze() {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new plc.project.Scope(null)).visit(ast);
+        return ast;
+    }
+
+    @Benchmark
+    public Ast.Source cached() {
+        return cache.get(input).orElseThrow();
+    }
+
+}
@@ -0,0 +1,76 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs the same analyzed program with the {@link Interpreter} and as a class
+ * generated by the {@link BytecodeGenerator}. {@code load} measures the cost
+ * of generating and defining the class, which replaces the javac step.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class BytecodeBenchmark {
+
+    @Param({"10000"})
+    public int iterations;
+
+    private Ast.Source ast;
+    private byte[] bytes;
+    private IntSupplier program;
+
+    @Setup
+    public void setup() {
+        String input = "VAR count: Integer = 0;\n"
+                + "FUN step(): Integer DO\n"
+                + "    count = count + 1;\n"
+                + "    RETURN count;\n"
+                + "END\n"
+                + "FUN main(): Integer DO\n"
+                + "    LET i = 0;\n"
+                + "    LET total = 0;\n"
+                + "    WHILE i < " + iterations + " DO\n"
+                + "        total = total + step() * 2;\n"
+                + "        i = i + 1;\n"
+                + "    END\n"
+                + "    RETURN total;\n"
+                + "END\n";
+        ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new plc.project.Scope(null)).visit(ast);
+        new Resolver().visit(ast);
+        bytes = new BytecodeGenerator().generate(ast);
+        program = BytecodeGenerator.load(bytes);
+    }
+
+    @Benchmark
+    public Object interpret() {
+        return new Interpreter(new plc.project.Scope(null)).visit(ast).getValue();
+    }
+
+    @Benchmark
+    public int bytecode() {
+        return program.getAsInt();
+    }
+
+    @Benchmark
+    public IntSupplier load() {
+        return BytecodeGenerator.load(new BytecodeGenerator().generate(ast));
+    }
+
+}
@@ -0,0 +1,73 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interprets a loop over constant expressions of literals and immutable
+ * globals, as analyzed or once folded by the {@link ConstantFolder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ConstantFolderBenchmark {
+
+    @Param({"1000"})
+    public int iterations;
+
+    private Ast.Source analyzed;
+    private Ast.Source folded;
+
+    @Setup
+    public void setup() {
+        String input = "VAL width: Integer = 16;\n"
+                + "VAL height: Integer = width * 9 / 16;\n"
+                + "VAL scale: Decimal = 1.5 * 2.0;\n"
+                + "FUN main(): Integer DO\n"
+                + "    LET i = 0;\n"
+                + "    LET total = 0;\n"
+                + "    LET ratio = 0.0;\n"
+                + "    WHILE i < " + iterations + " DO\n"
+                + "        total = total + width * height - 2 ^ 4 + 60 * 60 / 3600;\n"
+                + "        ratio = scale / 3.0 * 10.0;\n"
+                + "        IF 1 < 2 && width == 16 DO\n"
+                + "            i = i + 1;\n"
+                + "        END\n"
+                + "    END\n"
+                + "    RETURN total;\n"
+                + "END\n";
+        analyzed = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new plc.project.Scope(null)).visit(analyzed);
+        folded = new ConstantFolder(true).visit(analyzed);
+    }
+
+    @Benchmark
+    public Ast.Source fold() {
+        return new ConstantFolder(true).visit(analyzed);
+    }
+
+    @Benchmark
+    public Environment.PlcObject interpret() {
+        return new Interpreter(new plc.project.Scope(null)).visit(analyzed);
+    }
+
+    @Benchmark
+    public Environment.PlcObject interpretFolded() {
+        return new Interpreter(new plc.project.Scope(null)).visit(folded);
+    }
+
+}
@@ -0,0 +1,65 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Environment#create(Object)} for each kind of value the
+ * interpreter produces. Run with {@code -prof gc}, where gc.alloc.rate.norm
+ * is the number of bytes allocated per created object.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class EnvironmentBenchmark {
+
+    @Param({"BOOLEAN", "SMALL_INTEGER", "INTEGER", "DECIMAL", "STRING"})
+    public String kind;
+
+    private Object value;
+
+    @Setup
+    public void setup() {
+        switch (kind) {
+            case "BOOLEAN":
+                value = true;
+                break;
+            case "SMALL_INTEGER":
+                value = BigInteger.TEN;
+                break;
+            case "INTEGER":
+                value = BigInteger.valueOf(1_000_000);
+                break;
+            case "DECIMAL":
+                value = new BigDecimal("1.5");
+                break;
+            case "STRING":
+                value = "string";
+                break;
+            default:
+                throw new AssertionError(kind);
+        }
+    }
+
+    @Benchmark
+    public Environment.PlcObject create() {
+        return Environment.create(value);
+    }
+
+}
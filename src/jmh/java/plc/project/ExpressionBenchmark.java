@@ -0,0 +1,74 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a single expression of {@code size} terms: a wide chain of one
+ * operator, a chain mixing every precedence level, or terms nested in
+ * parentheses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    private static final String[] OPERATORS = {" + ", " * ", " < ", " - ", " / ", " == ", " && "};
+
+    @Param({"WIDE", "MIXED", "DEEP"})
+    public String shape;
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private List<Token> tokens;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder();
+        switch (shape) {
+            case "WIDE":
+                builder.append("x0");
+                for (int i = 1; i < size; i++) {
+                    builder.append(" + x").append(i);
+                }
+                break;
+            case "MIXED":
+                builder.append("x0");
+                for (int i = 1; i < size; i++) {
+                    builder.append(OPERATORS[i % OPERATORS.length]).append('x').append(i);
+                }
+                break;
+            case "DEEP":
+                builder.append("(".repeat(size - 1)).append("x0");
+                for (int i = 1; i < size; i++) {
+                    builder.append(" + x").append(i).append(')');
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(shape);
+        }
+        tokens = new Lexer(builder.toString()).lex();
+    }
+
+    @Benchmark
+    public Ast.Expression parse() {
+        return new Parser(tokens).parseExpression();
+    }
+
+}
@@ -0,0 +1,101 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Parses a large generated source into {@link Ast} objects or into a
+ * {@link FlatAst}. The heap retained by each is printed once during setup,
+ * measured as the used heap after collecting garbage with and without it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FlatAstBenchmark {
+
+    @Param({"20000"})
+    public int functions;
+
+    private List<Token> tokens;
+
+    @Setup
+    public void setup() {
+        StringBuilder input = new StringBuilder("VAR total: Integer = 0;\nLIST scales: Decimal = [1.5, 2.5, 3.5];\n");
+        for (int i = 0; i < functions; i++) {
+            input.append("FUN f").append(i).append("(n: Integer): Integer DO\n")
+                    .append("    LET i = 0;\n")
+                    .append("    LET acc: Integer = n;\n")
+                    .append("    WHILE i < ").append(i % 100).append(" DO\n")
+                    .append("        acc = acc + i * 3 - (n / 2 + 7) * i;\n")
+                    .append("        IF acc > 1000 && i != 0 DO acc = acc - 1000; ELSE total = total + 1; END\n")
+                    .append("        i = i + 1;\n")
+                    .append("    END\n")
+                    .append("    print(\"done\");\n")
+                    .append("    RETURN acc + scales[0];\n")
+                    .append("END\n");
+        }
+        input.append("FUN main(): Integer DO RETURN f0(1); END\n");
+        tokens = new Lexer(input.toString()).lex();
+        long objects = retained(() -> new Parser(tokens).parseSource());
+        long flat = retained(() -> new Parser(tokens).parseFlatSource());
+        System.out.printf("Retained for %d characters: objects %.1f MB, flat %.1f MB (%d nodes)%n",
+                input.length(), objects / 1e6, flat / 1e6, new Parser(tokens).parseFlatSource().size());
+    }
+
+    @Benchmark
+    public Ast.Source parse() {
+        return new Parser(tokens).parseSource();
+    }
+
+    @Benchmark
+    public FlatAst parseFlat() {
+        return new Parser(tokens).parseFlatSource();
+    }
+
+    @Benchmark
+    public Ast.Source parseFlatView() {
+        Ast.Source view = new Parser(tokens).parseFlatSource().view();
+        for (int i = 0; i < view.getFunctions().size(); i++) {
+            view.getFunctions().get(i);
+        }
+        return view;
+    }
+
+    /**
+     * Holds the result being measured, so it isn't collected early.
+     */
+    private static Object retained;
+
+    private static long retained(Supplier<Object> supplier) {
+        long before = used();
+        retained = supplier.get();
+        long after = used();
+        retained = null;
+        return after - before;
+    }
+
+    private static long used() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
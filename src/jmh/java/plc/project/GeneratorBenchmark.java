@@ -0,0 +1,90 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates Java source for a program whose statements are split across one
+ * or more functions, into a {@link PrintWriter} and into a {@link CodeBuffer}
+ * that is then encoded into a {@link ByteBuffer}, with the functions
+ * generated sequentially or in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @Param({"100000"})
+    public int statements;
+
+    /**
+     * The number of functions the statements are split across.
+     */
+    @Param({"1", "100"})
+    public int functions;
+
+    private Ast.Source ast;
+    private CodeBuffer buffer;
+    private ByteBuffer bytes;
+
+    @Setup
+    public void setup() {
+        StringBuilder input = new StringBuilder("VAR x: Integer = 0;\n");
+        for (int function = 0; function < functions; function++) {
+            input.append(function == functions - 1 ? "FUN main" : "FUN f" + function).append("(): Integer DO\n");
+            for (int i = 0; i < statements / functions; i++) {
+                input.append("    IF x < ").append(i).append(" DO\n        x = x + 1;\n    END\n");
+            }
+            input.append("    RETURN x;\nEND\n");
+        }
+        ast = new Parser(new Lexer(input.toString()).lex()).parseSource();
+        new Analyzer(new plc.project.Scope(null)).visit(ast);
+        buffer = new CodeBuffer();
+        new Generator(buffer).visit(ast);
+        bytes = ByteBuffer.allocate(buffer.length() * 2);
+    }
+
+    @Benchmark
+    public int writer() {
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit((Ast) ast);
+        return writer.getBuffer().length();
+    }
+
+    @Benchmark
+    public int buffer() {
+        buffer.clear();
+        new Generator(buffer).visit(ast);
+        bytes.clear();
+        buffer.writeTo(bytes);
+        return bytes.position();
+    }
+
+    @Benchmark
+    public int parallel() {
+        buffer.clear();
+        new Generator(buffer, ForkJoinPool.commonPool()).visit(ast);
+        bytes.clear();
+        buffer.writeTo(bytes);
+        return bytes.position();
+    }
+
+}
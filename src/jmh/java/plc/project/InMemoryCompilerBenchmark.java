@@ -0,0 +1,63 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads a program with the {@link InMemoryCompiler}, compiling it with javac
+ * every time ({@code compile}) or from the cache ({@code cached}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class InMemoryCompilerBenchmark {
+
+    private static final String INPUT = "VAR x: Integer = 1;\n"
+            + "FUN main(): Integer DO\n"
+            + "    LET i = 0;\n"
+            + "    WHILE i < 10 DO\n"
+            + "        i = i + x;\n"
+            + "    END\n"
+            + "    RETURN i;\n"
+            + "END\n";
+
+    private InMemoryCompiler compiler;
+
+    @Setup
+    public void setup() {
+        compiler = new InMemoryCompiler();
+        compiler.load(INPUT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        compiler.close();
+    }
+
+    @Benchmark
+    public Class<?> compile() {
+        try (InMemoryCompiler compiler = new InMemoryCompiler()) {
+            return compiler.load(INPUT);
+        }
+    }
+
+    @Benchmark
+    public Class<?> cached() {
+        return compiler.load(INPUT);
+    }
+
+}
@@ -0,0 +1,65 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the table-driven {@link Lexer} against the original regex based
+ * implementation preserved in {@link RegexLexer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Param({"100", "1000"})
+    public int functions;
+
+    private String input;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < functions; i++) {
+            builder.append("FUN f").append(i).append("(x: Integer, y: Decimal): Integer DO\n")
+                    .append("    LET name = \"value\\t").append(i).append("\";\n")
+                    .append("    LET c = '\\n';\n")
+                    .append("    WHILE x != 0 && y >= -1.25 DO\n")
+                    .append("        x = x - 1;\n")
+                    .append("        print(name + x);\n")
+                    .append("    END\n")
+                    .append("    RETURN x * 12345 / 7;\n")
+                    .append("END\n");
+        }
+        input = builder.toString();
+        if (!new Lexer(input).lex().equals(new RegexLexer(input).lex())) {
+            throw new IllegalStateException("Lexer implementations disagree on the benchmark input.");
+        }
+    }
+
+    @Benchmark
+    public List<Token> tableDriven() {
+        return new Lexer(input).lex();
+    }
+
+    @Benchmark
+    public List<Token> regex() {
+        return new RegexLexer(input).lex();
+    }
+
+}
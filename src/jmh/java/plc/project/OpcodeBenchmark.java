@@ -0,0 +1,66 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interprets an arithmetic-heavy loop as parsed, dispatching on operator
+ * strings, or as analyzed, dispatching on the resolved {@link Opcode}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class OpcodeBenchmark {
+
+    @Param({"1000"})
+    public int iterations;
+
+    private Ast.Source parsed;
+    private Ast.Source analyzed;
+
+    @Setup
+    public void setup() {
+        String input = "FUN main(): Integer DO\n"
+                + "    LET i = 0;\n"
+                + "    LET total = 0;\n"
+                + "    LET ratio = 1.0;\n"
+                + "    WHILE i < " + iterations + " DO\n"
+                + "        total = total + i * 3 - i / 2 + 7;\n"
+                + "        ratio = ratio * 1.5 / 1.25 - 0.5;\n"
+                + "        IF total > 1000000 && i != 0 DO\n"
+                + "            total = total - 1000000;\n"
+                + "        END\n"
+                + "        i = i + 1;\n"
+                + "    END\n"
+                + "    RETURN total;\n"
+                + "END\n";
+        parsed = new Parser(new Lexer(input).lex()).parseSource();
+        analyzed = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new plc.project.Scope(null)).visit(analyzed);
+    }
+
+    @Benchmark
+    public Environment.PlcObject operator() {
+        return new Interpreter(new plc.project.Scope(null)).visit(parsed);
+    }
+
+    @Benchmark
+    public Environment.PlcObject opcode() {
+        return new Interpreter(new plc.project.Scope(null)).visit(analyzed);
+    }
+
+}
@@ -0,0 +1,78 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a source with many functions stopping at the first error or
+ * recovering from every error. The error-free source measures the cost of
+ * recovery when it is never needed; the broken source has an invalid
+ * statement in every tenth function.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ParserRecoveryBenchmark {
+
+    @Param({"1000"})
+    public int functions;
+
+    private List<Token> valid;
+    private List<Token> broken;
+
+    @Setup
+    public void setup() {
+        valid = new Lexer(generate(false)).lex();
+        broken = new Lexer(generate(true)).lex();
+    }
+
+    private String generate(boolean errors) {
+        StringBuilder builder = new StringBuilder("VAR x: Integer = 0;\n");
+        for (int function = 0; function < functions; function++) {
+            builder.append("FUN f").append(function).append("(): Integer DO\n");
+            builder.append("    LET i = 0;\n");
+            for (int i = 0; i < 20; i++) {
+                builder.append("    IF i < ").append(i).append(" DO\n        i = i + x * 2;\n    END\n");
+            }
+            if (errors && function % 10 == 0) {
+                builder.append("    i = i + ;\n");
+            }
+            builder.append("    RETURN i;\nEND\n");
+        }
+        return builder.append("FUN main(): Integer DO\n    RETURN f0();\nEND\n").toString();
+    }
+
+    @Benchmark
+    public Ast.Source parse() {
+        return new Parser(valid).parseSource();
+    }
+
+    @Benchmark
+    public Ast.Source recovering() {
+        return new Parser(valid).parseSource(new ArrayList<>());
+    }
+
+    @Benchmark
+    public List<ParseException> recoveringErrors() {
+        List<ParseException> errors = new ArrayList<>();
+        new Parser(broken).parseSource(errors);
+        return errors;
+    }
+
+}
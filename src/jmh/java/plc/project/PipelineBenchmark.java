@@ -0,0 +1,90 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each stage of the pipeline in isolation over the synthetic
+ * programs from {@link Programs}. Each stage starts from the output of the
+ * previous one, which is prepared once during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"GLOBALS", "NESTING", "LOOP", "LIST", "CALLS"})
+    public String shape;
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private String input;
+    private List<Token> tokens;
+    private Ast.Source parsed;
+    private Ast.Source analyzed;
+    private Ast.Source resolved;
+
+    @Setup
+    public void setup() {
+        input = Programs.generate(Programs.Shape.valueOf(shape), size);
+        tokens = new Lexer(input).lex();
+        parsed = new Parser(tokens).parseSource();
+        analyzed = new Parser(tokens).parseSource();
+        new Analyzer(new plc.project.Scope(null)).visit(analyzed);
+        resolved = new Parser(tokens).parseSource();
+        new Resolver().visit(resolved);
+    }
+
+    @Benchmark
+    public List<Token> lex() {
+        return new Lexer(input).lex();
+    }
+
+    @Benchmark
+    public Ast.Source parse() {
+        return new Parser(tokens).parseSource();
+    }
+
+    @Benchmark
+    public Analyzer analyze() {
+        Analyzer analyzer = new Analyzer(new plc.project.Scope(null));
+        analyzer.visit(parsed);
+        return analyzer;
+    }
+
+    @Benchmark
+    public Environment.PlcObject interpret() {
+        return new Interpreter(new plc.project.Scope(null)).visit(parsed);
+    }
+
+    @Benchmark
+    public Environment.PlcObject interpretResolved() {
+        return new Interpreter(new plc.project.Scope(null)).visit(resolved);
+    }
+
+    @Benchmark
+    public String generate() {
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(analyzed);
+        return writer.toString();
+    }
+
+}
@@ -0,0 +1,92 @@
+package plc.project;
+
+/**
+ * Builds synthetic PLC sources of a scalable size for the benchmarks. Every
+ * program lexes, parses, analyzes, interprets and generates without error.
+ */
+final class Programs {
+
+    enum Shape {
+        /**
+         * {@code size} integer globals read by {@code main}.
+         */
+        GLOBALS,
+        /**
+         * A single expression of {@code size} operators, alternating
+         * {@code +} and {@code *}, which the parser nests to the left one
+         * level per {@code +}.
+         */
+        NESTING,
+        /**
+         * A {@code WHILE} loop running {@code size} iterations.
+         */
+        LOOP,
+        /**
+         * A global list literal with {@code size} elements.
+         */
+        LIST,
+        /**
+         * A {@code WHILE} loop calling a function {@code size} times.
+         */
+        CALLS
+    }
+
+    private Programs() {}
+
+    static String generate(Shape shape, int size) {
+        StringBuilder builder = new StringBuilder();
+        switch (shape) {
+            case GLOBALS:
+                for (int i = 0; i < size; i++) {
+                    builder.append("VAR g").append(i).append(": Integer = ").append(i).append(";\n");
+                }
+                builder.append("FUN main(): Integer DO\n");
+                builder.append("    LET sum = g0;\n");
+                for (int i = 1; i < size; i++) {
+                    builder.append("    sum = sum + g").append(i).append(";\n");
+                }
+                builder.append("    RETURN 0;\nEND\n");
+                break;
+            case NESTING:
+                builder.append("FUN main(): Integer DO\n    LET x = 1");
+                for (int i = 0; i < size; i++) {
+                    builder.append(i % 2 == 0 ? " + " : " * ").append(i % 7 + 1);
+                }
+                builder.append(";\n    RETURN 0;\nEND\n");
+                break;
+            case LOOP:
+                builder.append("FUN main(): Integer DO\n")
+                        .append("    LET i = 0;\n")
+                        .append("    LET total = 0;\n")
+                        .append("    WHILE i < ").append(size).append(" DO\n")
+                        .append("        total = total + i * 2;\n")
+                        .append("        i = i + 1;\n")
+                        .append("    END\n")
+                        .append("    RETURN 0;\nEND\n");
+                break;
+            case LIST:
+                builder.append("LIST values: Integer = [");
+                for (int i = 0; i < size; i++) {
+                    if (i > 0) {
+                        builder.append(", ");
+                    }
+                    builder.append(i);
+                }
+                builder.append("];\nFUN main(): Integer DO\n    RETURN 0;\nEND\n");
+                break;
+            case CALLS:
+                builder.append("FUN one(): Integer DO\n    RETURN 1;\nEND\n")
+                        .append("FUN main(): Integer DO\n")
+                        .append("    LET i = 0;\n")
+                        .append("    WHILE i < ").append(size).append(" DO\n")
+                        .append("        i = i + one();\n")
+                        .append("    END\n")
+                        .append("    RETURN 0;\nEND\n");
+                break;
+            default:
+                throw new AssertionError(shape);
+        }
+        return builder.toString();
+    }
+
+}
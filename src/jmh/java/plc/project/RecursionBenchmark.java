@@ -0,0 +1,69 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interprets a naive recursive fibonacci, where every call ends in a
+ * {@code RETURN}, so the cost of returning dominates. Also runs it compiled
+ * to {@link Node}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class RecursionBenchmark {
+
+    @Param({"15", "20"})
+    public int n;
+
+    private Ast.Source parsed;
+    private Ast.Source resolved;
+    private Node compiled;
+
+    @Setup
+    public void setup() {
+        String input = "FUN fib(n: Integer): Integer DO\n"
+                + "    IF n < 2 DO\n"
+                + "        RETURN n;\n"
+                + "    END\n"
+                + "    RETURN fib(n - 1) + fib(n - 2);\n"
+                + "END\n"
+                + "FUN main(): Integer DO\n"
+                + "    RETURN fib(" + n + ");\n"
+                + "END\n";
+        parsed = new Parser(new Lexer(input).lex()).parseSource();
+        resolved = new Parser(new Lexer(input).lex()).parseSource();
+        new Resolver().visit(resolved);
+        compiled = new Compiler(null).compile(new Parser(new Lexer(input).lex()).parseSource());
+    }
+
+    @Benchmark
+    public Object fib() {
+        return new Interpreter(new plc.project.Scope(null)).visit(parsed).getValue();
+    }
+
+    @Benchmark
+    public Object fibResolved() {
+        return new Interpreter(new plc.project.Scope(null)).visit(resolved).getValue();
+    }
+
+    @Benchmark
+    public Object fibCompiled() {
+        return new Compiler(new plc.project.Scope(null)).execute(compiled).getValue();
+    }
+
+}
@@ -0,0 +1,78 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Edits the body of one function in a source with many functions, either
+ * incrementally in a {@link Session} or by lexing, parsing and analyzing the
+ * whole edited input again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class SessionBenchmark {
+
+    @Param({"1000"})
+    public int functions;
+
+    private Session session;
+    private String input;
+    private int offset;
+    private boolean toggle;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder("VAR x: Integer = 0;\n");
+        for (int function = 0; function < functions; function++) {
+            builder.append("FUN f").append(function).append("(): Integer DO\n");
+            builder.append("    LET i = 0;\n");
+            for (int i = 0; i < 20; i++) {
+                builder.append("    IF i < ").append(i).append(" DO\n        i = i + x * 2;\n    END\n");
+            }
+            builder.append("    RETURN i;\nEND\n");
+        }
+        builder.append("FUN main(): Integer DO\n    RETURN f0();\nEND\n");
+        input = builder.toString();
+        offset = input.indexOf("RETURN i;", input.indexOf("FUN f" + functions / 2 + "(")) + "RETURN ".length();
+        session = new Session(input);
+    }
+
+    /**
+     * Alternates the returned variable between {@code i} and {@code x}, so
+     * every edit keeps the input the same length.
+     */
+    private String replacement() {
+        toggle = !toggle;
+        return toggle ? "x" : "i";
+    }
+
+    @Benchmark
+    public List<RuntimeException> incremental() {
+        return session.edit(offset, offset + 1, replacement());
+    }
+
+    @Benchmark
+    public Ast.Source full() {
+        input = input.substring(0, offset) + replacement() + input.substring(offset + 1);
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new plc.project.Scope(null)).visit(ast);
+        return ast;
+    }
+
+}
@@ -2,8 +2,11 @@ package plc.project;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
 import java.util.Optional;
@@ -16,10 +19,21 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
     public Scope scope;
     private Ast.Function function;
+    private final ForkJoinPool pool;
 
     public Analyzer(Scope parent) {
+        this(parent, null);
+    }
+
+    /**
+     * Analyzes the function bodies of a source in parallel on the pool, once
+     * the globals and function signatures have been defined. Errors are
+     * reported as if analyzed sequentially, the first in source order.
+     */
+    public Analyzer(Scope parent, ForkJoinPool pool) {
         scope = new Scope(parent);
         scope.defineFunction("print", "System.out.println", Arrays.asList(Environment.Type.ANY), Environment.Type.NIL, args -> Environment.NIL);
+        this.pool = pool;
     }
 
     public Scope getScope() {
@@ -28,14 +42,55 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Source ast) {
+        // Globals and function signatures are defined first, after which the
+        // top level scope is only read and the bodies are independent
         for (Ast.Global global : ast.getGlobals()) {
             visit(global);
         }
         for (Ast.Function function : ast.getFunctions()) {
-            visit(function);
+            declare(function);
         }
+        if (pool != null && ast.getFunctions().size() > 1) {
+            // Functions are analyzed in a few chunks per thread, each of which
+            // stops at its first error
+            List<Ast.Function> functions = ast.getFunctions();
+            int chunk = Math.max(1, functions.size() / (4 * pool.getParallelism()));
+            List<ForkJoinTask<RuntimeException>> tasks = new ArrayList<>();
+            for (int start = 0; start < functions.size(); start += chunk) {
+                List<Ast.Function> range = functions.subList(start, Math.min(start + chunk, functions.size()));
+                tasks.add(pool.submit(() -> {
+                    Analyzer analyzer = new Analyzer(scope);
+                    try {
+                        for (Ast.Function function : range) {
+                            analyzer.body(function);
+                        }
+                        return null;
+                    } catch (RuntimeException e) {
+                        return e;
+                    }
+                }));
+            }
+            for (ForkJoinTask<RuntimeException> task : tasks) {
+                RuntimeException exception = task.join();
+                if (exception != null) {
+                    throw exception;
+                }
+            }
+        } else {
+            for (Ast.Function function : ast.getFunctions()) {
+                body(function);
+            }
+        }
+        requireMain(ast.getFunctions());
+        return null;
+    }
+
+    /**
+     * Ensures there is a {@code main/0} function with an Integer return type.
+     */
+    static void requireMain(List<Ast.Function> functions) {
         boolean hasMainFunction = false;
-        for (Ast.Function function : ast.getFunctions()) {
+        for (Ast.Function function : functions) {
             if (function.getName().equals("main") && function.getParameterTypeNames().isEmpty()) {
                 hasMainFunction = true;
                 if (!function.getReturnTypeName().isPresent() || !function.getReturnTypeName().get().equals("Integer")) {
@@ -47,7 +102,6 @@ public final class Analyzer implements Ast.Visitor<Void> {
         if (!hasMainFunction) {
             throw new RuntimeException("Main function not found.");
         }
-        return null;
     }
 
     @Override
@@ -120,6 +174,15 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Function ast) {
+        declare(ast);
+        body(ast);
+        return null;
+    }
+
+    /**
+     * Defines the function in the current scope.
+     */
+    void declare(Ast.Function ast) {
         String name = ast.getName();
         String jvmName = ast.getName();
         List<String> parameterTypeNames = ast.getParameterTypeNames();
@@ -140,8 +203,14 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
 
         ast.setFunction(function);
+    }
 
-
+    /**
+     * Analyzes the body of a declared function in a new scope.
+     */
+    void body(Ast.Function ast) {
+        List<Environment.Type> parameterTypes = ast.getFunction().getParameterTypes();
+        Environment.Type returnType = ast.getFunction().getReturnType();
         try {
             scope = new Scope(scope);
             for (int i = 0; i < parameterTypes.size(); i++) {
@@ -174,8 +243,6 @@ public final class Analyzer implements Ast.Visitor<Void> {
         } finally {
             scope = scope.getParent();
         }
-
-        return null;  // TODO
     }
 
     @Override
@@ -396,76 +463,106 @@ public final class Analyzer implements Ast.Visitor<Void> {
     @Override
     public Void visit(Ast.Expression.Group ast) {
         try {
-            visit(ast.getExpression());
-            try {
-                if (ast.getExpression().getClass() != Ast.Expression.Binary.class) {
-                    // System.out.println("NOT BINARY TYPE!");
-                    throw new RuntimeException("Not binary type!");
-                }
-            }
-            catch (RuntimeException r) {
-                // System.out.println("NOT BINARY TYPE!");
-                throw new RuntimeException("Not binary type!");
-            }
+            expression(ast);
         } catch (RuntimeException r) {
-            // System.out.println("Ast.Group:");
-            // System.out.println(r);
             throw new RuntimeException(r);
         }
-
         return null;
     }
 
     @Override
     public Void visit(Ast.Expression.Binary ast) {
         try {
-            visit(ast.getLeft());
-            visit(ast.getRight());
-
-            if (ast.getOperator().equals("+")) {
-                if (ast.getLeft().getType() == Environment.Type.STRING && ast.getRight().getType() == Environment.Type.STRING) {
-                    ast.setType(Environment.Type.STRING);
-                } else if (ast.getLeft().getType() == Environment.Type.INTEGER && ast.getRight().getType() == Environment.Type.INTEGER) {
-                    ast.setType(Environment.Type.INTEGER);
-                } else if (ast.getLeft().getType() == Environment.Type.STRING || ast.getRight().getType() == Environment.Type.STRING) {
-                    ast.setType(Environment.Type.STRING); // Added logic for string concatenation
-                } else {
-                    throw new RuntimeException("String concatenation requires string operands.");
-                }
-            } else if (ast.getOperator().equals("&&")) {
-                if (ast.getLeft().getType() == Environment.Type.BOOLEAN && ast.getRight().getType() == Environment.Type.BOOLEAN) {
-                    ast.setType(Environment.Type.BOOLEAN);
-                } else {
-                    throw new RuntimeException("Logical AND operation requires boolean operands.");
-                }
-            } else if (ast.getOperator().equals("==") || ast.getOperator().equals("!=") || ast.getOperator().equals("<") || ast.getOperator().equals("<=") || ast.getOperator().equals(">") || ast.getOperator().equals(">=")) {
-                if (ast.getLeft().getType() == Environment.Type.INTEGER && ast.getRight().getType() == Environment.Type.INTEGER) {
-                    ast.setType(Environment.Type.BOOLEAN);
-                } else if (ast.getLeft().getType() == Environment.Type.DECIMAL && ast.getRight().getType() == Environment.Type.DECIMAL) {
-                    ast.setType(Environment.Type.BOOLEAN);
-                } else if (ast.getLeft().getType() == Environment.Type.CHARACTER && ast.getRight().getType() == Environment.Type.CHARACTER) {
-                    ast.setType(Environment.Type.BOOLEAN);
-                } else if (ast.getLeft().getType() == Environment.Type.STRING && ast.getRight().getType() == Environment.Type.STRING) {
-                    ast.setType(Environment.Type.BOOLEAN);
-                } else {
-                    throw new RuntimeException("Comparison operations require comparable operands.");
-                }
-            } else {
-                // Handle arithmetic operations
-                if (ast.getLeft().getType() == Environment.Type.INTEGER && ast.getRight().getType() == Environment.Type.INTEGER) {
-                    ast.setType(Environment.Type.INTEGER);
-                } else if (ast.getLeft().getType() == Environment.Type.DECIMAL && ast.getRight().getType() == Environment.Type.DECIMAL) {
-                    ast.setType(Environment.Type.DECIMAL);
-                } else {
-                    throw new RuntimeException("Arithmetic operations require numeric operands.");
-                }
-            }
+            expression(ast);
         } catch (RuntimeException r) {
             throw new RuntimeException(r);
         }
         return null;
     }
 
+    /**
+     * Analyzes nested binary expressions and groups without recursion, so the
+     * depth of the expression isn't limited by the Java stack. The other
+     * expressions are visited from left to right, then the binary expressions
+     * and groups are checked with their operands before themselves.
+     */
+    private void expression(Ast.Expression ast) {
+        List<Ast.Expression> pending = new ArrayList<>();
+        List<Ast.Expression> nested = new ArrayList<>();
+        pending.add(ast);
+        while (!pending.isEmpty()) {
+            Ast.Expression expression = pending.remove(pending.size() - 1);
+            if (expression instanceof Ast.Expression.Binary) {
+                nested.add(expression);
+                pending.add(((Ast.Expression.Binary) expression).getRight());
+                pending.add(((Ast.Expression.Binary) expression).getLeft());
+            } else if (expression instanceof Ast.Expression.Group) {
+                nested.add(expression);
+                pending.add(((Ast.Expression.Group) expression).getExpression());
+            } else {
+                visit(expression);
+            }
+        }
+        for (int i = nested.size() - 1; i >= 0; i--) {
+            Ast.Expression expression = nested.get(i);
+            if (expression instanceof Ast.Expression.Binary) {
+                binary((Ast.Expression.Binary) expression);
+            } else if (((Ast.Expression.Group) expression).getExpression().getClass() != Ast.Expression.Binary.class) {
+                throw new RuntimeException("Not binary type!");
+            }
+        }
+    }
+
+    /**
+     * Sets the type and opcode of a binary expression whose operands are
+     * analyzed.
+     */
+    private static void binary(Ast.Expression.Binary ast) {
+        type(ast);
+        ast.setOpcode(Opcode.resolve(ast.getOperator(), ast.getLeft().getType(), ast.getRight().getType()));
+    }
+
+    private static void type(Ast.Expression.Binary ast) {
+        if (ast.getOperator().equals("+")) {
+            if (ast.getLeft().getType() == Environment.Type.STRING && ast.getRight().getType() == Environment.Type.STRING) {
+                ast.setType(Environment.Type.STRING);
+            } else if (ast.getLeft().getType() == Environment.Type.INTEGER && ast.getRight().getType() == Environment.Type.INTEGER) {
+                ast.setType(Environment.Type.INTEGER);
+            } else if (ast.getLeft().getType() == Environment.Type.STRING || ast.getRight().getType() == Environment.Type.STRING) {
+                ast.setType(Environment.Type.STRING); // Added logic for string concatenation
+            } else {
+                throw new RuntimeException("String concatenation requires string operands.");
+            }
+        } else if (ast.getOperator().equals("&&")) {
+            if (ast.getLeft().getType() == Environment.Type.BOOLEAN && ast.getRight().getType() == Environment.Type.BOOLEAN) {
+                ast.setType(Environment.Type.BOOLEAN);
+            } else {
+                throw new RuntimeException("Logical AND operation requires boolean operands.");
+            }
+        } else if (ast.getOperator().equals("==") || ast.getOperator().equals("!=") || ast.getOperator().equals("<") || ast.getOperator().equals("<=") || ast.getOperator().equals(">") || ast.getOperator().equals(">=")) {
+            if (ast.getLeft().getType() == Environment.Type.INTEGER && ast.getRight().getType() == Environment.Type.INTEGER) {
+                ast.setType(Environment.Type.BOOLEAN);
+            } else if (ast.getLeft().getType() == Environment.Type.DECIMAL && ast.getRight().getType() == Environment.Type.DECIMAL) {
+                ast.setType(Environment.Type.BOOLEAN);
+            } else if (ast.getLeft().getType() == Environment.Type.CHARACTER && ast.getRight().getType() == Environment.Type.CHARACTER) {
+                ast.setType(Environment.Type.BOOLEAN);
+            } else if (ast.getLeft().getType() == Environment.Type.STRING && ast.getRight().getType() == Environment.Type.STRING) {
+                ast.setType(Environment.Type.BOOLEAN);
+            } else {
+                throw new RuntimeException("Comparison operations require comparable operands.");
+            }
+        } else {
+            // Handle arithmetic operations
+            if (ast.getLeft().getType() == Environment.Type.INTEGER && ast.getRight().getType() == Environment.Type.INTEGER) {
+                ast.setType(Environment.Type.INTEGER);
+            } else if (ast.getLeft().getType() == Environment.Type.DECIMAL && ast.getRight().getType() == Environment.Type.DECIMAL) {
+                ast.setType(Environment.Type.DECIMAL);
+            } else {
+                throw new RuntimeException("Arithmetic operations require numeric operands.");
+            }
+        }
+    }
+
     @Override
     public Void visit(Ast.Expression.Access ast) {
         try {
@@ -11,12 +11,36 @@ import java.util.Optional;
  */
 public abstract class Ast {
 
+    static final int SOURCE = 0, GLOBAL = 1, FUNCTION = 2, STATEMENT = 3, DECLARATION = 4, ASSIGNMENT = 5,
+            IF = 6, SWITCH = 7, CASE = 8, WHILE = 9, RETURN = 10, LITERAL = 11, GROUP = 12, BINARY = 13,
+            ACCESS = 14, CALL = 15, LIST = 16;
+
+    /**
+     * The class of this AST, as one of the constants above, which
+     * {@link Visitor#visit(Ast)} switches on.
+     */
+    private final int kind;
+
+    private Ast(int kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * Returns the class of this AST as one of the constants above, which
+     * {@link FlatAst} also uses for its node kinds.
+     */
+    int getKind() {
+        return kind;
+    }
+
     public static final class Source extends Ast {
 
         private final List<Global> globals;
         private final List<Ast.Function> functions;
+        private int frameSize = -1;
 
         public Source(List<Global> globals, List<Ast.Function> functions) {
+            super(SOURCE);
             this.globals = globals;
             this.functions = functions;
         }
@@ -29,6 +53,18 @@ public abstract class Ast {
             return functions;
         }
 
+        /**
+         * Returns the number of global slots assigned by the {@link Resolver},
+         * or -1 if the source has not been resolved.
+         */
+        public int getFrameSize() {
+            return frameSize;
+        }
+
+        public void setFrameSize(int frameSize) {
+            this.frameSize = frameSize;
+        }
+
         @Override
         public boolean equals(Object obj) {
             return obj instanceof Source &&
@@ -53,12 +89,14 @@ public abstract class Ast {
         private final boolean mutable;
         private final Optional<Ast.Expression> value;
         private Environment.Variable variable = null;
+        private int slot = -1;
 
         public Global(String name, boolean mutable, Optional<Expression> value) {
             this(name, "Any", mutable, value);
 		}
 
         public Global(String name, String typeName, boolean mutable, Optional<Ast.Expression> value) {
+            super(GLOBAL);
             this.name = name;
             this.typeName = typeName;
             this.mutable = mutable;
@@ -93,6 +131,16 @@ public abstract class Ast {
             this.variable = variable;
         }
 
+        /**
+         * Returns the global slot assigned by the {@link Resolver}, or -1.
+         */
+        public int getSlot() {
+            return slot;
+        }
+
+        public void setSlot(int slot) {
+            this.slot = slot;
+        }
 
         @Override
         public boolean equals(Object obj) {
@@ -125,7 +173,8 @@ public abstract class Ast {
         private final Optional<String> returnTypeName;
         private final List<Statement> statements;
         private Environment.Function function = null;
-        
+        private int frameSize = -1;
+
         public Function(String name, List<String> parameters, List<Statement> statements) {
             this(name, parameters, new ArrayList<>(), Optional.of("Any"), statements);
             for (int i = 0; i < parameters.size(); i++) {
@@ -134,7 +183,7 @@ public abstract class Ast {
         }
 
         public Function(String name, List<String> parameters, List<String> parameterTypeNames, Optional<String> returnTypeName, List<Statement> statements) {
-
+            super(FUNCTION);
             this.name = name;
             this.parameters = parameters;
             this.parameterTypeNames = parameterTypeNames;
@@ -173,6 +222,18 @@ public abstract class Ast {
             this.function = function;
         }
 
+        /**
+         * Returns the number of local slots assigned by the {@link Resolver},
+         * with parameters occupying the first slots, or -1 if the function has
+         * not been resolved.
+         */
+        public int getFrameSize() {
+            return frameSize;
+        }
+
+        public void setFrameSize(int frameSize) {
+            this.frameSize = frameSize;
+        }
 
         @Override
         public boolean equals(Object obj) {
@@ -202,11 +263,16 @@ public abstract class Ast {
 
     public static abstract class Statement extends Ast {
 
+        private Statement(int kind) {
+            super(kind);
+        }
+
         public static final class Expression extends Statement {
 
             private final Ast.Expression expression;
 
             public Expression(Ast.Expression expression) {
+                super(STATEMENT);
                 this.expression = expression;
             }
 
@@ -235,12 +301,14 @@ public abstract class Ast {
             private final Optional<String> typeName;
             private Optional<Ast.Expression> value;
             private Environment.Variable variable = null;
+            private int slot = -1;
 
             public Declaration(String name, Optional<Ast.Expression> value) {
                 this(name, Optional.empty(), value);
             }
 
             public Declaration(String name, Optional<String> typeName, Optional<Ast.Expression> value) {
+                super(DECLARATION);
                 this.name = name;
                 this.typeName = typeName;
                 this.value = value;
@@ -268,8 +336,18 @@ public abstract class Ast {
             public void setVariable(Environment.Variable variable) {
                 this.variable = variable;
             }
-            
-            
+
+            /**
+             * Returns the local slot assigned by the {@link Resolver}, or -1.
+             */
+            public int getSlot() {
+                return slot;
+            }
+
+            public void setSlot(int slot) {
+                this.slot = slot;
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Declaration &&
@@ -297,6 +375,7 @@ public abstract class Ast {
             private final Ast.Expression value;
 
             public Assignment(Ast.Expression receiver, Ast.Expression value) {
+                super(ASSIGNMENT);
                 this.receiver = receiver;
                 this.value = value;
             }
@@ -334,6 +413,7 @@ public abstract class Ast {
 
 
             public If(Ast.Expression condition, List<Statement> thenStatements, List<Statement> elseStatements) {
+                super(IF);
                 this.condition = condition;
                 this.thenStatements = thenStatements;
                 this.elseStatements = elseStatements;
@@ -376,6 +456,7 @@ public abstract class Ast {
             private final List<Ast.Statement.Case> cases;
 
             public Switch(Ast.Expression condition, List<Ast.Statement.Case> cases) {
+                super(SWITCH);
                 this.condition = condition;
                 this.cases = cases;
             }
@@ -409,6 +490,7 @@ public abstract class Ast {
             private final List<Statement> statements;
 
             public Case(Optional<Ast.Expression> value, List<Statement> statements) {
+                super(CASE);
                 this.value = value;
                 this.statements = statements;
             }
@@ -442,8 +524,11 @@ public abstract class Ast {
 
             private final Ast.Expression condition;
             private final List<Statement> statements;
+            private int firstSlot = -1;
+            private int lastSlot = -1;
 
             public While(Ast.Expression condition, List<Statement> statements) {
+                super(WHILE);
                 this.condition = condition;
                 this.statements = statements;
             }
@@ -456,6 +541,26 @@ public abstract class Ast {
                 return statements;
             }
 
+            /**
+             * Returns the first local slot declared in the body, which is
+             * reset on each iteration, or -1 if the loop has not been resolved.
+             */
+            public int getFirstSlot() {
+                return firstSlot;
+            }
+
+            /**
+             * Returns the slot after the last local slot declared in the body.
+             */
+            public int getLastSlot() {
+                return lastSlot;
+            }
+
+            public void setSlots(int firstSlot, int lastSlot) {
+                this.firstSlot = firstSlot;
+                this.lastSlot = lastSlot;
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof While &&
@@ -478,6 +583,7 @@ public abstract class Ast {
             private final Ast.Expression value;
 
             public Return(Ast.Expression value) {
+                super(RETURN);
                 this.value = value;
             }
 
@@ -504,6 +610,10 @@ public abstract class Ast {
 
     public static abstract class Expression extends Ast {
 
+        private Expression(int kind) {
+            super(kind);
+        }
+
         public abstract Environment.Type getType();
 
         public static final class Literal extends Ast.Expression {
@@ -512,6 +622,7 @@ public abstract class Ast {
             private Environment.Type type = null;
             
             public Literal(Object literal) {
+                super(LITERAL);
                 this.literal = literal;
             }
 
@@ -556,6 +667,7 @@ public abstract class Ast {
             private Environment.Type type = null;
 
             public Group(Ast.Expression expression) {
+                super(GROUP);
                 this.expression = expression;
             }
 
@@ -600,8 +712,10 @@ public abstract class Ast {
             private final Ast.Expression left;
             private final Ast.Expression right;
             private Environment.Type type = null;
+            private Opcode opcode = null;
 
             public Binary(String operator, Ast.Expression left, Ast.Expression right) {
+                super(BINARY);
                 this.operator = operator;
                 this.left = left;
                 this.right = right;
@@ -631,6 +745,18 @@ public abstract class Ast {
                 this.type = type;
             }
 
+            /**
+             * Returns the opcode resolved by the {@link Analyzer}, or null if
+             * the expression has not been analyzed.
+             */
+            public Opcode getOpcode() {
+                return opcode;
+            }
+
+            public void setOpcode(Opcode opcode) {
+                this.opcode = opcode;
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Binary &&
@@ -658,8 +784,11 @@ public abstract class Ast {
             private final Optional<Ast.Expression> offset;
             private final String name;
             private Environment.Variable variable = null;
+            private int depth = -1;
+            private int slot = -1;
 
             public Access(Optional<Ast.Expression> offset, String name) {
+                super(ACCESS);
                 this.offset = offset;
                 this.name = name;
             }
@@ -683,6 +812,27 @@ public abstract class Ast {
                 this.variable = variable;
             }
 
+            /**
+             * Returns the number of frames between the access and the frame
+             * declaring the variable, as assigned by the {@link Resolver}.
+             */
+            public int getDepth() {
+                return depth;
+            }
+
+            /**
+             * Returns the slot of the variable in its frame, or -1 if the
+             * access has not been resolved.
+             */
+            public int getSlot() {
+                return slot;
+            }
+
+            public void setSlot(int depth, int slot) {
+                this.depth = depth;
+                this.slot = slot;
+            }
+
             @Override
             public Environment.Type getType() {
                 return getVariable().getType();
@@ -713,8 +863,10 @@ public abstract class Ast {
             private final String name;
             private final List<Ast.Expression> arguments;
             private Environment.Function function = null;
+            private final Scope.Binding binding = new Scope.Binding();
 
             public Function(String name, List<Ast.Expression> arguments) {
+                super(CALL);
                 this.name = name;
                 this.arguments = arguments;
             }
@@ -738,6 +890,14 @@ public abstract class Ast {
                 this.function = function;
             }
 
+            /**
+             * Returns the binding the interpreter caches the function of this
+             * call site in.
+             */
+            public Scope.Binding getBinding() {
+                return binding;
+            }
+
             @Override
             public Environment.Type getType() {
                 return getFunction().getReturnType();
@@ -769,6 +929,7 @@ public abstract class Ast {
 
 
             public PlcList(List<Ast.Expression> values) {
+                super(LIST);
                 this.values = values;
             }
 
@@ -809,43 +970,48 @@ public abstract class Ast {
 
     public interface Visitor<T> {
 
+        /**
+         * Dispatches to the method for the class of the AST with a single
+         * switch on its kind.
+         */
         default T visit(Ast ast) {
-            if (ast instanceof Ast.Source) {
-                return visit((Ast.Source) ast);
-            } else if (ast instanceof Ast.Global) {
-                return visit((Ast.Global) ast);
-            } else if (ast instanceof Ast.Function) {
-                return visit((Ast.Function) ast);
-            } else if (ast instanceof Ast.Statement.Expression) {
-                return visit((Ast.Statement.Expression) ast);
-            } else if (ast instanceof Ast.Statement.Declaration) {
-                return visit((Ast.Statement.Declaration) ast);
-            } else if (ast instanceof Ast.Statement.Assignment) {
-                return visit((Ast.Statement.Assignment) ast);
-            } else if (ast instanceof Ast.Statement.If) {
-                return visit((Ast.Statement.If) ast);
-            } else if (ast instanceof Ast.Statement.Switch) {
-                return visit((Ast.Statement.Switch) ast);
-            } else if (ast instanceof Ast.Statement.Case) {
-                return visit((Ast.Statement.Case) ast);
-            } else if (ast instanceof Ast.Statement.While) {
-                return visit((Ast.Statement.While) ast);
-            } else if (ast instanceof Ast.Statement.Return) {
-                return visit((Ast.Statement.Return) ast);
-            } else if (ast instanceof Ast.Expression.Literal) {
-                return visit((Ast.Expression.Literal) ast);
-            } else if (ast instanceof Ast.Expression.Group) {
-                return visit((Ast.Expression.Group) ast);
-            } else if (ast instanceof Ast.Expression.Binary) {
-                return visit((Ast.Expression.Binary) ast);
-            } else if (ast instanceof Ast.Expression.Access) {
-                return visit((Ast.Expression.Access) ast);
-            } else if (ast instanceof Ast.Expression.Function) {
-                return visit((Ast.Expression.Function) ast);
-            } else if (ast instanceof Ast.Expression.PlcList) {
-                return visit((Ast.Expression.PlcList) ast);
-            } else {
-                throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+            switch (ast.kind) {
+                case SOURCE:
+                    return visit((Ast.Source) ast);
+                case GLOBAL:
+                    return visit((Ast.Global) ast);
+                case FUNCTION:
+                    return visit((Ast.Function) ast);
+                case STATEMENT:
+                    return visit((Ast.Statement.Expression) ast);
+                case DECLARATION:
+                    return visit((Ast.Statement.Declaration) ast);
+                case ASSIGNMENT:
+                    return visit((Ast.Statement.Assignment) ast);
+                case IF:
+                    return visit((Ast.Statement.If) ast);
+                case SWITCH:
+                    return visit((Ast.Statement.Switch) ast);
+                case CASE:
+                    return visit((Ast.Statement.Case) ast);
+                case WHILE:
+                    return visit((Ast.Statement.While) ast);
+                case RETURN:
+                    return visit((Ast.Statement.Return) ast);
+                case LITERAL:
+                    return visit((Ast.Expression.Literal) ast);
+                case GROUP:
+                    return visit((Ast.Expression.Group) ast);
+                case BINARY:
+                    return visit((Ast.Expression.Binary) ast);
+                case ACCESS:
+                    return visit((Ast.Expression.Access) ast);
+                case CALL:
+                    return visit((Ast.Expression.Function) ast);
+                case LIST:
+                    return visit((Ast.Expression.PlcList) ast);
+                default:
+                    throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
             }
         }
 
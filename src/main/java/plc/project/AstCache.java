@@ -0,0 +1,844 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent cache of analyzed sources, stored in a directory with one file
+ * per input named by the SHA-256 of the input. A cached source is read back
+ * through a memory-mapped buffer and needs no lexing, parsing or analysis.
+ *
+ * Each file is a header of the magic number, the format {@link #VERSION},
+ * the SHA-256 of the input and the length and CRC-32 of the payload. The
+ * payload holds a table of every string, then tables of the types, variables
+ * and functions bound by the {@link Analyzer}, so shared bindings stay shared,
+ * followed by the tree in preorder with each node introduced by a tag byte.
+ * A file with any mismatch in the header is ignored and replaced on the next
+ * {@link #load(String)}.
+ *
+ * The slots assigned by the {@link Resolver} are not stored.
+ */
+public final class AstCache {
+
+    /**
+     * The format version, which must be incremented whenever the encoding or
+     * the {@link Ast} changes.
+     */
+    public static final int VERSION = 2;
+
+    private static final int MAGIC = 0x504C4341; // PLCA
+    private static final int HEADER = 4 + 4 + 32 + 4 + 4;
+
+    private static final byte EXPRESSION = 0, DECLARATION = 1, ASSIGNMENT = 2, IF = 3, SWITCH = 4, WHILE = 5, RETURN = 6;
+    private static final byte LITERAL = 0, GROUP = 1, BINARY = 2, ACCESS = 3, CALL = 4, LIST = 5;
+    private static final byte NIL = 0, BOOLEAN = 1, INTEGER = 2, DECIMAL = 3, CHARACTER = 4, STRING = 5;
+    private static final Opcode[] OPCODES = Opcode.values();
+
+    private final Path directory;
+
+    public AstCache(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the analyzed source for the input, lexing, parsing and
+     * analyzing it only if there is no valid cached source.
+     */
+    public Ast.Source load(String input) {
+        Optional<Ast.Source> cached = get(input);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        put(input, ast);
+        return ast;
+    }
+
+    /**
+     * Returns the cached source for the input, or empty if there is none or
+     * the cached file is from another version, truncated or corrupt.
+     */
+    public Optional<Ast.Source> get(String input) {
+        byte[] digest = hash(input);
+        try (FileChannel channel = FileChannel.open(path(digest), StandardOpenOption.READ)) {
+            return Optional.ofNullable(decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), digest));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stores the analyzed source for the input, replacing the file in one
+     * move so a concurrent reader never sees a partial file.
+     */
+    public void put(String input, Ast.Source ast) {
+        byte[] digest = hash(input);
+        try {
+            Path temporary = Files.createTempFile(directory, null, ".tmp");
+            try {
+                Files.write(temporary, encode(ast, digest));
+                Files.move(temporary, path(digest), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    Path path(String input) {
+        return path(hash(input));
+    }
+
+    private Path path(byte[] digest) {
+        return directory.resolve(HexFormat.of().formatHex(digest) + ".ast");
+    }
+
+    static byte[] encode(Ast.Source ast, byte[] digest) {
+        try {
+            Encoder encoder = new Encoder();
+            encoder.source(ast);
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            encoder.tables(new DataOutputStream(payload));
+            encoder.tree.writeTo(payload);
+            byte[] bytes = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER + bytes.length);
+            buffer.putInt(MAGIC).putInt(VERSION).put(digest).putInt(bytes.length).putInt((int) crc.getValue()).put(bytes);
+            return buffer.array();
+        } catch (IOException e) {
+            throw new AssertionError(e); // in memory
+        }
+    }
+
+    /**
+     * Decodes the source, returning null if the header doesn't match or the
+     * payload is malformed.
+     */
+    static Ast.Source decode(ByteBuffer buffer, byte[] digest) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            byte[] stored = new byte[digest.length];
+            buffer.get(stored);
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (!Arrays.equals(stored, digest) || length != buffer.remaining()) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return null;
+            }
+            return new Decoder(buffer).source();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static byte[] hash(String input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e); // SHA-256 is required of every JVM
+        }
+    }
+
+    /**
+     * Writes the tree while numbering the bindings it refers to, which are
+     * written first as tables.
+     */
+    private static final class Encoder {
+
+        private final ByteArrayOutputStream tree = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(tree);
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<Environment.Type, Integer> types = new IdentityHashMap<>();
+        private final Map<Environment.Variable, Integer> variables = new IdentityHashMap<>();
+        private final Map<Environment.Function, Integer> functions = new IdentityHashMap<>();
+
+        private void tables(DataOutputStream out) throws IOException {
+            ByteArrayOutputStream bindings = new ByteArrayOutputStream();
+            bindings(new DataOutputStream(bindings));
+            List<String> strings = ordered(this.strings);
+            out.writeInt(strings.size());
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            bindings.writeTo(out);
+            out.flush();
+        }
+
+        private void bindings(DataOutputStream out) throws IOException {
+            // Numbering the bindings adds their types, so they go first
+            List<Environment.Variable> variables = ordered(this.variables);
+            List<Environment.Function> functions = ordered(this.functions);
+            int[][] signatures = new int[functions.size()][];
+            int[] variableTypes = new int[variables.size()];
+            for (int i = 0; i < variableTypes.length; i++) {
+                variableTypes[i] = type(variables.get(i).getType());
+            }
+            for (int i = 0; i < signatures.length; i++) {
+                List<Environment.Type> parameters = functions.get(i).getParameterTypes();
+                signatures[i] = new int[parameters.size() + 1];
+                for (int j = 0; j < parameters.size(); j++) {
+                    signatures[i][j] = type(parameters.get(j));
+                }
+                signatures[i][parameters.size()] = type(functions.get(i).getReturnType());
+            }
+
+            List<Environment.Type> types = ordered(this.types);
+            out.writeInt(types.size());
+            for (Environment.Type type : types) {
+                string(out, type.getName());
+            }
+            out.writeInt(variables.size());
+            for (int i = 0; i < variables.size(); i++) {
+                Environment.Variable variable = variables.get(i);
+                string(out, variable.getName());
+                string(out, variable.getJvmName());
+                out.writeInt(variableTypes[i]);
+                out.writeBoolean(variable.getMutable());
+            }
+            out.writeInt(functions.size());
+            for (int i = 0; i < functions.size(); i++) {
+                Environment.Function function = functions.get(i);
+                string(out, function.getName());
+                string(out, function.getJvmName());
+                out.writeInt(signatures[i].length - 1);
+                for (int index : signatures[i]) {
+                    out.writeInt(index);
+                }
+            }
+            out.flush();
+        }
+
+        private static <T> List<T> ordered(Map<T, Integer> indices) {
+            List<T> ordered = new ArrayList<>(Collections.nCopies(indices.size(), null));
+            indices.forEach((key, index) -> ordered.set(index, key));
+            return ordered;
+        }
+
+        private void source(Ast.Source ast) throws IOException {
+            out.writeInt(ast.getGlobals().size());
+            for (Ast.Global global : ast.getGlobals()) {
+                string(out, global.getName());
+                string(out, global.getTypeName());
+                out.writeBoolean(global.getMutable());
+                optional(global.getValue());
+                out.writeInt(global(global));
+            }
+            out.writeInt(ast.getFunctions().size());
+            for (Ast.Function function : ast.getFunctions()) {
+                string(out, function.getName());
+                strings(function.getParameters());
+                strings(function.getParameterTypeNames());
+                out.writeBoolean(function.getReturnTypeName().isPresent());
+                if (function.getReturnTypeName().isPresent()) {
+                    string(out, function.getReturnTypeName().get());
+                }
+                statements(function.getStatements());
+                out.writeInt(function(function));
+            }
+            out.flush();
+        }
+
+        private void statements(List<Ast.Statement> statements) throws IOException {
+            out.writeInt(statements.size());
+            for (Ast.Statement statement : statements) {
+                statement(statement);
+            }
+        }
+
+        private void statement(Ast.Statement ast) throws IOException {
+            if (ast instanceof Ast.Statement.Expression) {
+                out.writeByte(EXPRESSION);
+                expression(((Ast.Statement.Expression) ast).getExpression());
+            } else if (ast instanceof Ast.Statement.Declaration) {
+                Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) ast;
+                out.writeByte(DECLARATION);
+                string(out, declaration.getName());
+                out.writeBoolean(declaration.getTypeName().isPresent());
+                if (declaration.getTypeName().isPresent()) {
+                    string(out, declaration.getTypeName().get());
+                }
+                optional(declaration.getValue());
+                out.writeInt(variable(declaration));
+            } else if (ast instanceof Ast.Statement.Assignment) {
+                out.writeByte(ASSIGNMENT);
+                expression(((Ast.Statement.Assignment) ast).getReceiver());
+                expression(((Ast.Statement.Assignment) ast).getValue());
+            } else if (ast instanceof Ast.Statement.If) {
+                out.writeByte(IF);
+                expression(((Ast.Statement.If) ast).getCondition());
+                statements(((Ast.Statement.If) ast).getThenStatements());
+                statements(((Ast.Statement.If) ast).getElseStatements());
+            } else if (ast instanceof Ast.Statement.Switch) {
+                out.writeByte(SWITCH);
+                expression(((Ast.Statement.Switch) ast).getCondition());
+                out.writeInt(((Ast.Statement.Switch) ast).getCases().size());
+                for (Ast.Statement.Case switchCase : ((Ast.Statement.Switch) ast).getCases()) {
+                    optional(switchCase.getValue());
+                    statements(switchCase.getStatements());
+                }
+            } else if (ast instanceof Ast.Statement.While) {
+                out.writeByte(WHILE);
+                expression(((Ast.Statement.While) ast).getCondition());
+                statements(((Ast.Statement.While) ast).getStatements());
+            } else if (ast instanceof Ast.Statement.Return) {
+                out.writeByte(RETURN);
+                expression(((Ast.Statement.Return) ast).getValue());
+            } else {
+                throw new AssertionError("Unimplemented statement " + ast.getClass() + ".");
+            }
+        }
+
+        private void optional(Optional<Ast.Expression> ast) throws IOException {
+            out.writeBoolean(ast.isPresent());
+            if (ast.isPresent()) {
+                expression(ast.get());
+            }
+        }
+
+        /**
+         * Writes the expression in preorder without recursion, keeping the
+         * fields which follow the children of a node on the stack as a
+         * {@link Trailer} until its children are written.
+         */
+        private void expression(Ast.Expression root) throws IOException {
+            Deque<Object> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Object next = pending.pop();
+                if (next instanceof Trailer) {
+                    trailer(((Trailer) next).ast);
+                    continue;
+                }
+                Ast.Expression ast = (Ast.Expression) next;
+                List<Ast.Expression> children;
+                if (ast instanceof Ast.Expression.Literal) {
+                    out.writeByte(LITERAL);
+                    literal(((Ast.Expression.Literal) ast).getLiteral());
+                    out.writeInt(type(ast));
+                    continue;
+                } else if (ast instanceof Ast.Expression.Group) {
+                    out.writeByte(GROUP);
+                    children = List.of(((Ast.Expression.Group) ast).getExpression());
+                } else if (ast instanceof Ast.Expression.Binary) {
+                    out.writeByte(BINARY);
+                    string(out, ((Ast.Expression.Binary) ast).getOperator());
+                    children = List.of(((Ast.Expression.Binary) ast).getLeft(), ((Ast.Expression.Binary) ast).getRight());
+                } else if (ast instanceof Ast.Expression.Access) {
+                    Ast.Expression.Access access = (Ast.Expression.Access) ast;
+                    out.writeByte(ACCESS);
+                    string(out, access.getName());
+                    out.writeBoolean(access.getOffset().isPresent());
+                    children = access.getOffset().map(List::of).orElse(List.of());
+                } else if (ast instanceof Ast.Expression.Function) {
+                    Ast.Expression.Function function = (Ast.Expression.Function) ast;
+                    out.writeByte(CALL);
+                    string(out, function.getName());
+                    out.writeInt(function.getArguments().size());
+                    children = function.getArguments();
+                } else if (ast instanceof Ast.Expression.PlcList) {
+                    out.writeByte(LIST);
+                    out.writeInt(((Ast.Expression.PlcList) ast).getValues().size());
+                    children = ((Ast.Expression.PlcList) ast).getValues();
+                } else {
+                    throw new AssertionError("Unimplemented expression " + ast.getClass() + ".");
+                }
+                pending.push(new Trailer(ast));
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    pending.push(children.get(i));
+                }
+            }
+        }
+
+        /**
+         * Writes the fields of the expression which follow its children.
+         */
+        private void trailer(Ast.Expression ast) throws IOException {
+            if (ast instanceof Ast.Expression.Binary) {
+                out.writeInt(type(ast));
+                Opcode opcode = ((Ast.Expression.Binary) ast).getOpcode();
+                out.writeByte(opcode == null ? -1 : opcode.ordinal());
+            } else if (ast instanceof Ast.Expression.Access) {
+                out.writeInt(variable((Ast.Expression.Access) ast));
+            } else if (ast instanceof Ast.Expression.Function) {
+                out.writeInt(function((Ast.Expression.Function) ast));
+            } else {
+                out.writeInt(type(ast));
+            }
+        }
+
+        private void literal(Object literal) throws IOException {
+            if (literal == null) {
+                out.writeByte(NIL);
+            } else if (literal instanceof Boolean) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean((Boolean) literal);
+            } else if (literal instanceof BigInteger) {
+                out.writeByte(INTEGER);
+                bytes(((BigInteger) literal).toByteArray());
+            } else if (literal instanceof BigDecimal) {
+                out.writeByte(DECIMAL);
+                bytes(((BigDecimal) literal).unscaledValue().toByteArray());
+                out.writeInt(((BigDecimal) literal).scale());
+            } else if (literal instanceof Character) {
+                out.writeByte(CHARACTER);
+                out.writeChar((Character) literal);
+            } else if (literal instanceof String) {
+                out.writeByte(STRING);
+                string(out, (String) literal);
+            } else {
+                throw new AssertionError("Unimplemented literal " + literal.getClass() + ".");
+            }
+        }
+
+        /**
+         * Returns the index of the type of the expression, or -1 for the
+         * groups and others which the analyzer leaves untyped.
+         */
+        private int type(Ast.Expression ast) {
+            try {
+                return type(ast.getType());
+            } catch (IllegalStateException e) {
+                return -1;
+            }
+        }
+
+        private int type(Environment.Type type) {
+            return types.computeIfAbsent(type, key -> types.size());
+        }
+
+        private int global(Ast.Global ast) {
+            try {
+                return variable(ast.getVariable());
+            } catch (IllegalStateException e) {
+                return -1;
+            }
+        }
+
+        private int variable(Ast.Statement.Declaration ast) {
+            try {
+                return variable(ast.getVariable());
+            } catch (IllegalStateException e) {
+                return -1;
+            }
+        }
+
+        private int variable(Ast.Expression.Access ast) {
+            try {
+                return variable(ast.getVariable());
+            } catch (IllegalStateException e) {
+                return -1;
+            }
+        }
+
+        private int variable(Environment.Variable variable) {
+            return variables.computeIfAbsent(variable, key -> variables.size());
+        }
+
+        private int function(Ast.Function ast) {
+            try {
+                return function(ast.getFunction());
+            } catch (IllegalStateException e) {
+                return -1;
+            }
+        }
+
+        private int function(Ast.Expression.Function ast) {
+            try {
+                return function(ast.getFunction());
+            } catch (IllegalStateException e) {
+                return -1;
+            }
+        }
+
+        private int function(Environment.Function function) {
+            return functions.computeIfAbsent(function, key -> functions.size());
+        }
+
+        private void strings(List<String> strings) throws IOException {
+            out.writeInt(strings.size());
+            for (String string : strings) {
+                string(out, string);
+            }
+        }
+
+        private void bytes(byte[] bytes) throws IOException {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void string(DataOutputStream out, String string) throws IOException {
+            out.writeInt(strings.computeIfAbsent(string, key -> strings.size()));
+        }
+
+    }
+
+    /**
+     * Reads the tables and then the tree from the payload.
+     */
+    private static final class Decoder {
+
+        private final ByteBuffer in;
+        private final String[] strings;
+        private final Environment.Type[] types;
+        private final Environment.Variable[] variables;
+        private final Environment.Function[] functions;
+
+        private Decoder(ByteBuffer in) {
+            this.in = in;
+            strings = new String[count()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = new String(bytes(), StandardCharsets.UTF_8);
+            }
+            types = new Environment.Type[count()];
+            for (int i = 0; i < types.length; i++) {
+                String name = string();
+                if (!Environment.hasType(name)) {
+                    throw new IllegalArgumentException("Type " + name + " is not registered in this process.");
+                }
+                types[i] = Environment.getType(name);
+            }
+            variables = new Environment.Variable[count()];
+            for (int i = 0; i < variables.length; i++) {
+                String name = string();
+                String jvmName = string();
+                Environment.Type type = type();
+                variables[i] = new Environment.Variable(name, jvmName, type, in.get() != 0, Environment.NIL);
+            }
+            functions = new Environment.Function[count()];
+            for (int i = 0; i < functions.length; i++) {
+                String name = string();
+                String jvmName = string();
+                List<Environment.Type> parameterTypes = new ArrayList<>();
+                for (int arity = count(); arity > 0; arity--) {
+                    parameterTypes.add(type());
+                }
+                functions[i] = new Environment.Function(name, jvmName, parameterTypes, type(), args -> Environment.NIL);
+            }
+        }
+
+        private Ast.Source source() {
+            List<Ast.Global> globals = new ArrayList<>();
+            for (int count = count(); count > 0; count--) {
+                String name = string();
+                String typeName = string();
+                boolean mutable = in.get() != 0;
+                Ast.Global global = new Ast.Global(name, typeName, mutable, optional());
+                global.setVariable(variable());
+                globals.add(global);
+            }
+            List<Ast.Function> functions = new ArrayList<>();
+            for (int count = count(); count > 0; count--) {
+                String name = string();
+                List<String> parameters = strings();
+                List<String> parameterTypeNames = strings();
+                Optional<String> returnTypeName = in.get() != 0 ? Optional.of(string()) : Optional.empty();
+                Ast.Function function = new Ast.Function(name, parameters, parameterTypeNames, returnTypeName, statements());
+                function.setFunction(function());
+                functions.add(function);
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Trailing bytes after the source.");
+            }
+            return new Ast.Source(globals, functions);
+        }
+
+        private List<Ast.Statement> statements() {
+            List<Ast.Statement> statements = new ArrayList<>();
+            for (int count = count(); count > 0; count--) {
+                statements.add(statement());
+            }
+            return statements;
+        }
+
+        private Ast.Statement statement() {
+            byte tag = in.get();
+            switch (tag) {
+                case EXPRESSION:
+                    return new Ast.Statement.Expression(expression());
+                case DECLARATION: {
+                    String name = string();
+                    Optional<String> typeName = in.get() != 0 ? Optional.of(string()) : Optional.empty();
+                    Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(name, typeName, optional());
+                    declaration.setVariable(variable());
+                    return declaration;
+                }
+                case ASSIGNMENT: {
+                    Ast.Expression receiver = expression();
+                    return new Ast.Statement.Assignment(receiver, expression());
+                }
+                case IF: {
+                    Ast.Expression condition = expression();
+                    List<Ast.Statement> thenStatements = statements();
+                    return new Ast.Statement.If(condition, thenStatements, statements());
+                }
+                case SWITCH: {
+                    Ast.Expression condition = expression();
+                    List<Ast.Statement.Case> cases = new ArrayList<>();
+                    for (int count = count(); count > 0; count--) {
+                        Optional<Ast.Expression> value = optional();
+                        cases.add(new Ast.Statement.Case(value, statements()));
+                    }
+                    return new Ast.Statement.Switch(condition, cases);
+                }
+                case WHILE: {
+                    Ast.Expression condition = expression();
+                    return new Ast.Statement.While(condition, statements());
+                }
+                case RETURN:
+                    return new Ast.Statement.Return(expression());
+                default:
+                    throw new IllegalArgumentException("Unknown statement tag " + tag + ".");
+            }
+        }
+
+        private Optional<Ast.Expression> optional() {
+            return in.get() != 0 ? Optional.of(expression()) : Optional.empty();
+        }
+
+        /**
+         * Reads an expression without recursion, keeping each node whose
+         * children are still being read on the stack as a {@link Partial}.
+         */
+        private Ast.Expression expression() {
+            Deque<Partial> stack = new ArrayDeque<>();
+            while (true) {
+                Ast.Expression done;
+                byte tag = in.get();
+                if (tag == LITERAL) {
+                    Ast.Expression.Literal literal = new Ast.Expression.Literal(literal());
+                    literal.setType(type());
+                    done = literal;
+                } else {
+                    Partial partial;
+                    switch (tag) {
+                        case GROUP:
+                            partial = new Partial(tag, null, 1);
+                            break;
+                        case BINARY:
+                            partial = new Partial(tag, string(), 2);
+                            break;
+                        case ACCESS: {
+                            String name = string();
+                            partial = new Partial(tag, name, in.get() != 0 ? 1 : 0);
+                            break;
+                        }
+                        case CALL: {
+                            String name = string();
+                            partial = new Partial(tag, name, count());
+                            break;
+                        }
+                        case LIST:
+                            partial = new Partial(tag, null, count());
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unknown expression tag " + tag + ".");
+                    }
+                    if (partial.count > 0) {
+                        stack.push(partial);
+                        continue;
+                    }
+                    done = finish(partial);
+                }
+                while (true) {
+                    if (stack.isEmpty()) {
+                        return done;
+                    }
+                    Partial parent = stack.peek();
+                    parent.children.add(done);
+                    if (parent.children.size() < parent.count) {
+                        break;
+                    }
+                    stack.pop();
+                    done = finish(parent);
+                }
+            }
+        }
+
+        /**
+         * Reads the fields which follow the children of the expression and
+         * creates it.
+         */
+        private Ast.Expression finish(Partial partial) {
+            switch (partial.tag) {
+                case GROUP: {
+                    Ast.Expression.Group group = new Ast.Expression.Group(partial.children.get(0));
+                    group.setType(type());
+                    return group;
+                }
+                case BINARY: {
+                    Ast.Expression.Binary binary = new Ast.Expression.Binary(partial.name, partial.children.get(0), partial.children.get(1));
+                    binary.setType(type());
+                    binary.setOpcode(opcode());
+                    return binary;
+                }
+                case ACCESS: {
+                    Optional<Ast.Expression> offset = partial.children.isEmpty() ? Optional.empty() : Optional.of(partial.children.get(0));
+                    Ast.Expression.Access access = new Ast.Expression.Access(offset, partial.name);
+                    access.setVariable(variable());
+                    return access;
+                }
+                case CALL: {
+                    Ast.Expression.Function function = new Ast.Expression.Function(partial.name, partial.children);
+                    function.setFunction(function());
+                    return function;
+                }
+                default: {
+                    Ast.Expression.PlcList list = new Ast.Expression.PlcList(partial.children);
+                    list.setType(type());
+                    return list;
+                }
+            }
+        }
+
+        private Object literal() {
+            byte tag = in.get();
+            switch (tag) {
+                case NIL:
+                    return null;
+                case BOOLEAN:
+                    return in.get() != 0;
+                case INTEGER:
+                    return new BigInteger(bytes());
+                case DECIMAL: {
+                    BigInteger unscaled = new BigInteger(bytes());
+                    return new BigDecimal(unscaled, in.getInt());
+                }
+                case CHARACTER:
+                    return in.getChar();
+                case STRING:
+                    return string();
+                default:
+                    throw new IllegalArgumentException("Unknown literal tag " + tag + ".");
+            }
+        }
+
+        private Environment.Type type() {
+            int index = in.getInt();
+            return index == -1 ? null : types[index];
+        }
+
+        private Opcode opcode() {
+            byte index = in.get();
+            return index == -1 ? null : OPCODES[index];
+        }
+
+        private Environment.Variable variable() {
+            int index = in.getInt();
+            return index == -1 ? null : variables[index];
+        }
+
+        private Environment.Function function() {
+            int index = in.getInt();
+            return index == -1 ? null : functions[index];
+        }
+
+        /**
+         * Reads a count, which can't exceed the remaining bytes as every
+         * element takes at least one.
+         */
+        private int count() {
+            int count = in.getInt();
+            if (count < 0 || count > in.remaining()) {
+                throw new IllegalArgumentException("Invalid count " + count + ".");
+            }
+            return count;
+        }
+
+        private List<String> strings() {
+            List<String> strings = new ArrayList<>();
+            for (int count = count(); count > 0; count--) {
+                strings.add(string());
+            }
+            return strings;
+        }
+
+        private byte[] bytes() {
+            byte[] bytes = new byte[count()];
+            in.get(bytes);
+            return bytes;
+        }
+
+        private String string() {
+            return strings[in.getInt()];
+        }
+
+    }
+
+    /**
+     * An expression whose trailing fields are written after its children.
+     */
+    private static final class Trailer {
+
+        private final Ast.Expression ast;
+
+        private Trailer(Ast.Expression ast) {
+            this.ast = ast;
+        }
+
+    }
+
+    /**
+     * An expression whose children are being read.
+     */
+    private static final class Partial {
+
+        private final byte tag;
+        private final String name;
+        private final int count;
+        private final List<Ast.Expression> children = new ArrayList<>();
+
+        private Partial(byte tag, String name, int count) {
+            this.tag = tag;
+            this.name = name;
+            this.count = count;
+        }
+
+    }
+
+}
@@ -0,0 +1,667 @@
+package plc.project;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntSupplier;
+
+/**
+ * Generates JVM bytecode for an analyzed source, as an alternative to the
+ * {@link Generator} that needs no javac step. The class has the same shape
+ * as the generated Java source: globals are fields of {@code Main}, functions
+ * are methods using the JVM types from the {@link Analyzer}, and operators
+ * have Java semantics (e.g. Integer is an {@code int} and may overflow).
+ *
+ * The class also implements {@link IntSupplier}, where {@code getAsInt}
+ * returns {@code new Main().main()}, so that it can be run without
+ * reflection once loaded with {@link #load(byte[])}.
+ */
+public final class BytecodeGenerator implements Ast.Visitor<Void> {
+
+    public static final String CLASS_NAME = "Main";
+
+    private static final Type STRING = Type.getType(String.class);
+    private static final Type OBJECT = Type.getType(Object.class);
+    private static final Type COMPARABLE = Type.getType(Comparable.class);
+
+    private ClassWriter writer;
+    private MethodVisitor method;
+
+    /**
+     * Variables resolved by the analyzer to their global or local storage.
+     * Variables are compared by identity, as the analyzer defines a new one
+     * for each declaration.
+     */
+    private final Map<Environment.Variable, Ast.Global> globals = new IdentityHashMap<>();
+    private final Map<Environment.Variable, Integer> locals = new IdentityHashMap<>();
+    private final Map<String, Integer> parameters = new HashMap<>();
+    private final Set<Environment.Variable> lists = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int nextLocal;
+    private Environment.Type returnType;
+
+    /**
+     * Generates the class file for the analyzed source.
+     */
+    public byte[] generate(Ast.Source ast) {
+        writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String first, String second) {
+                // The generated class can't be loaded while it is written
+                if (first.equals(CLASS_NAME) || second.equals(CLASS_NAME)) {
+                    return OBJECT.getInternalName();
+                }
+                return super.getCommonSuperClass(first, second);
+            }
+        };
+        globals.clear();
+        lists.clear();
+        visit(ast);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Defines the class in a new class loader and returns an instance, whose
+     * {@code getAsInt} runs {@code main} with freshly initialized globals.
+     */
+    public static IntSupplier load(byte[] bytes) {
+        try {
+            Class<?> type = new Loader(BytecodeGenerator.class.getClassLoader()).define(bytes);
+            return (IntSupplier) type.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Unable to load the generated class.", e);
+        }
+    }
+
+    @Override
+    public Void visit(Ast.Source ast) {
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, CLASS_NAME, null,
+                OBJECT.getInternalName(), new String[] {Type.getInternalName(IntSupplier.class)});
+
+        for (Ast.Global global : ast.getGlobals()) {
+            visit(global);
+        }
+
+        // The constructor initializes the globals in order
+        method = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        method.visitCode();
+        method.visitVarInsn(Opcodes.ALOAD, 0);
+        method.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT.getInternalName(), "<init>", "()V", false);
+        begin(Environment.Type.NIL);
+        for (Ast.Global global : ast.getGlobals()) {
+            if (global.getValue().isPresent()) {
+                method.visitVarInsn(Opcodes.ALOAD, 0);
+                expression(global.getValue().get(), global.getVariable().getType());
+                method.visitFieldInsn(Opcodes.PUTFIELD, CLASS_NAME, global.getVariable().getJvmName(), storage(global.getVariable()).getDescriptor());
+            }
+        }
+        method.visitInsn(Opcodes.RETURN);
+        end();
+
+        method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "main", "([Ljava/lang/String;)V", null, null);
+        method.visitCode();
+        newMain();
+        method.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(System.class), "exit", "(I)V", false);
+        method.visitInsn(Opcodes.RETURN);
+        end();
+
+        method = writer.visitMethod(Opcodes.ACC_PUBLIC, "getAsInt", "()I", null, null);
+        method.visitCode();
+        newMain();
+        method.visitInsn(Opcodes.IRETURN);
+        end();
+
+        for (Ast.Function function : ast.getFunctions()) {
+            visit(function);
+        }
+        writer.visitEnd();
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Global ast) {
+        Environment.Variable variable = ast.getVariable();
+        globals.put(variable, ast);
+        if (ast.getValue().isPresent() && ast.getValue().get() instanceof Ast.Expression.PlcList) {
+            lists.add(variable);
+        }
+        int access = ast.getMutable() ? 0 : Opcodes.ACC_FINAL;
+        writer.visitField(access, variable.getJvmName(), storage(variable).getDescriptor(), null, null).visitEnd();
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Function ast) {
+        Environment.Function function = ast.getFunction();
+        Type[] parameterTypes = new Type[function.getArity()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterTypes[i] = type(function.getParameterTypes().get(i));
+        }
+        Type returns = function.getReturnType() == Environment.Type.NIL ? Type.VOID_TYPE : type(function.getReturnType());
+        method = writer.visitMethod(0, function.getJvmName(), Type.getMethodDescriptor(returns, parameterTypes), null, null);
+        method.visitCode();
+        begin(function.getReturnType());
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameters.put(ast.getParameters().get(i), nextLocal);
+            nextLocal += parameterTypes[i].getSize();
+        }
+        statements(ast.getStatements());
+
+        // Falling off the end returns the default value of the return type
+        if (returns.getSort() != Type.VOID) {
+            push(returns);
+        }
+        method.visitInsn(returns.getOpcode(Opcodes.IRETURN));
+        end();
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Expression ast) {
+        Type type = type(type(ast.getExpression()));
+        visit(ast.getExpression());
+        method.visitInsn(type.getSize() == 2 ? Opcodes.POP2 : Opcodes.POP);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Declaration ast) {
+        Environment.Variable variable = ast.getVariable();
+        if (ast.getValue().isPresent() && ast.getValue().get() instanceof Ast.Expression.PlcList) {
+            lists.add(variable);
+        }
+        Type type = storage(variable);
+        int local = nextLocal;
+        nextLocal += type.getSize();
+        locals.put(variable, local);
+
+        // Locals are always initialized so that every later load verifies
+        if (ast.getValue().isPresent()) {
+            expression(ast.getValue().get(), variable.getType());
+        } else {
+            push(type);
+        }
+        method.visitVarInsn(type.getOpcode(Opcodes.ISTORE), local);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Assignment ast) {
+        if (!(ast.getReceiver() instanceof Ast.Expression.Access)) {
+            throw new RuntimeException("Unsupported assignment target: " + ast.getReceiver());
+        }
+        Ast.Expression.Access receiver = (Ast.Expression.Access) ast.getReceiver();
+        Environment.Variable variable = receiver.getVariable();
+        Type type = storage(variable);
+        if (receiver.getOffset().isPresent()) {
+            load(receiver);
+            visit(receiver.getOffset().get());
+            expression(ast.getValue(), variable.getType());
+            method.visitInsn(type.getElementType().getOpcode(Opcodes.IASTORE));
+        } else if (globals.containsKey(variable)) {
+            method.visitVarInsn(Opcodes.ALOAD, 0);
+            expression(ast.getValue(), variable.getType());
+            method.visitFieldInsn(Opcodes.PUTFIELD, CLASS_NAME, variable.getJvmName(), type.getDescriptor());
+        } else {
+            expression(ast.getValue(), variable.getType());
+            method.visitVarInsn(type.getOpcode(Opcodes.ISTORE), local(receiver));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.If ast) {
+        Label otherwise = new Label();
+        Label end = new Label();
+        visit(ast.getCondition());
+        method.visitJumpInsn(Opcodes.IFEQ, otherwise);
+        statements(ast.getThenStatements());
+        method.visitJumpInsn(Opcodes.GOTO, end);
+        method.visitLabel(otherwise);
+        statements(ast.getElseStatements());
+        method.visitLabel(end);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Switch ast) {
+        Environment.Type conditionType = type(ast.getCondition());
+        Type type = type(conditionType);
+        int condition = nextLocal;
+        nextLocal += type.getSize();
+        visit(ast.getCondition());
+        method.visitVarInsn(type.getOpcode(Opcodes.ISTORE), condition);
+
+        // Cases are tested in order, and the default runs only if none match
+        // wherever it appears, as with a Java switch.
+        Label end = new Label();
+        for (Ast.Statement.Case switchCase : ast.getCases()) {
+            if (switchCase.getValue().isPresent()) {
+                Label next = new Label();
+                method.visitVarInsn(type.getOpcode(Opcodes.ILOAD), condition);
+                expression(switchCase.getValue().get(), conditionType);
+                jumpUnless("==", type, next);
+                statements(switchCase.getStatements());
+                method.visitJumpInsn(Opcodes.GOTO, end);
+                method.visitLabel(next);
+            }
+        }
+        for (Ast.Statement.Case switchCase : ast.getCases()) {
+            if (!switchCase.getValue().isPresent()) {
+                statements(switchCase.getStatements());
+            }
+        }
+        method.visitLabel(end);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Case ast) {
+        throw new AssertionError("Cases are generated by visit(Ast.Statement.Switch).");
+    }
+
+    @Override
+    public Void visit(Ast.Statement.While ast) {
+        Label condition = new Label();
+        Label end = new Label();
+        method.visitLabel(condition);
+        visit(ast.getCondition());
+        method.visitJumpInsn(Opcodes.IFEQ, end);
+        statements(ast.getStatements());
+        method.visitJumpInsn(Opcodes.GOTO, condition);
+        method.visitLabel(end);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Return ast) {
+        if (returnType == Environment.Type.NIL) {
+            visit(ast.getValue());
+            method.visitInsn(type(type(ast.getValue())).getSize() == 2 ? Opcodes.POP2 : Opcodes.POP);
+            method.visitInsn(Opcodes.RETURN);
+        } else {
+            expression(ast.getValue(), returnType);
+            method.visitInsn(type(returnType).getOpcode(Opcodes.IRETURN));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Literal ast) {
+        Object literal = ast.getLiteral();
+        if (literal == null) {
+            method.visitInsn(Opcodes.ACONST_NULL);
+        } else if (literal instanceof Boolean) {
+            method.visitInsn((Boolean) literal ? Opcodes.ICONST_1 : Opcodes.ICONST_0);
+        } else if (literal instanceof BigInteger) {
+            push(((BigInteger) literal).intValueExact());
+        } else if (literal instanceof BigDecimal) {
+            method.visitLdcInsn(((BigDecimal) literal).doubleValue());
+        } else if (literal instanceof Character) {
+            push((Character) literal);
+        } else {
+            method.visitLdcInsn(literal);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Group ast) {
+        return visit(ast.getExpression());
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Binary ast) {
+        String operator = ast.getOperator();
+        Environment.Type type = type(ast);
+        if (operator.equals("&&") || operator.equals("||")) {
+            Label shortCircuit = new Label();
+            Label end = new Label();
+            int jump = operator.equals("&&") ? Opcodes.IFEQ : Opcodes.IFNE;
+            visit(ast.getLeft());
+            method.visitJumpInsn(jump, shortCircuit);
+            visit(ast.getRight());
+            method.visitJumpInsn(jump, shortCircuit);
+            method.visitInsn(operator.equals("&&") ? Opcodes.ICONST_1 : Opcodes.ICONST_0);
+            method.visitJumpInsn(Opcodes.GOTO, end);
+            method.visitLabel(shortCircuit);
+            method.visitInsn(operator.equals("&&") ? Opcodes.ICONST_0 : Opcodes.ICONST_1);
+            method.visitLabel(end);
+        } else if (type == Environment.Type.BOOLEAN) {
+            Label otherwise = new Label();
+            Label end = new Label();
+            Type operands = type(type(ast.getLeft()));
+            visit(ast.getLeft());
+            visit(ast.getRight());
+            jumpUnless(operator, operands, otherwise);
+            method.visitInsn(Opcodes.ICONST_1);
+            method.visitJumpInsn(Opcodes.GOTO, end);
+            method.visitLabel(otherwise);
+            method.visitInsn(Opcodes.ICONST_0);
+            method.visitLabel(end);
+        } else if (type == Environment.Type.STRING) {
+            String builder = Type.getInternalName(StringBuilder.class);
+            method.visitTypeInsn(Opcodes.NEW, builder);
+            method.visitInsn(Opcodes.DUP);
+            method.visitMethodInsn(Opcodes.INVOKESPECIAL, builder, "<init>", "()V", false);
+            for (Ast.Expression operand : List.of(ast.getLeft(), ast.getRight())) {
+                Type operandType = type(type(operand));
+                visit(operand);
+                method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, builder, "append", "(" + appendable(operandType).getDescriptor() + ")L" + builder + ";", false);
+            }
+            method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, builder, "toString", "()Ljava/lang/String;", false);
+        } else if (operator.equals("^")) {
+            visit(ast.getLeft());
+            convert(type(ast.getLeft()), Environment.Type.DECIMAL);
+            visit(ast.getRight());
+            convert(type(ast.getRight()), Environment.Type.DECIMAL);
+            method.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(Math.class), "pow", "(DD)D", false);
+            convert(Environment.Type.DECIMAL, type);
+        } else {
+            visit(ast.getLeft());
+            visit(ast.getRight());
+            method.visitInsn(type(type).getOpcode(arithmetic(operator)));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Access ast) {
+        Environment.Variable variable = ast.getVariable();
+        load(ast);
+        if (ast.getOffset().isPresent()) {
+            visit(ast.getOffset().get());
+            method.visitInsn(type(variable.getType()).getOpcode(Opcodes.IALOAD));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Function ast) {
+        Environment.Function function = ast.getFunction();
+        List<Environment.Type> parameterTypes = function.getParameterTypes();
+        if (function.getJvmName().equals("System.out.println")) {
+            Type argument = type(type(ast.getArguments().get(0)));
+            Type printable = argument.getSort() == Type.OBJECT && !argument.equals(STRING) ? OBJECT : argument;
+            method.visitFieldInsn(Opcodes.GETSTATIC, Type.getInternalName(System.class), "out", "Ljava/io/PrintStream;");
+            visit(ast.getArguments().get(0));
+            method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/io/PrintStream", "println", "(" + printable.getDescriptor() + ")V", false);
+        } else {
+            Type[] types = new Type[parameterTypes.size()];
+            method.visitVarInsn(Opcodes.ALOAD, 0);
+            for (int i = 0; i < types.length; i++) {
+                types[i] = type(parameterTypes.get(i));
+                expression(ast.getArguments().get(i), parameterTypes.get(i));
+            }
+            Type returns = function.getReturnType() == Environment.Type.NIL ? Type.VOID_TYPE : type(function.getReturnType());
+            method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CLASS_NAME, function.getJvmName(), Type.getMethodDescriptor(returns, types), false);
+        }
+
+        // Every expression leaves a value, so a call to a Nil function is null
+        if (function.getReturnType() == Environment.Type.NIL) {
+            method.visitInsn(Opcodes.ACONST_NULL);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.PlcList ast) {
+        Type element = type(ast.getType());
+        push(ast.getValues().size());
+        switch (element.getSort()) {
+            case Type.BOOLEAN: method.visitIntInsn(Opcodes.NEWARRAY, Opcodes.T_BOOLEAN); break;
+            case Type.CHAR: method.visitIntInsn(Opcodes.NEWARRAY, Opcodes.T_CHAR); break;
+            case Type.INT: method.visitIntInsn(Opcodes.NEWARRAY, Opcodes.T_INT); break;
+            case Type.DOUBLE: method.visitIntInsn(Opcodes.NEWARRAY, Opcodes.T_DOUBLE); break;
+            default: method.visitTypeInsn(Opcodes.ANEWARRAY, element.getInternalName());
+        }
+        for (int i = 0; i < ast.getValues().size(); i++) {
+            method.visitInsn(Opcodes.DUP);
+            push(i);
+            expression(ast.getValues().get(i), ast.getType());
+            method.visitInsn(element.getOpcode(Opcodes.IASTORE));
+        }
+        return null;
+    }
+
+    /**
+     * Starts a method body with the given return type.
+     */
+    private void begin(Environment.Type returnType) {
+        this.returnType = returnType;
+        locals.clear();
+        parameters.clear();
+        nextLocal = 1;
+    }
+
+    private void end() {
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    private void newMain() {
+        method.visitTypeInsn(Opcodes.NEW, CLASS_NAME);
+        method.visitInsn(Opcodes.DUP);
+        method.visitMethodInsn(Opcodes.INVOKESPECIAL, CLASS_NAME, "<init>", "()V", false);
+        method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CLASS_NAME, "main", "()I", false);
+    }
+
+    private void statements(List<Ast.Statement> statements) {
+        for (Ast.Statement statement : statements) {
+            visit(statement);
+        }
+    }
+
+    /**
+     * Generates an expression whose value is assigned to the target type,
+     * boxing primitives assigned to Any or Comparable.
+     */
+    private void expression(Ast.Expression ast, Environment.Type target) {
+        visit(ast);
+        Type type = type(type(ast));
+        if (type(target).getSort() == Type.OBJECT && type.getSort() != Type.OBJECT && type.getSort() != Type.ARRAY) {
+            Type boxed = boxed(type);
+            method.visitMethodInsn(Opcodes.INVOKESTATIC, boxed.getInternalName(), "valueOf", "(" + type.getDescriptor() + ")" + boxed.getDescriptor(), false);
+        }
+    }
+
+    /**
+     * Pushes the variable, or for a list the array, onto the stack.
+     */
+    private void load(Ast.Expression.Access ast) {
+        Environment.Variable variable = ast.getVariable();
+        Type type = storage(variable);
+        if (globals.containsKey(variable)) {
+            method.visitVarInsn(Opcodes.ALOAD, 0);
+            method.visitFieldInsn(Opcodes.GETFIELD, CLASS_NAME, variable.getJvmName(), type.getDescriptor());
+        } else {
+            method.visitVarInsn(type.getOpcode(Opcodes.ILOAD), local(ast));
+        }
+    }
+
+    private int local(Ast.Expression.Access ast) {
+        Integer local = locals.get(ast.getVariable());
+        if (local == null) {
+            local = parameters.get(ast.getName());
+        }
+        if (local == null) {
+            throw new RuntimeException("The variable " + ast.getName() + " is not defined in this function.");
+        }
+        return local;
+    }
+
+    /**
+     * Jumps to the label unless the comparison of the two values on the stack
+     * holds, comparing references with equals and compareTo.
+     */
+    private void jumpUnless(String operator, Type operands, Label label) {
+        switch (operands.getSort()) {
+            case Type.BOOLEAN:
+            case Type.CHAR:
+            case Type.INT:
+                switch (operator) {
+                    case "==": method.visitJumpInsn(Opcodes.IF_ICMPNE, label); return;
+                    case "!=": method.visitJumpInsn(Opcodes.IF_ICMPEQ, label); return;
+                    case "<": method.visitJumpInsn(Opcodes.IF_ICMPGE, label); return;
+                    case "<=": method.visitJumpInsn(Opcodes.IF_ICMPGT, label); return;
+                    case ">": method.visitJumpInsn(Opcodes.IF_ICMPLE, label); return;
+                    case ">=": method.visitJumpInsn(Opcodes.IF_ICMPLT, label); return;
+                }
+                break;
+            case Type.DOUBLE:
+                // NaN compares as greater for < and <=, and as less otherwise,
+                // so that every comparison with NaN is false
+                method.visitInsn(operator.startsWith("<") ? Opcodes.DCMPG : Opcodes.DCMPL);
+                jumpUnless(operator, label);
+                return;
+            default:
+                if (operator.equals("==") || operator.equals("!=")) {
+                    method.visitMethodInsn(Opcodes.INVOKESTATIC, "java/util/Objects", "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z", false);
+                    method.visitJumpInsn(operator.equals("==") ? Opcodes.IFEQ : Opcodes.IFNE, label);
+                } else {
+                    method.visitMethodInsn(Opcodes.INVOKEINTERFACE, COMPARABLE.getInternalName(), "compareTo", "(Ljava/lang/Object;)I", true);
+                    jumpUnless(operator, label);
+                }
+                return;
+        }
+        throw new RuntimeException("Unsupported comparison operator " + operator + ".");
+    }
+
+    /**
+     * Jumps to the label unless the comparison of the int on the stack with
+     * zero holds.
+     */
+    private void jumpUnless(String operator, Label label) {
+        switch (operator) {
+            case "==": method.visitJumpInsn(Opcodes.IFNE, label); break;
+            case "!=": method.visitJumpInsn(Opcodes.IFEQ, label); break;
+            case "<": method.visitJumpInsn(Opcodes.IFGE, label); break;
+            case "<=": method.visitJumpInsn(Opcodes.IFGT, label); break;
+            case ">": method.visitJumpInsn(Opcodes.IFLE, label); break;
+            case ">=": method.visitJumpInsn(Opcodes.IFLT, label); break;
+            default: throw new RuntimeException("Unsupported comparison operator " + operator + ".");
+        }
+    }
+
+    private static int arithmetic(String operator) {
+        switch (operator) {
+            case "+": return Opcodes.IADD;
+            case "-": return Opcodes.ISUB;
+            case "*": return Opcodes.IMUL;
+            case "/": return Opcodes.IDIV;
+            default: throw new RuntimeException("Unsupported arithmetic operator " + operator + ".");
+        }
+    }
+
+    private void convert(Environment.Type from, Environment.Type to) {
+        if (from == Environment.Type.INTEGER && to == Environment.Type.DECIMAL) {
+            method.visitInsn(Opcodes.I2D);
+        } else if (from == Environment.Type.DECIMAL && to == Environment.Type.INTEGER) {
+            method.visitInsn(Opcodes.D2I);
+        }
+    }
+
+    /**
+     * Pushes the default value of the type.
+     */
+    private void push(Type type) {
+        switch (type.getSort()) {
+            case Type.DOUBLE: method.visitInsn(Opcodes.DCONST_0); break;
+            case Type.OBJECT:
+            case Type.ARRAY: method.visitInsn(Opcodes.ACONST_NULL); break;
+            default: method.visitInsn(Opcodes.ICONST_0);
+        }
+    }
+
+    private void push(int value) {
+        if (value >= -1 && value <= 5) {
+            method.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            method.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            method.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            method.visitLdcInsn(value);
+        }
+    }
+
+    /**
+     * Returns the type of the expression set by the analyzer, which does not
+     * type groups.
+     */
+    private static Environment.Type type(Ast.Expression ast) {
+        while (ast instanceof Ast.Expression.Group) {
+            ast = ((Ast.Expression.Group) ast).getExpression();
+        }
+        return ast.getType();
+    }
+
+    /**
+     * Returns the JVM type of a value of the given type, where Nil is only
+     * ever null.
+     */
+    private static Type type(Environment.Type type) {
+        switch (type.getName()) {
+            case "Boolean": return Type.BOOLEAN_TYPE;
+            case "Integer": return Type.INT_TYPE;
+            case "Decimal": return Type.DOUBLE_TYPE;
+            case "Character": return Type.CHAR_TYPE;
+            case "String": return STRING;
+            case "Comparable": return COMPARABLE;
+            default: return OBJECT;
+        }
+    }
+
+    /**
+     * Returns the JVM type the variable is stored as, which is an array for
+     * lists.
+     */
+    private Type storage(Environment.Variable variable) {
+        Type type = type(variable.getType());
+        return lists.contains(variable) ? Type.getType("[" + type.getDescriptor()) : type;
+    }
+
+    private static Type boxed(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN: return Type.getType(Boolean.class);
+            case Type.CHAR: return Type.getType(Character.class);
+            case Type.INT: return Type.getType(Integer.class);
+            default: return Type.getType(Double.class);
+        }
+    }
+
+    /**
+     * Returns the parameter type of the StringBuilder.append overload for a
+     * value of the given type.
+     */
+    private static Type appendable(Type type) {
+        return type.getSort() == Type.OBJECT && !type.equals(STRING) || type.getSort() == Type.ARRAY ? OBJECT : type;
+    }
+
+    /**
+     * Defines each generated class in its own loader, so the same program can
+     * be loaded more than once.
+     */
+    private static final class Loader extends ClassLoader {
+
+        private Loader(ClassLoader parent) {
+            super(parent);
+        }
+
+        private Class<?> define(byte[] bytes) {
+            return defineClass(CLASS_NAME, bytes, 0, bytes.length);
+        }
+
+    }
+
+}
@@ -0,0 +1,152 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A growable buffer of generated code, written out in one block once the
+ * {@link Generator} is done rather than a fragment at a time. Indentation is
+ * four spaces per level, with the common levels cached.
+ */
+public final class CodeBuffer implements CharSequence {
+
+    private static final String NEWLINE = System.lineSeparator();
+    private static final String[] INDENTS = new String[16];
+
+    static {
+        for (int i = 0; i < INDENTS.length; i++) {
+            INDENTS[i] = "    ".repeat(i);
+        }
+    }
+
+    private char[] chars;
+    private int length = 0;
+
+    public CodeBuffer() {
+        this(8192);
+    }
+
+    public CodeBuffer(int capacity) {
+        chars = new char[Math.max(capacity, 16)];
+    }
+
+    public CodeBuffer append(String string) {
+        int size = string.length();
+        ensureCapacity(length + size);
+        string.getChars(0, size, chars, length);
+        length += size;
+        return this;
+    }
+
+    public CodeBuffer append(CodeBuffer other) {
+        ensureCapacity(length + other.length);
+        System.arraycopy(other.chars, 0, chars, length, other.length);
+        length += other.length;
+        return this;
+    }
+
+    public CodeBuffer append(char character) {
+        ensureCapacity(length + 1);
+        chars[length++] = character;
+        return this;
+    }
+
+    public CodeBuffer append(int value) {
+        return append(Integer.toString(value));
+    }
+
+    public CodeBuffer append(double value) {
+        return append(Double.toString(value));
+    }
+
+    public CodeBuffer append(boolean value) {
+        return append(value ? "true" : "false");
+    }
+
+    /**
+     * Appends a line separator followed by the indentation for the level.
+     */
+    public CodeBuffer newline(int indent) {
+        append(NEWLINE);
+        return append(indent < INDENTS.length ? INDENTS[indent] : "    ".repeat(indent));
+    }
+
+    /**
+     * Empties the buffer, keeping its capacity.
+     */
+    public void clear() {
+        length = 0;
+    }
+
+    public void writeTo(Writer writer) throws IOException {
+        writer.write(chars, 0, length);
+    }
+
+    /**
+     * Writes the buffer to the file as UTF-8, replacing its contents.
+     */
+    public void writeTo(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writeTo(writer);
+        }
+    }
+
+    /**
+     * Encodes the buffer as UTF-8 into the byte buffer, throwing a
+     * {@link BufferOverflowException} if it does not fit.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        CharBuffer input = CharBuffer.wrap(chars, 0, length);
+        CoderResult result = encoder.encode(input, buffer, true);
+        if (result.isUnderflow()) {
+            result = encoder.flush(buffer);
+        }
+        if (result.isOverflow()) {
+            throw new BufferOverflowException();
+        } else if (result.isError()) {
+            throw new IllegalStateException("Unable to encode the generated code: " + result);
+        }
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+        }
+    }
+
+}
@@ -0,0 +1,246 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Compiles the AST once into a tree of executable {@link Node}s, as an
+ * alternative to walking it with the {@link Interpreter}. Sources and
+ * functions are resolved with the {@link Resolver} first so that variables
+ * are compiled to frame slots; anything unresolved falls back to scopes, as
+ * in the interpreter.
+ */
+public final class Compiler implements Ast.Visitor<Node> {
+
+    private final Scope scope;
+
+    /**
+     * Whether the code being compiled runs in a resolved frame, in which case
+     * the slots assigned by the resolver are used.
+     */
+    private boolean resolved = false;
+
+    public Compiler(Scope parent) {
+        scope = new Scope(parent);
+        scope.defineFunction("print", 1, args -> {
+            System.out.println(args.get(0).getValue());
+            return Environment.NIL;
+        });
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Compiles the AST, resolving it first if it is a source or a function
+     * that has not been resolved. The compiled node does not depend on this
+     * compiler and can be executed any number of times.
+     */
+    public Node compile(Ast ast) {
+        if (ast instanceof Ast.Source && ((Ast.Source) ast).getFrameSize() < 0) {
+            new Resolver().visit((Ast.Source) ast);
+        } else if (ast instanceof Ast.Function && ((Ast.Function) ast).getFrameSize() < 0) {
+            new Resolver().visit((Ast.Function) ast);
+        }
+        resolved = false;
+        return visit(ast);
+    }
+
+    /**
+     * Executes a compiled node in the scope of this compiler.
+     */
+    public Environment.PlcObject execute(Node node) {
+        return node.execute(new Node.Frame(null, 0, scope));
+    }
+
+    public Environment.PlcObject execute(Ast ast) {
+        return execute(compile(ast));
+    }
+
+    @Override
+    public Node visit(Ast.Source ast) {
+        resolved = ast.getFrameSize() >= 0;
+        Node[] globals = new Node[ast.getGlobals().size()];
+        for (int i = 0; i < globals.length; i++) {
+            globals[i] = visit(ast.getGlobals().get(i));
+        }
+        Node[] functions = new Node[ast.getFunctions().size()];
+        for (int i = 0; i < functions.length; i++) {
+            functions[i] = visit(ast.getFunctions().get(i));
+        }
+        resolved = false;
+        return new Node.Source(globals, functions, ast.getFrameSize());
+    }
+
+    @Override
+    public Node visit(Ast.Global ast) {
+        Node value = ast.getValue().map(this::visit).orElse(null);
+        return new Node.Global(ast.getName(), ast.getMutable(), value, resolved ? ast.getSlot() : -1);
+    }
+
+    @Override
+    public Node visit(Ast.Function ast) {
+        boolean enclosing = resolved;
+        resolved = ast.getFrameSize() >= 0;
+        try {
+            Node.Block body = block(ast.getStatements());
+            return new Node.Function(ast.getName(), ast.getParameters().toArray(new String[0]), ast.getFrameSize(), body);
+        } finally {
+            resolved = enclosing;
+        }
+    }
+
+    @Override
+    public Node visit(Ast.Statement.Expression ast) {
+        return new Node.ExpressionStatement(visit(ast.getExpression()));
+    }
+
+    @Override
+    public Node visit(Ast.Statement.Declaration ast) {
+        Node value = ast.getValue().map(this::visit).orElse(null);
+        if (resolved && ast.getSlot() >= 0) {
+            return new Node.LocalDeclaration(ast.getName(), ast.getSlot(), value);
+        }
+        return new Node.ScopeDeclaration(ast.getName(), value);
+    }
+
+    @Override
+    public Node visit(Ast.Statement.Assignment ast) {
+        Node value = visit(ast.getValue());
+        if (!(ast.getReceiver() instanceof Ast.Expression.Access)) {
+            return new Node.Unsupported(value, "Unsupported assignment target: " + ast.getReceiver());
+        }
+        Ast.Expression.Access access = (Ast.Expression.Access) ast.getReceiver();
+        Node offset = access.getOffset().map(this::visit).orElse(null);
+        return new Node.Assignment(variable(access), offset, value);
+    }
+
+    @Override
+    public Node visit(Ast.Statement.If ast) {
+        return new Node.If(visit(ast.getCondition()), block(ast.getThenStatements()), block(ast.getElseStatements()));
+    }
+
+    @Override
+    public Node visit(Ast.Statement.Switch ast) {
+        Node[] values = new Node[ast.getCases().size()];
+        Node.Block[] blocks = new Node.Block[values.length];
+        for (int i = 0; i < values.length; i++) {
+            Ast.Statement.Case switchCase = ast.getCases().get(i);
+            values[i] = switchCase.getValue().map(this::visit).orElse(null);
+            blocks[i] = block(switchCase.getStatements());
+        }
+        return new Node.Switch(visit(ast.getCondition()), values, blocks);
+    }
+
+    @Override
+    public Node visit(Ast.Statement.Case ast) {
+        throw new AssertionError("Cases are compiled by visit(Ast.Statement.Switch).");
+    }
+
+    @Override
+    public Node visit(Ast.Statement.While ast) {
+        Node condition = visit(ast.getCondition());
+        Node.Block body = block(ast.getStatements());
+        if (resolved && ast.getFirstSlot() >= 0) {
+            return new Node.While(condition, body, ast.getFirstSlot(), ast.getLastSlot());
+        }
+        return new Node.ScopeWhile(condition, body);
+    }
+
+    @Override
+    public Node visit(Ast.Statement.Return ast) {
+        return new Node.Return(visit(ast.getValue()));
+    }
+
+    @Override
+    public Node visit(Ast.Expression.Literal ast) {
+        Object literal = ast.getLiteral();
+        if (literal == null) {
+            return new Node.Literal(Environment.NIL);
+        } else if (literal instanceof BigInteger && ((BigInteger) literal).bitLength() < Long.SIZE) {
+            return new Node.Literal(Environment.createInteger(((BigInteger) literal).longValue()));
+        }
+        return new Node.Literal(Environment.create(literal));
+    }
+
+    @Override
+    public Node visit(Ast.Expression.Group ast) {
+        return visit(ast.getExpression());
+    }
+
+    @Override
+    public Node visit(Ast.Expression.Binary ast) {
+        switch (ast.getOperator()) {
+            case "+":
+                return new Node.Add(visit(ast.getLeft()), visit(ast.getRight()));
+            case "-":
+                return new Node.Subtract(visit(ast.getLeft()), visit(ast.getRight()));
+            case "*":
+                return new Node.Multiply(visit(ast.getLeft()), visit(ast.getRight()));
+            case "/":
+                return new Node.Divide(visit(ast.getLeft()), visit(ast.getRight()));
+            case "^":
+                return new Node.Power(visit(ast.getLeft()), visit(ast.getRight()));
+            case "<":
+                return new Node.LessThan(visit(ast.getLeft()), visit(ast.getRight()));
+            case ">":
+                return new Node.GreaterThan(visit(ast.getLeft()), visit(ast.getRight()));
+            case "==":
+                return new Node.Equal(visit(ast.getLeft()), visit(ast.getRight()));
+            case "!=":
+                return new Node.NotEqual(visit(ast.getLeft()), visit(ast.getRight()));
+            case "&&":
+                return new Node.Logical(visit(ast.getLeft()), visit(ast.getRight()), true);
+            case "||":
+                return new Node.Logical(visit(ast.getLeft()), visit(ast.getRight()), false);
+            default:
+                return new Node.Unsupported(null, "Unsupported binary expression");
+        }
+    }
+
+    @Override
+    public Node visit(Ast.Expression.Access ast) {
+        Node.Variable variable = variable(ast);
+        if (ast.getOffset().isPresent()) {
+            return new Node.IndexRead(variable, visit(ast.getOffset().get()));
+        }
+        return variable;
+    }
+
+    @Override
+    public Node visit(Ast.Expression.Function ast) {
+        Node[] arguments = new Node[ast.getArguments().size()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = visit(ast.getArguments().get(i));
+        }
+        return new Node.Call(ast.getName(), arguments);
+    }
+
+    @Override
+    public Node visit(Ast.Expression.PlcList ast) {
+        Node[] values = new Node[ast.getValues().size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = visit(ast.getValues().get(i));
+        }
+        return new Node.PlcList(values);
+    }
+
+    private Node.Block block(List<Ast.Statement> statements) {
+        Node[] nodes = new Node[statements.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = visit(statements.get(i));
+        }
+        return new Node.Block(nodes);
+    }
+
+    private Node.Variable variable(Ast.Expression.Access ast) {
+        if (!resolved || ast.getSlot() < 0) {
+            return new Node.ScopeRead(ast.getName());
+        } else if (ast.getDepth() == 0) {
+            return new Node.LocalRead(ast.getName(), ast.getSlot());
+        }
+        return new Node.FrameRead(ast.getName(), ast.getDepth(), ast.getSlot());
+    }
+
+}
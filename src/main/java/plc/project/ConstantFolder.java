@@ -0,0 +1,346 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Folds the constant expressions of an analyzed AST into literals, so the
+ * {@link Interpreter} and {@link Generator} don't recompute them. Binary
+ * expressions over literals are evaluated with the interpreter's own
+ * {@link Operations}, and accesses of immutable globals whose values fold to
+ * a literal are replaced by that literal.
+ *
+ * The result is a new AST sharing every subtree which didn't change, and
+ * carrying over the types and bindings set by the {@link Analyzer} and the
+ * slots set by the {@link Resolver}; the given AST is left as it was. An
+ * expression is left unfolded if evaluating it fails, such as dividing by
+ * zero, so the error is still raised when the program runs, or if it is an
+ * Integer outside of the range the {@link Generator} emits. List offsets are
+ * left as they are, since the analyzer doesn't visit them.
+ *
+ * Decimal arithmetic and comparisons are only folded if the source will be
+ * interpreted, as the interpreter computes with {@link BigDecimal}
+ * while the Java emitted by the {@link Generator} computes with doubles, so
+ * {@code 1.0 / 3.0} folds to {@code 0.3} but runs as {@code 0.333...}.
+ * Exponents are likewise only folded if the source will be interpreted, as
+ * the generator emits {@code Math.pow} which prints {@code 2 ^ 10} as
+ * {@code 1024.0} rather than {@code 1024}.
+ */
+public final class ConstantFolder implements Ast.Visitor<Ast> {
+
+    /**
+     * The literal values of the immutable globals, by their variable.
+     */
+    private final Map<Environment.Variable, Ast.Expression.Literal> constants = new IdentityHashMap<>();
+
+    /**
+     * The parameters of the current function, which the analyzer doesn't
+     * define and so binds to any global of the same name.
+     */
+    private List<String> parameters = List.of();
+
+    /**
+     * Whether the source will be interpreted, so binary expressions over
+     * decimals and exponents are folded.
+     */
+    private final boolean interpreted;
+
+    /**
+     * Creates a folder for any backend, which leaves decimal arithmetic and
+     * comparisons and exponents unfolded.
+     */
+    public ConstantFolder() {
+        this(false);
+    }
+
+    /**
+     * Creates a folder which folds decimal arithmetic and comparisons and
+     * exponents with the {@link Interpreter}'s semantics if
+     * {@code interpreted} is true, which is only correct for sources that
+     * will be interpreted.
+     */
+    public ConstantFolder(boolean interpreted) {
+        this.interpreted = interpreted;
+    }
+
+    @Override
+    public Ast.Source visit(Ast.Source ast) {
+        List<Ast.Global> globals = visit(ast.getGlobals());
+        List<Ast.Function> functions = visit(ast.getFunctions());
+        if (globals == ast.getGlobals() && functions == ast.getFunctions()) {
+            return ast;
+        }
+        Ast.Source source = new Ast.Source(globals, functions);
+        source.setFrameSize(ast.getFrameSize());
+        return source;
+    }
+
+    @Override
+    public Ast.Global visit(Ast.Global ast) {
+        Optional<Ast.Expression> value = visit(ast.getValue());
+        if (!ast.getMutable() && value.isPresent() && value.get() instanceof Ast.Expression.Literal
+                && value.get().getType() == ast.getVariable().getType()) {
+            constants.put(ast.getVariable(), (Ast.Expression.Literal) value.get());
+        }
+        if (value == ast.getValue()) {
+            return ast;
+        }
+        Ast.Global global = new Ast.Global(ast.getName(), ast.getTypeName(), ast.getMutable(), value);
+        global.setVariable(ast.getVariable());
+        global.setSlot(ast.getSlot());
+        return global;
+    }
+
+    @Override
+    public Ast.Function visit(Ast.Function ast) {
+        parameters = ast.getParameters();
+        List<Ast.Statement> statements = visit(ast.getStatements());
+        parameters = List.of();
+        if (statements == ast.getStatements()) {
+            return ast;
+        }
+        Ast.Function function = new Ast.Function(ast.getName(), ast.getParameters(), ast.getParameterTypeNames(), ast.getReturnTypeName(), statements);
+        function.setFunction(ast.getFunction());
+        function.setFrameSize(ast.getFrameSize());
+        return function;
+    }
+
+    @Override
+    public Ast.Statement.Expression visit(Ast.Statement.Expression ast) {
+        Ast.Expression expression = visit(ast.getExpression());
+        return expression == ast.getExpression() ? ast : new Ast.Statement.Expression(expression);
+    }
+
+    @Override
+    public Ast.Statement.Declaration visit(Ast.Statement.Declaration ast) {
+        Optional<Ast.Expression> value = visit(ast.getValue());
+        if (value == ast.getValue()) {
+            return ast;
+        }
+        Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(ast.getName(), ast.getTypeName(), value);
+        declaration.setVariable(ast.getVariable());
+        declaration.setSlot(ast.getSlot());
+        return declaration;
+    }
+
+    @Override
+    public Ast.Statement.Assignment visit(Ast.Statement.Assignment ast) {
+        Ast.Expression value = visit(ast.getValue());
+        return value == ast.getValue() ? ast : new Ast.Statement.Assignment(ast.getReceiver(), value);
+    }
+
+    @Override
+    public Ast.Statement.If visit(Ast.Statement.If ast) {
+        Ast.Expression condition = visit(ast.getCondition());
+        List<Ast.Statement> thenStatements = visit(ast.getThenStatements());
+        List<Ast.Statement> elseStatements = visit(ast.getElseStatements());
+        if (condition == ast.getCondition() && thenStatements == ast.getThenStatements() && elseStatements == ast.getElseStatements()) {
+            return ast;
+        }
+        return new Ast.Statement.If(condition, thenStatements, elseStatements);
+    }
+
+    @Override
+    public Ast.Statement.Switch visit(Ast.Statement.Switch ast) {
+        Ast.Expression condition = visit(ast.getCondition());
+        List<Ast.Statement.Case> cases = visit(ast.getCases());
+        if (condition == ast.getCondition() && cases == ast.getCases()) {
+            return ast;
+        }
+        return new Ast.Statement.Switch(condition, cases);
+    }
+
+    @Override
+    public Ast.Statement.Case visit(Ast.Statement.Case ast) {
+        Optional<Ast.Expression> value = visit(ast.getValue());
+        List<Ast.Statement> statements = visit(ast.getStatements());
+        if (value == ast.getValue() && statements == ast.getStatements()) {
+            return ast;
+        }
+        return new Ast.Statement.Case(value, statements);
+    }
+
+    @Override
+    public Ast.Statement.While visit(Ast.Statement.While ast) {
+        Ast.Expression condition = visit(ast.getCondition());
+        List<Ast.Statement> statements = visit(ast.getStatements());
+        if (condition == ast.getCondition() && statements == ast.getStatements()) {
+            return ast;
+        }
+        Ast.Statement.While statement = new Ast.Statement.While(condition, statements);
+        statement.setSlots(ast.getFirstSlot(), ast.getLastSlot());
+        return statement;
+    }
+
+    @Override
+    public Ast.Statement.Return visit(Ast.Statement.Return ast) {
+        Ast.Expression value = visit(ast.getValue());
+        return value == ast.getValue() ? ast : new Ast.Statement.Return(value);
+    }
+
+    @Override
+    public Ast.Expression visit(Ast.Expression.Literal ast) {
+        return ast;
+    }
+
+    @Override
+    public Ast.Expression visit(Ast.Expression.Group ast) {
+        return expression(ast);
+    }
+
+    @Override
+    public Ast.Expression visit(Ast.Expression.Binary ast) {
+        return expression(ast);
+    }
+
+    @Override
+    public Ast.Expression visit(Ast.Expression.Access ast) {
+        if (ast.getOffset().isEmpty() && !parameters.contains(ast.getName())) {
+            Ast.Expression.Literal constant = constants.get(ast.getVariable());
+            if (constant != null) {
+                Ast.Expression.Literal literal = new Ast.Expression.Literal(constant.getLiteral());
+                literal.setType(constant.getType());
+                return literal;
+            }
+        }
+        return ast;
+    }
+
+    @Override
+    public Ast.Expression.Function visit(Ast.Expression.Function ast) {
+        List<Ast.Expression> arguments = visit(ast.getArguments());
+        if (arguments == ast.getArguments()) {
+            return ast;
+        }
+        Ast.Expression.Function function = new Ast.Expression.Function(ast.getName(), arguments);
+        function.setFunction(ast.getFunction());
+        return function;
+    }
+
+    @Override
+    public Ast.Expression.PlcList visit(Ast.Expression.PlcList ast) {
+        List<Ast.Expression> values = visit(ast.getValues());
+        if (values == ast.getValues()) {
+            return ast;
+        }
+        Ast.Expression.PlcList list = new Ast.Expression.PlcList(values);
+        list.setType(ast.getType());
+        return list;
+    }
+
+    /**
+     * Folds nested binary expressions and groups without recursion, as in
+     * {@link Analyzer}, folding the operands of each before itself.
+     */
+    private Ast.Expression expression(Ast.Expression ast) {
+        List<Ast.Expression> pending = new ArrayList<>();
+        List<Ast.Expression> nested = new ArrayList<>();
+        Map<Ast.Expression, Ast.Expression> folded = new IdentityHashMap<>();
+        pending.add(ast);
+        while (!pending.isEmpty()) {
+            Ast.Expression expression = pending.remove(pending.size() - 1);
+            if (expression instanceof Ast.Expression.Binary) {
+                nested.add(expression);
+                pending.add(((Ast.Expression.Binary) expression).getRight());
+                pending.add(((Ast.Expression.Binary) expression).getLeft());
+            } else if (expression instanceof Ast.Expression.Group) {
+                nested.add(expression);
+                pending.add(((Ast.Expression.Group) expression).getExpression());
+            } else {
+                folded.put(expression, visit(expression));
+            }
+        }
+        for (int i = nested.size() - 1; i >= 0; i--) {
+            Ast.Expression expression = nested.get(i);
+            if (expression instanceof Ast.Expression.Binary) {
+                Ast.Expression.Binary binary = (Ast.Expression.Binary) expression;
+                folded.put(binary, binary(binary, folded.get(binary.getLeft()), folded.get(binary.getRight())));
+            } else {
+                Ast.Expression.Group group = (Ast.Expression.Group) expression;
+                Ast.Expression inner = folded.get(group.getExpression());
+                if (inner instanceof Ast.Expression.Literal) {
+                    folded.put(group, inner);
+                } else {
+                    folded.put(group, inner == group.getExpression() ? group : new Ast.Expression.Group(inner));
+                }
+            }
+        }
+        return folded.get(ast);
+    }
+
+    /**
+     * Folds a binary expression given its folded operands. A logical operator
+     * with a literal left operand reduces to the left operand when it
+     * short-circuits and to the right operand otherwise, so the right operand
+     * doesn't need to be a literal.
+     */
+    private Ast.Expression binary(Ast.Expression.Binary ast, Ast.Expression left, Ast.Expression right) {
+        String operator = ast.getOperator();
+        if (operator.equals("&&") || operator.equals("||")) {
+            if (left instanceof Ast.Expression.Literal && ((Ast.Expression.Literal) left).getLiteral() instanceof Boolean) {
+                boolean value = (Boolean) ((Ast.Expression.Literal) left).getLiteral();
+                return value == operator.equals("||") ? left : right;
+            }
+        } else if (left instanceof Ast.Expression.Literal && right instanceof Ast.Expression.Literal
+                && (interpreted || !(operator.equals("^")
+                        || ((Ast.Expression.Literal) left).getLiteral() instanceof BigDecimal
+                        || ((Ast.Expression.Literal) right).getLiteral() instanceof BigDecimal))) {
+            try {
+                Object value = Interpreter.apply(operator,
+                        Interpreter.value(((Ast.Expression.Literal) left).getLiteral()),
+                        Interpreter.value(((Ast.Expression.Literal) right).getLiteral())).getValue();
+                if (!(value instanceof BigInteger) || ((BigInteger) value).bitLength() < Integer.SIZE) {
+                    Ast.Expression.Literal literal = new Ast.Expression.Literal(value);
+                    literal.setType(ast.getType());
+                    return literal;
+                }
+            } catch (RuntimeException e) {
+                // Left for the error to be raised when the program runs
+            }
+        }
+        if (left == ast.getLeft() && right == ast.getRight()) {
+            return ast;
+        }
+        Ast.Expression.Binary binary = new Ast.Expression.Binary(operator, left, right);
+        binary.setType(ast.getType());
+        binary.setOpcode(ast.getOpcode());
+        return binary;
+    }
+
+    private Optional<Ast.Expression> visit(Optional<Ast.Expression> ast) {
+        if (ast.isEmpty()) {
+            return ast;
+        }
+        Ast.Expression expression = visit(ast.get());
+        return expression == ast.get() ? ast : Optional.of(expression);
+    }
+
+    /**
+     * Visits each of the ASTs, returning the same list if none of them
+     * changed.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Ast> List<T> visit(List<T> asts) {
+        List<T> result = null;
+        for (int i = 0; i < asts.size(); i++) {
+            T ast = (T) visit(asts.get(i));
+            if (result == null && ast != asts.get(i)) {
+                result = new ArrayList<>(asts.subList(0, i));
+            }
+            if (result != null) {
+                result.add(ast);
+            }
+        }
+        return result == null ? asts : result;
+    }
+
+    private Ast.Expression visit(Ast.Expression ast) {
+        return (Ast.Expression) visit((Ast) ast);
+    }
+
+}
@@ -0,0 +1,378 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Removes the statements of function bodies which can never run or have no
+ * effect, counting the AST nodes removed. This is meant to run after the
+ * {@link ConstantFolder}, which turns constant conditions into literals:
+ *
+ * <ul>
+ *     <li>Statements after one which always returns are removed.</li>
+ *     <li>An {@code IF} with a literal condition is replaced by the branch
+ *     taken, and a {@code WHILE} whose condition is {@code FALSE} is
+ *     removed.</li>
+ *     <li>A {@code SWITCH} with a literal condition and literal case values
+ *     is replaced by the case the interpreter would run, if any.</li>
+ *     <li>A {@code LET} of a variable which is never accessed is removed if
+ *     evaluating its value can't have an effect or fail.</li>
+ * </ul>
+ *
+ * The statements of a taken branch are moved into the enclosing block, as
+ * the {@link Interpreter} runs them in that scope anyway, unless they declare
+ * a variable, which would change the scoping of the generated Java. As with
+ * {@link ConstantFolder}, the result is a new AST sharing every subtree which
+ * didn't change; the given AST is left as it was.
+ */
+public final class DeadCodeEliminator {
+
+    private int removed = 0;
+
+    /**
+     * The names of the local variables whose declarations are being removed.
+     */
+    private Set<String> unused = Set.of();
+
+    /**
+     * Returns the number of AST nodes removed so far.
+     */
+    public int getRemoved() {
+        return removed;
+    }
+
+    public Ast.Source eliminate(Ast.Source ast) {
+        List<Ast.Function> functions = new ArrayList<>(ast.getFunctions().size());
+        boolean changed = false;
+        for (Ast.Function function : ast.getFunctions()) {
+            Ast.Function eliminated = eliminate(function);
+            changed |= eliminated != function;
+            functions.add(eliminated);
+        }
+        if (!changed) {
+            return ast;
+        }
+        Ast.Source source = new Ast.Source(ast.getGlobals(), functions);
+        source.setFrameSize(ast.getFrameSize());
+        return source;
+    }
+
+    /**
+     * Eliminates the dead code of the function's body. Removing a declaration
+     * may leave the variables its value accessed unused, so declarations are
+     * removed until there are none left to remove.
+     */
+    public Ast.Function eliminate(Ast.Function ast) {
+        List<Ast.Statement> statements = block(ast.getStatements());
+        for (unused = unused(statements, ast.getParameters()); !unused.isEmpty(); unused = unused(statements, ast.getParameters())) {
+            statements = block(statements);
+        }
+        unused = Set.of();
+        if (statements == ast.getStatements()) {
+            return ast;
+        }
+        Ast.Function function = new Ast.Function(ast.getName(), ast.getParameters(), ast.getParameterTypeNames(), ast.getReturnTypeName(), statements);
+        function.setFunction(ast.getFunction());
+        function.setFrameSize(ast.getFrameSize());
+        return function;
+    }
+
+    /**
+     * Eliminates the dead code of a block, returning the same list if nothing
+     * was removed.
+     */
+    private List<Ast.Statement> block(List<Ast.Statement> statements) {
+        List<Ast.Statement> result = new ArrayList<>(statements.size());
+        boolean changed = false;
+        for (int i = 0; i < statements.size(); i++) {
+            int start = result.size();
+            changed |= statement(statements.get(i), result);
+            if (terminates(result.subList(start, result.size()))) {
+                for (Ast.Statement unreachable : statements.subList(i + 1, statements.size())) {
+                    removed += size(unreachable);
+                    changed = true;
+                }
+                break;
+            }
+        }
+        return changed ? result : statements;
+    }
+
+    /**
+     * Adds what remains of the statement to the block, returning whether it
+     * changed.
+     */
+    private boolean statement(Ast.Statement ast, List<Ast.Statement> block) {
+        if (ast instanceof Ast.Statement.If) {
+            return ifStatement((Ast.Statement.If) ast, block);
+        } else if (ast instanceof Ast.Statement.Switch) {
+            return switchStatement((Ast.Statement.Switch) ast, block);
+        } else if (ast instanceof Ast.Statement.While) {
+            Ast.Statement.While statement = (Ast.Statement.While) ast;
+            if (Boolean.FALSE.equals(literal(statement.getCondition()))) {
+                removed += size(statement);
+                return true;
+            }
+            List<Ast.Statement> statements = block(statement.getStatements());
+            if (statements == statement.getStatements()) {
+                block.add(statement);
+                return false;
+            }
+            Ast.Statement.While eliminated = new Ast.Statement.While(statement.getCondition(), statements);
+            eliminated.setSlots(statement.getFirstSlot(), statement.getLastSlot());
+            block.add(eliminated);
+            return true;
+        } else if (ast instanceof Ast.Statement.Declaration && unused.contains(((Ast.Statement.Declaration) ast).getName())) {
+            removed += size(ast);
+            return true;
+        }
+        block.add(ast);
+        return false;
+    }
+
+    private boolean ifStatement(Ast.Statement.If ast, List<Ast.Statement> block) {
+        Object condition = literal(ast.getCondition());
+        if (condition instanceof Boolean) {
+            boolean value = (Boolean) condition;
+            List<Ast.Statement> taken = value ? ast.getThenStatements() : ast.getElseStatements();
+            removed += size(value ? ast.getElseStatements() : ast.getThenStatements());
+            if (!declares(taken)) {
+                removed += 1 + size(ast.getCondition());
+                block.addAll(block(taken));
+            } else if (value) {
+                block.add(new Ast.Statement.If(ast.getCondition(), block(taken), List.of()));
+            } else {
+                Ast.Expression.Literal always = new Ast.Expression.Literal(true);
+                always.setType(Environment.Type.BOOLEAN);
+                block.add(new Ast.Statement.If(always, block(taken), List.of()));
+            }
+            return true;
+        }
+        List<Ast.Statement> thenStatements = block(ast.getThenStatements());
+        List<Ast.Statement> elseStatements = block(ast.getElseStatements());
+        if (thenStatements == ast.getThenStatements() && elseStatements == ast.getElseStatements()) {
+            block.add(ast);
+            return false;
+        }
+        block.add(new Ast.Statement.If(ast.getCondition(), thenStatements, elseStatements));
+        return true;
+    }
+
+    /**
+     * Eliminates the cases of a switch which can't run. As in the {@link
+     * Interpreter}, the first case which is either the default or equal to
+     * the condition runs, so the case taken is known if the condition and
+     * the values before it are literals.
+     */
+    private boolean switchStatement(Ast.Statement.Switch ast, List<Ast.Statement> block) {
+        Object condition = literal(ast.getCondition());
+        if (condition != null) {
+            Optional<Ast.Statement.Case> taken = Optional.empty();
+            boolean known = true;
+            for (Ast.Statement.Case switchCase : ast.getCases()) {
+                if (switchCase.getValue().isEmpty()) {
+                    taken = Optional.of(switchCase);
+                    break;
+                }
+                Object value = literal(switchCase.getValue().get());
+                if (value == null) {
+                    known = false;
+                    break;
+                } else if (Interpreter.value(value).getValue().equals(Interpreter.value(condition).getValue())) {
+                    taken = Optional.of(switchCase);
+                    break;
+                }
+            }
+            if (known && taken.isEmpty()) {
+                removed += size(ast);
+                return true;
+            } else if (known) {
+                Ast.Statement.Case switchCase = taken.get();
+                removed += size(ast) - size(switchCase.getStatements());
+                if (!declares(switchCase.getStatements())) {
+                    block.addAll(block(switchCase.getStatements()));
+                } else {
+                    // The switch, its condition and the case are kept
+                    removed -= 2 + size(ast.getCondition()) + switchCase.getValue().map(DeadCodeEliminator::size).orElse(0);
+                    Ast.Statement.Case eliminated = new Ast.Statement.Case(switchCase.getValue(), block(switchCase.getStatements()));
+                    block.add(new Ast.Statement.Switch(ast.getCondition(), List.of(eliminated)));
+                }
+                return true;
+            }
+        }
+        List<Ast.Statement.Case> cases = new ArrayList<>(ast.getCases().size());
+        boolean changed = false;
+        for (Ast.Statement.Case switchCase : ast.getCases()) {
+            List<Ast.Statement> statements = block(switchCase.getStatements());
+            changed |= statements != switchCase.getStatements();
+            cases.add(statements == switchCase.getStatements() ? switchCase : new Ast.Statement.Case(switchCase.getValue(), statements));
+        }
+        block.add(changed ? new Ast.Statement.Switch(ast.getCondition(), cases) : ast);
+        return changed;
+    }
+
+    /**
+     * Returns the value of a non-nil literal, or null.
+     */
+    private static Object literal(Ast.Expression ast) {
+        return ast instanceof Ast.Expression.Literal ? ((Ast.Expression.Literal) ast).getLiteral() : null;
+    }
+
+    /**
+     * Returns whether running any of the statements always returns from the
+     * function. A switch with a default case always runs one of its cases.
+     */
+    private static boolean terminates(List<Ast.Statement> statements) {
+        for (Ast.Statement statement : statements) {
+            if (statement instanceof Ast.Statement.Return) {
+                return true;
+            } else if (statement instanceof Ast.Statement.If) {
+                Ast.Statement.If ifStatement = (Ast.Statement.If) statement;
+                if (terminates(ifStatement.getThenStatements()) && terminates(ifStatement.getElseStatements())) {
+                    return true;
+                }
+            } else if (statement instanceof Ast.Statement.Switch) {
+                boolean terminates = false;
+                for (Ast.Statement.Case switchCase : ((Ast.Statement.Switch) statement).getCases()) {
+                    if (!terminates(switchCase.getStatements())) {
+                        terminates = false;
+                        break;
+                    }
+                    terminates |= switchCase.getValue().isEmpty();
+                }
+                if (terminates) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean declares(List<Ast.Statement> statements) {
+        for (Ast.Statement statement : statements) {
+            if (statement instanceof Ast.Statement.Declaration) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the names of the variables declared once in the statements and
+     * never accessed, other than parameters, whose declarations have no
+     * effect. Variables are matched by name, since the interpreter looks up
+     * unresolved variables by name.
+     */
+    private static Set<String> unused(List<Ast.Statement> statements, List<String> parameters) {
+        Map<String, Ast.Statement.Declaration> declarations = new HashMap<>();
+        Set<String> excluded = new HashSet<>(parameters);
+        List<Ast> pending = new ArrayList<>(statements);
+        while (!pending.isEmpty()) {
+            Ast ast = pending.remove(pending.size() - 1);
+            if (ast instanceof Ast.Statement.Declaration) {
+                Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) ast;
+                if (declarations.put(declaration.getName(), declaration) != null
+                        || !declaration.getValue().map(DeadCodeEliminator::pure).orElse(true)) {
+                    excluded.add(declaration.getName());
+                }
+            } else if (ast instanceof Ast.Expression.Access) {
+                excluded.add(((Ast.Expression.Access) ast).getName());
+            }
+            pending.addAll(children(ast));
+        }
+        Set<String> unused = new HashSet<>(declarations.keySet());
+        unused.removeAll(excluded);
+        return unused.isEmpty() ? Collections.emptySet() : unused;
+    }
+
+    /**
+     * Returns whether evaluating the expression can't have an effect or fail.
+     * Calls may print, offsets may be out of bounds, and division and powers
+     * may fail, so only literals, variables and the other operators are.
+     */
+    private static boolean pure(Ast.Expression ast) {
+        List<Ast> pending = new ArrayList<>(List.of(ast));
+        while (!pending.isEmpty()) {
+            Ast expression = pending.remove(pending.size() - 1);
+            if (expression instanceof Ast.Expression.Function
+                    || expression instanceof Ast.Expression.Access && ((Ast.Expression.Access) expression).getOffset().isPresent()
+                    || expression instanceof Ast.Expression.Binary && (((Ast.Expression.Binary) expression).getOperator().equals("/")
+                            || ((Ast.Expression.Binary) expression).getOperator().equals("^"))) {
+                return false;
+            }
+            pending.addAll(children(expression));
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of AST nodes in the statements.
+     */
+    private static int size(List<? extends Ast> asts) {
+        int size = 0;
+        for (Ast ast : asts) {
+            size += size(ast);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of AST nodes in the subtree, counted without
+     * recursion since expressions may be nested deeply.
+     */
+    private static int size(Ast ast) {
+        int size = 0;
+        List<Ast> pending = new ArrayList<>(List.of(ast));
+        while (!pending.isEmpty()) {
+            pending.addAll(children(pending.remove(pending.size() - 1)));
+            size++;
+        }
+        return size;
+    }
+
+    private static List<Ast> children(Ast ast) {
+        List<Ast> children = new ArrayList<>();
+        if (ast instanceof Ast.Statement.Expression) {
+            children.add(((Ast.Statement.Expression) ast).getExpression());
+        } else if (ast instanceof Ast.Statement.Declaration) {
+            ((Ast.Statement.Declaration) ast).getValue().ifPresent(children::add);
+        } else if (ast instanceof Ast.Statement.Assignment) {
+            children.add(((Ast.Statement.Assignment) ast).getReceiver());
+            children.add(((Ast.Statement.Assignment) ast).getValue());
+        } else if (ast instanceof Ast.Statement.If) {
+            children.add(((Ast.Statement.If) ast).getCondition());
+            children.addAll(((Ast.Statement.If) ast).getThenStatements());
+            children.addAll(((Ast.Statement.If) ast).getElseStatements());
+        } else if (ast instanceof Ast.Statement.Switch) {
+            children.add(((Ast.Statement.Switch) ast).getCondition());
+            children.addAll(((Ast.Statement.Switch) ast).getCases());
+        } else if (ast instanceof Ast.Statement.Case) {
+            ((Ast.Statement.Case) ast).getValue().ifPresent(children::add);
+            children.addAll(((Ast.Statement.Case) ast).getStatements());
+        } else if (ast instanceof Ast.Statement.While) {
+            children.add(((Ast.Statement.While) ast).getCondition());
+            children.addAll(((Ast.Statement.While) ast).getStatements());
+        } else if (ast instanceof Ast.Statement.Return) {
+            children.add(((Ast.Statement.Return) ast).getValue());
+        } else if (ast instanceof Ast.Expression.Group) {
+            children.add(((Ast.Expression.Group) ast).getExpression());
+        } else if (ast instanceof Ast.Expression.Binary) {
+            children.add(((Ast.Expression.Binary) ast).getLeft());
+            children.add(((Ast.Expression.Binary) ast).getRight());
+        } else if (ast instanceof Ast.Expression.Access) {
+            ((Ast.Expression.Access) ast).getOffset().ifPresent(children::add);
+        } else if (ast instanceof Ast.Expression.Function) {
+            children.addAll(((Ast.Expression.Function) ast).getArguments());
+        } else if (ast instanceof Ast.Expression.PlcList) {
+            children.addAll(((Ast.Expression.PlcList) ast).getValues());
+        }
+        return children;
+    }
+
+}
@@ -1,5 +1,7 @@
 package plc.project;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -8,8 +10,44 @@ import java.util.Map;
 
 public final class Environment {
 
+    /**
+     * Creates an object whose type is inferred from the Java value, sharing
+     * the scope of that type. Booleans and small integers are cached, as they
+     * are immutable; any other value gets a new object.
+     */
     public static PlcObject create(Object value) {
-        return new PlcObject(new Scope(null), value);
+        if (value instanceof Boolean) {
+            return (Boolean) value ? TRUE : FALSE;
+        } else if (value instanceof BigInteger) {
+            BigInteger integer = (BigInteger) value;
+            if (integer.bitLength() < Long.SIZE && isCached(integer.longValue())) {
+                return INTEGERS[(int) integer.longValue() - INTEGER_CACHE_LOW];
+            }
+            return new PlcObject(Type.INTEGER, Type.INTEGER.scope, value);
+        } else if (value instanceof BigDecimal) {
+            return new PlcObject(Type.DECIMAL, Type.DECIMAL.scope, value);
+        } else if (value instanceof Character) {
+            return new PlcObject(Type.CHARACTER, Type.CHARACTER.scope, value);
+        } else if (value instanceof String) {
+            return new PlcObject(Type.STRING, Type.STRING.scope, value);
+        } else {
+            return new PlcObject(Type.ANY, Type.ANY.scope, value);
+        }
+    }
+
+    /**
+     * Creates an integer held as a long, whose {@link BigInteger} value is
+     * only created if {@link PlcObject#getValue()} is called.
+     */
+    public static PlcObject createInteger(long value) {
+        if (isCached(value)) {
+            return INTEGERS[(int) value - INTEGER_CACHE_LOW];
+        }
+        return new PlcObject(Type.INTEGER, Type.INTEGER.scope, value);
+    }
+
+    private static boolean isCached(long value) {
+        return value >= INTEGER_CACHE_LOW && value <= INTEGER_CACHE_HIGH;
     }
 
     public static final PlcObject NIL = new PlcObject(Type.NIL, new Scope(null), new Object() {
@@ -21,6 +59,23 @@ public final class Environment {
 
     });
 
+    public static final PlcObject TRUE = new PlcObject(Type.BOOLEAN, Type.BOOLEAN.scope, Boolean.TRUE);
+    public static final PlcObject FALSE = new PlcObject(Type.BOOLEAN, Type.BOOLEAN.scope, Boolean.FALSE);
+
+    /**
+     * Integers in this range, which covers typical loop counters and indices,
+     * are shared by {@link #create(Object)} and {@link #createInteger(long)}.
+     */
+    private static final int INTEGER_CACHE_LOW = -128;
+    private static final int INTEGER_CACHE_HIGH = 1024;
+    private static final PlcObject[] INTEGERS = new PlcObject[INTEGER_CACHE_HIGH - INTEGER_CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < INTEGERS.length; i++) {
+            INTEGERS[i] = new PlcObject(Type.INTEGER, Type.INTEGER.scope, BigInteger.valueOf(i + INTEGER_CACHE_LOW));
+        }
+    }
+
     private static final Map<String, Type> TYPES = new HashMap<>();
 
     public static Type getType(String name) {
@@ -30,6 +85,10 @@ public final class Environment {
         return TYPES.get(name);
     }
 
+    public static boolean hasType(String name) {
+        return TYPES.containsKey(name);
+    }
+
     public static void registerType(Type type) {
         if (TYPES.containsKey(type.getName())) {
             throw new IllegalArgumentException("Duplicate registration of type " + type.getName() + ".");
@@ -93,7 +152,9 @@ public final class Environment {
 
         private final Type type;
         private final Scope scope;
-        private final Object value;
+        private Object value;
+        private final boolean isLong;
+        private final long longValue;
 
         public PlcObject(Scope scope, Object value) {
             this(new Type("Unknown", "Unknown", scope), scope, value);
@@ -103,6 +164,15 @@ public final class Environment {
             this.type = type;
             this.scope = scope;
             this.value = value;
+            this.isLong = value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE;
+            this.longValue = isLong ? ((BigInteger) value).longValue() : 0;
+        }
+
+        private PlcObject(Type type, Scope scope, long value) {
+            this.type = type;
+            this.scope = scope;
+            this.isLong = true;
+            this.longValue = value;
         }
 
         public Type getType() {
@@ -110,15 +180,31 @@ public final class Environment {
         }
 
         public Object getValue() {
+            if (value == null && isLong) {
+                value = BigInteger.valueOf(longValue);
+            }
             return value;
         }
 
+        /**
+         * Returns true if the value is an integer which fits in a long, in
+         * which case {@link #getLong()} can be used instead of the
+         * {@link BigInteger} value.
+         */
+        public boolean isLong() {
+            return isLong;
+        }
+
+        public long getLong() {
+            return longValue;
+        }
+
         @Override
         public String toString() {
             return "Object{" +
                     "type=" + type +
                     ", scope=" + scope +
-                    ", value=" + value +
+                    ", value=" + getValue() +
                     '}';
         }
 
@@ -0,0 +1,577 @@
+package plc.project;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A compact encoding of a source for programs too large to hold as a tree of
+ * {@link Ast} objects. Each node is a row of parallel int arrays rather than
+ * an object with its own lists and optionals, and every name, operator and
+ * literal is stored once in a pool however many nodes refer to it.
+ *
+ * Nodes are stored in postorder, so every subtree is a contiguous range of
+ * rows ending at its root and the source is the last row. The children of
+ * each node are a range of the children array, in the order of the
+ * {@link Ast} getters, with -1 for an absent optional. Alongside its kind, a
+ * node has up to one value (its name, operator or literal), one extra (its
+ * type name or signature, or how many of its children are globals or then
+ * statements), one type and one binding (its variable or function).
+ *
+ * A flat source is built by a {@link Builder}, such as from
+ * {@link Parser#parseFlatSource()}, and is walked by the usual visitors
+ * through {@link #view()}. The slots assigned by the {@link Resolver} are
+ * not stored.
+ */
+public final class FlatAst {
+
+    private static final int KIND = 0xFF;
+    private static final int FLAGS = 8;
+    private static final int MUTABLE = 1;
+    private static final Opcode[] OPCODES = Opcode.values();
+
+    private final int size;
+    private final int[] kinds;
+    private final int[] values;
+    private final int[] extras;
+    private final int[] types;
+    private final int[] bindings;
+    private final int[] firsts;
+    private final int[] children;
+    private final Object[] pool;
+
+    private FlatAst(Builder builder) {
+        size = builder.size;
+        kinds = Arrays.copyOf(builder.kinds, size);
+        values = Arrays.copyOf(builder.values, size);
+        extras = Arrays.copyOf(builder.extras, size);
+        types = Arrays.copyOf(builder.types, size);
+        bindings = Arrays.copyOf(builder.bindings, size);
+        firsts = Arrays.copyOf(builder.firsts, size + 1);
+        firsts[size] = builder.childCount;
+        children = Arrays.copyOf(builder.children, builder.childCount);
+        pool = builder.pool.toArray();
+    }
+
+    /**
+     * Encodes the source, including the types and bindings set by the
+     * {@link Analyzer}.
+     */
+    public static FlatAst of(Ast.Source ast) {
+        Builder builder = new Builder(true);
+        for (Ast.Global global : ast.getGlobals()) {
+            builder.add(global);
+        }
+        for (Ast.Function function : ast.getFunctions()) {
+            builder.add(function);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of nodes, including the source.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the source as {@link Ast} objects, each global and function of
+     * which is only decoded when first got from its list. A decoded node is
+     * kept, so the types and bindings set by the {@link Analyzer} on the view
+     * are seen by the visitors walking it after, and can be encoded back with
+     * {@link #of(Ast.Source)}.
+     */
+    public Ast.Source view() {
+        int root = size - 1;
+        int globals = firsts[root] + extras[root];
+        return new Ast.Source(new View<>(firsts[root], globals), new View<>(globals, firsts[root + 1]));
+    }
+
+    /**
+     * Decodes the subtree at the node without recursion, by decoding each row
+     * of its range in order, since the children of every node come before it.
+     */
+    private Ast decode(int root) {
+        int start = root;
+        for (int child = leftmost(start); child != -1; child = leftmost(start)) {
+            start = child;
+        }
+        Ast[] nodes = new Ast[root - start + 1];
+        for (int node = start; node <= root; node++) {
+            nodes[node - start] = decode(node, nodes, start);
+        }
+        return nodes[root - start];
+    }
+
+    /**
+     * Returns the first child which is present, which is the first node of
+     * the subtree at the node as subtrees are stored in order, or -1.
+     */
+    private int leftmost(int node) {
+        for (int i = firsts[node]; i < firsts[node + 1]; i++) {
+            if (children[i] != -1) {
+                return children[i];
+            }
+        }
+        return -1;
+    }
+
+    private Ast decode(int node, Ast[] nodes, int start) {
+        int first = firsts[node];
+        int end = firsts[node + 1];
+        switch (kinds[node] & KIND) {
+            case Ast.GLOBAL: {
+                boolean mutable = ((kinds[node] >>> FLAGS) & MUTABLE) != 0;
+                Ast.Global global = new Ast.Global(string(values[node]), string(extras[node]), mutable,
+                        Optional.ofNullable(expression(nodes, start, first)));
+                if (bindings[node] != -1) {
+                    global.setVariable((Environment.Variable) pool[bindings[node]]);
+                }
+                return global;
+            }
+            case Ast.FUNCTION: {
+                Signature signature = (Signature) pool[extras[node]];
+                Ast.Function function = new Ast.Function(string(values[node]), signature.parameters,
+                        signature.parameterTypeNames, signature.returnTypeName, list(nodes, start, first, end));
+                if (bindings[node] != -1) {
+                    function.setFunction((Environment.Function) pool[bindings[node]]);
+                }
+                return function;
+            }
+            case Ast.STATEMENT:
+                return new Ast.Statement.Expression(expression(nodes, start, first));
+            case Ast.DECLARATION: {
+                Optional<String> typeName = extras[node] != -1 ? Optional.of(string(extras[node])) : Optional.empty();
+                Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(string(values[node]), typeName,
+                        Optional.ofNullable(expression(nodes, start, first)));
+                if (bindings[node] != -1) {
+                    declaration.setVariable((Environment.Variable) pool[bindings[node]]);
+                }
+                return declaration;
+            }
+            case Ast.ASSIGNMENT:
+                return new Ast.Statement.Assignment(expression(nodes, start, first), expression(nodes, start, first + 1));
+            case Ast.IF: {
+                int elses = first + 1 + extras[node];
+                return new Ast.Statement.If(expression(nodes, start, first),
+                        list(nodes, start, first + 1, elses), list(nodes, start, elses, end));
+            }
+            case Ast.SWITCH:
+                return new Ast.Statement.Switch(expression(nodes, start, first), list(nodes, start, first + 1, end));
+            case Ast.CASE:
+                return new Ast.Statement.Case(Optional.ofNullable(expression(nodes, start, first)), list(nodes, start, first + 1, end));
+            case Ast.WHILE:
+                return new Ast.Statement.While(expression(nodes, start, first), list(nodes, start, first + 1, end));
+            case Ast.RETURN:
+                return new Ast.Statement.Return(expression(nodes, start, first));
+            case Ast.LITERAL: {
+                Ast.Expression.Literal literal = new Ast.Expression.Literal(pool[values[node]]);
+                literal.setType(type(node));
+                return literal;
+            }
+            case Ast.GROUP: {
+                Ast.Expression.Group group = new Ast.Expression.Group(expression(nodes, start, first));
+                group.setType(type(node));
+                return group;
+            }
+            case Ast.BINARY: {
+                Ast.Expression.Binary binary = new Ast.Expression.Binary(string(values[node]),
+                        expression(nodes, start, first), expression(nodes, start, first + 1));
+                binary.setType(type(node));
+                int opcode = kinds[node] >>> FLAGS;
+                binary.setOpcode(opcode != 0 ? OPCODES[opcode - 1] : null);
+                return binary;
+            }
+            case Ast.ACCESS: {
+                Ast.Expression.Access access = new Ast.Expression.Access(Optional.ofNullable(expression(nodes, start, first)),
+                        string(values[node]));
+                if (bindings[node] != -1) {
+                    access.setVariable((Environment.Variable) pool[bindings[node]]);
+                }
+                return access;
+            }
+            case Ast.CALL: {
+                Ast.Expression.Function function = new Ast.Expression.Function(string(values[node]), list(nodes, start, first, end));
+                if (bindings[node] != -1) {
+                    function.setFunction((Environment.Function) pool[bindings[node]]);
+                }
+                return function;
+            }
+            case Ast.LIST: {
+                Ast.Expression.PlcList list = new Ast.Expression.PlcList(list(nodes, start, first, end));
+                list.setType(type(node));
+                return list;
+            }
+            default:
+                throw new AssertionError("Unimplemented node kind " + (kinds[node] & KIND) + ".");
+        }
+    }
+
+    private Ast.Expression expression(Ast[] nodes, int start, int child) {
+        int node = children[child];
+        return node != -1 ? (Ast.Expression) nodes[node - start] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Ast> List<T> list(Ast[] nodes, int start, int first, int end) {
+        List<T> list = new ArrayList<>(end - first);
+        for (int i = first; i < end; i++) {
+            list.add((T) nodes[children[i] - start]);
+        }
+        return list;
+    }
+
+    private String string(int index) {
+        return (String) pool[index];
+    }
+
+    private Environment.Type type(int node) {
+        return types[node] != -1 ? (Environment.Type) pool[types[node]] : null;
+    }
+
+    /**
+     * The globals or functions of the source, decoded when first got.
+     */
+    private final class View<T extends Ast> extends AbstractList<T> {
+
+        private final int first;
+        private final Ast[] decoded;
+
+        private View(int first, int end) {
+            this.first = first;
+            this.decoded = new Ast[end - first];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            Objects.checkIndex(index, decoded.length);
+            if (decoded[index] == null) {
+                decoded[index] = decode(children[first + index]);
+            }
+            return (T) decoded[index];
+        }
+
+        @Override
+        public int size() {
+            return decoded.length;
+        }
+
+    }
+
+    /**
+     * The names of the parameters and types of a function, which are rare
+     * enough to be pooled as they are.
+     */
+    private static final class Signature {
+
+        private final List<String> parameters;
+        private final List<String> parameterTypeNames;
+        private final Optional<String> returnTypeName;
+
+        private Signature(Ast.Function ast) {
+            this.parameters = ast.getParameters();
+            this.parameterTypeNames = ast.getParameterTypeNames();
+            this.returnTypeName = ast.getReturnTypeName();
+        }
+
+    }
+
+    /**
+     * Encodes globals and functions as they are added, so that a caller such
+     * as the {@link Parser} only holds one of them as {@link Ast} objects at
+     * a time. Globals come before functions in the source whatever order
+     * they are added in. A builder is used for a single {@link #build()}.
+     */
+    public static final class Builder {
+
+        /**
+         * Whether the types and bindings are encoded, which is only worth
+         * the exception raised by the getter of each one which isn't set
+         * for trees the {@link Analyzer} has visited.
+         */
+        private final boolean annotated;
+
+        private int size = 0;
+        private int[] kinds = new int[64];
+        private int[] values = new int[64];
+        private int[] extras = new int[64];
+        private int[] types = new int[64];
+        private int[] bindings = new int[64];
+        private int[] firsts = new int[65];
+        private int childCount = 0;
+        private int[] children = new int[64];
+
+        private final List<Object> pool = new ArrayList<>();
+        private final Map<Object, Integer> constants = new HashMap<>();
+        private final Map<Object, Integer> references = new IdentityHashMap<>();
+
+        private int globalCount = 0;
+        private int[] globals = new int[16];
+        private int functionCount = 0;
+        private int[] functions = new int[16];
+
+        /**
+         * Creates a builder for trees which haven't been analyzed, such as
+         * from the {@link Parser}.
+         */
+        public Builder() {
+            this(false);
+        }
+
+        private Builder(boolean annotated) {
+            this.annotated = annotated;
+        }
+
+        public Builder add(Ast.Global ast) {
+            if (globalCount == globals.length) {
+                globals = Arrays.copyOf(globals, 2 * globalCount);
+            }
+            globals[globalCount++] = encode(ast);
+            return this;
+        }
+
+        public Builder add(Ast.Function ast) {
+            if (functionCount == functions.length) {
+                functions = Arrays.copyOf(functions, 2 * functionCount);
+            }
+            functions[functionCount++] = encode(ast);
+            return this;
+        }
+
+        public FlatAst build() {
+            int[] nodes = Arrays.copyOf(globals, globalCount + functionCount);
+            System.arraycopy(functions, 0, nodes, globalCount, functionCount);
+            row(Ast.SOURCE, -1, globalCount, -1, -1, nodes, nodes.length);
+            return new FlatAst(this);
+        }
+
+        /**
+         * Encodes the subtree in postorder without recursion, returning the
+         * index of its root.
+         */
+        private int encode(Ast root) {
+            Deque<Frame> stack = new ArrayDeque<>();
+            stack.push(new Frame(root));
+            while (true) {
+                Frame frame = stack.peek();
+                if (frame.next < frame.children.size()) {
+                    Ast child = frame.children.get(frame.next);
+                    if (child != null) {
+                        stack.push(new Frame(child));
+                    } else {
+                        frame.indices[frame.next++] = -1;
+                    }
+                } else {
+                    stack.pop();
+                    int index = row(frame.ast, frame.indices);
+                    if (stack.isEmpty()) {
+                        return index;
+                    }
+                    Frame parent = stack.peek();
+                    parent.indices[parent.next++] = index;
+                }
+            }
+        }
+
+        private int row(Ast ast, int[] indices) {
+            switch (ast.getKind()) {
+                case Ast.GLOBAL: {
+                    Ast.Global global = (Ast.Global) ast;
+                    return row(Ast.GLOBAL | (global.getMutable() ? MUTABLE << FLAGS : 0), constant(global.getName()),
+                            constant(global.getTypeName()), -1, reference(annotation(global::getVariable)), indices, indices.length);
+                }
+                case Ast.FUNCTION: {
+                    Ast.Function function = (Ast.Function) ast;
+                    return row(Ast.FUNCTION, constant(function.getName()), reference(new Signature(function)),
+                            -1, reference(annotation(function::getFunction)), indices, indices.length);
+                }
+                case Ast.DECLARATION: {
+                    Ast.Statement.Declaration declaration = (Ast.Statement.Declaration) ast;
+                    int typeName = declaration.getTypeName().isPresent() ? constant(declaration.getTypeName().get()) : -1;
+                    return row(Ast.DECLARATION, constant(declaration.getName()), typeName,
+                            -1, reference(annotation(declaration::getVariable)), indices, indices.length);
+                }
+                case Ast.IF:
+                    return row(Ast.IF, -1, ((Ast.Statement.If) ast).getThenStatements().size(), -1, -1, indices, indices.length);
+                case Ast.LITERAL: {
+                    Ast.Expression.Literal literal = (Ast.Expression.Literal) ast;
+                    return row(Ast.LITERAL, constant(literal.getLiteral()), -1, type(literal), -1, indices, indices.length);
+                }
+                case Ast.GROUP:
+                case Ast.LIST:
+                    return row(ast.getKind(), -1, -1, type((Ast.Expression) ast), -1, indices, indices.length);
+                case Ast.BINARY: {
+                    Ast.Expression.Binary binary = (Ast.Expression.Binary) ast;
+                    int opcode = binary.getOpcode() != null ? binary.getOpcode().ordinal() + 1 : 0;
+                    return row(Ast.BINARY | opcode << FLAGS, constant(binary.getOperator()), -1, type(binary), -1, indices, indices.length);
+                }
+                case Ast.ACCESS: {
+                    Ast.Expression.Access access = (Ast.Expression.Access) ast;
+                    return row(Ast.ACCESS, constant(access.getName()), -1, -1, reference(annotation(access::getVariable)), indices, indices.length);
+                }
+                case Ast.CALL: {
+                    Ast.Expression.Function function = (Ast.Expression.Function) ast;
+                    return row(Ast.CALL, constant(function.getName()), -1, -1, reference(annotation(function::getFunction)), indices, indices.length);
+                }
+                default:
+                    return row(ast.getKind(), -1, -1, -1, -1, indices, indices.length);
+            }
+        }
+
+        private int row(int kind, int value, int extra, int type, int binding, int[] nodes, int count) {
+            if (size == kinds.length) {
+                int capacity = 2 * size;
+                kinds = Arrays.copyOf(kinds, capacity);
+                values = Arrays.copyOf(values, capacity);
+                extras = Arrays.copyOf(extras, capacity);
+                types = Arrays.copyOf(types, capacity);
+                bindings = Arrays.copyOf(bindings, capacity);
+                firsts = Arrays.copyOf(firsts, capacity + 1);
+            }
+            if (childCount + count > children.length) {
+                children = Arrays.copyOf(children, Math.max(2 * children.length, childCount + count));
+            }
+            kinds[size] = kind;
+            values[size] = value;
+            extras[size] = extra;
+            types[size] = type;
+            bindings[size] = binding;
+            firsts[size] = childCount;
+            System.arraycopy(nodes, 0, children, childCount, count);
+            childCount += count;
+            return size++;
+        }
+
+        /**
+         * Returns the pool index of a name or literal, pooling equal values
+         * once.
+         */
+        private int constant(Object value) {
+            return constants.computeIfAbsent(value, key -> {
+                pool.add(key);
+                return pool.size() - 1;
+            });
+        }
+
+        /**
+         * Returns the pool index of a type, binding or signature, which are
+         * pooled by identity, or -1 if it is null.
+         */
+        private int reference(Object value) {
+            if (value == null) {
+                return -1;
+            }
+            return references.computeIfAbsent(value, key -> {
+                pool.add(key);
+                return pool.size() - 1;
+            });
+        }
+
+        private int type(Ast.Expression ast) {
+            return reference(annotation(ast::getType));
+        }
+
+        /**
+         * Returns the type or binding, or null if the {@link Analyzer} hasn't
+         * set it or this builder doesn't encode them.
+         */
+        private <T> T annotation(Supplier<T> getter) {
+            if (!annotated) {
+                return null;
+            }
+            try {
+                return getter.get();
+            } catch (IllegalStateException e) {
+                return null;
+            }
+        }
+
+    }
+
+    /**
+     * A node being encoded, with the indices of its encoded children.
+     */
+    private static final class Frame {
+
+        private final Ast ast;
+        private final List<? extends Ast> children;
+        private final int[] indices;
+        private int next = 0;
+
+        private Frame(Ast ast) {
+            this.ast = ast;
+            this.children = children(ast);
+            this.indices = new int[children.size()];
+        }
+
+        /**
+         * Returns the children of the AST in the order they are stored, with
+         * null for an absent optional.
+         */
+        private static List<? extends Ast> children(Ast ast) {
+            switch (ast.getKind()) {
+                case Ast.GLOBAL:
+                    return Arrays.asList(((Ast.Global) ast).getValue().orElse(null));
+                case Ast.FUNCTION:
+                    return ((Ast.Function) ast).getStatements();
+                case Ast.STATEMENT:
+                    return List.of(((Ast.Statement.Expression) ast).getExpression());
+                case Ast.DECLARATION:
+                    return Arrays.asList(((Ast.Statement.Declaration) ast).getValue().orElse(null));
+                case Ast.ASSIGNMENT:
+                    return List.of(((Ast.Statement.Assignment) ast).getReceiver(), ((Ast.Statement.Assignment) ast).getValue());
+                case Ast.IF: {
+                    Ast.Statement.If statement = (Ast.Statement.If) ast;
+                    List<Ast> children = new ArrayList<>(List.of(statement.getCondition()));
+                    children.addAll(statement.getThenStatements());
+                    children.addAll(statement.getElseStatements());
+                    return children;
+                }
+                case Ast.SWITCH: {
+                    List<Ast> children = new ArrayList<>(List.of(((Ast.Statement.Switch) ast).getCondition()));
+                    children.addAll(((Ast.Statement.Switch) ast).getCases());
+                    return children;
+                }
+                case Ast.CASE: {
+                    List<Ast> children = new ArrayList<>(Arrays.asList(((Ast.Statement.Case) ast).getValue().orElse(null)));
+                    children.addAll(((Ast.Statement.Case) ast).getStatements());
+                    return children;
+                }
+                case Ast.WHILE: {
+                    List<Ast> children = new ArrayList<>(List.of(((Ast.Statement.While) ast).getCondition()));
+                    children.addAll(((Ast.Statement.While) ast).getStatements());
+                    return children;
+                }
+                case Ast.RETURN:
+                    return List.of(((Ast.Statement.Return) ast).getValue());
+                case Ast.LITERAL:
+                    return List.of();
+                case Ast.GROUP:
+                    return List.of(((Ast.Expression.Group) ast).getExpression());
+                case Ast.BINARY:
+                    return List.of(((Ast.Expression.Binary) ast).getLeft(), ((Ast.Expression.Binary) ast).getRight());
+                case Ast.ACCESS:
+                    return Arrays.asList(((Ast.Expression.Access) ast).getOffset().orElse(null));
+                case Ast.CALL:
+                    return ((Ast.Expression.Function) ast).getArguments();
+                case Ast.LIST:
+                    return ((Ast.Expression.PlcList) ast).getValues();
+                default:
+                    throw new AssertionError("Unencodable AST " + ast.getClass().getName() + ".");
+            }
+        }
+
+    }
+
+}
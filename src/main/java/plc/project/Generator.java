@@ -4,34 +4,120 @@ import java.io.PrintWriter;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Optional;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 public final class Generator implements Ast.Visitor<Void> {
 
+    private final CodeBuffer buffer;
     private final PrintWriter writer;
+    private final ForkJoinPool pool;
     private int indent = 0;
+    private int depth = 0;
 
+    /**
+     * Generates into the writer. The code is buffered while inside of a call
+     * to {@link #visit(Ast)} and written out when the outermost one returns.
+     */
     public Generator(PrintWriter writer) {
+        this.buffer = new CodeBuffer();
         this.writer = writer;
+        this.pool = null;
     }
 
-    private void print(Object... objects) {
-        for (Object object : objects) {
-            if (object instanceof Ast) {
-                visit((Ast) object);
-            } else {
-                writer.write(object.toString());
-            }
+    /**
+     * Generates into the buffer, which the caller writes out once done.
+     */
+    public Generator(CodeBuffer buffer) {
+        this(buffer, null);
+    }
+
+    /**
+     * Generates into the buffer, generating the functions of a source in
+     * parallel on the pool. Each function is generated into its own buffer
+     * and the buffers are appended in order, so the output is identical.
+     */
+    public Generator(CodeBuffer buffer, ForkJoinPool pool) {
+        this.buffer = buffer;
+        this.writer = null;
+        this.pool = pool;
+    }
+
+    @Override
+    public Void visit(Ast ast) {
+        depth++;
+        try {
+            return Ast.Visitor.super.visit(ast);
+        } finally {
+            depth--;
+            flush();
         }
     }
 
-    private void newline(int indent) {
-        writer.println();
-        for (int i = 0; i < indent; i++) {
-            writer.write("    ");
+    /**
+     * Writes the buffer out when generating into a writer, unless inside of
+     * a call to {@link #visit(Ast)}.
+     */
+    private void flush() {
+        if (depth == 0 && writer != null) {
+            writer.append(buffer);
+            buffer.clear();
+        }
+    }
+
+    private void functions(List<Ast.Function> functions) {
+        List<ForkJoinTask<CodeBuffer>> tasks = new ArrayList<>(functions.size());
+        for (Ast.Function function : functions) {
+            tasks.add(pool.submit(() -> {
+                Generator generator = new Generator(new CodeBuffer());
+                generator.indent = indent;
+                generator.visit(function);
+                return generator.buffer;
+            }));
+        }
+        for (ForkJoinTask<CodeBuffer> task : tasks) {
+            newline(this.indent);
+            buffer.append(task.join());
+            newline(0);
         }
     }
 
+    private void print(Ast ast) {
+        visit(ast);
+    }
+
+    private void print(String string) {
+        buffer.append(string);
+        flush();
+    }
+
+    private void print(char character) {
+        buffer.append(character);
+        flush();
+    }
+
+    private void print(int value) {
+        buffer.append(value);
+        flush();
+    }
+
+    private void print(double value) {
+        buffer.append(value);
+        flush();
+    }
+
+    private void print(boolean value) {
+        buffer.append(value);
+        flush();
+    }
+
+    private void newline(int indent) {
+        buffer.newline(indent);
+        flush();
+    }
+
     @Override
     public Void visit(Ast.Source ast) {
         print("public class Main {");
@@ -56,7 +142,9 @@ public final class Generator implements Ast.Visitor<Void> {
         newline(0);
 
         // Visit functions
-        if (!ast.getFunctions().isEmpty()) {
+        if (pool != null && ast.getFunctions().size() > 1) {
+            functions(ast.getFunctions());
+        } else if (!ast.getFunctions().isEmpty()) {
             for (int i = 0; i < ast.getFunctions().size(); i++) {
                 newline(this.indent);
                 print(ast.getFunctions().get(i));
@@ -77,15 +165,21 @@ public final class Generator implements Ast.Visitor<Void> {
         print(ast.getVariable().getType().getJvmName());
         if (ast.getValue().isPresent()){
             if (ast.getValue().get().getClass() == Ast.Expression.PlcList.class){
-                print("[] ", ast.getVariable().getJvmName(), " = ");
+                print("[] ");
+                print(ast.getVariable().getJvmName());
+                print(" = ");
                 visit(ast.getValue().get());
             }
             else{
-                print(" ", ast.getVariable().getJvmName(), " = ", ast.getValue().get());
+                print(" ");
+                print(ast.getVariable().getJvmName());
+                print(" = ");
+                print(ast.getValue().get());
             }
         }
         else{
-            print(" ", ast.getVariable().getJvmName());
+            print(" ");
+            print(ast.getVariable().getJvmName());
         }
         print(";");
         return null;
@@ -116,10 +210,13 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Function ast) {
-        print(ast.getFunction().getReturnType().getJvmName(), " ");
-        print(ast.getFunction().getJvmName(), "(");
+        print(ast.getFunction().getReturnType().getJvmName());
+        print(" ");
+        print(ast.getFunction().getJvmName());
+        print("(");
         for(int i = 0; i < ast.getFunction().getArity(); i++){
-            print(ast.getFunction().getParameterTypes().get(i).getJvmName(), " ");
+            print(ast.getFunction().getParameterTypes().get(i).getJvmName());
+            print(" ");
             print(ast.getParameters().get(i));
             if(i<ast.getFunction().getArity() - 1){
                 print(", ");
@@ -165,7 +262,8 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Statement.Expression ast) {
-        print(ast.getExpression(), ";");
+        print(ast.getExpression());
+        print(";");
         return null;
         /*print("    ");
         if (ast.getExpression() instanceof Ast.Expression.Function) {
@@ -184,10 +282,12 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Statement.Declaration ast) {
-        print(ast.getVariable().getType().getJvmName(), " ");
+        print(ast.getVariable().getType().getJvmName());
+        print(" ");
         print(ast.getVariable().getJvmName());
         if (ast.getValue().isPresent()){
-            print(" = ", ast.getValue().get());
+            print(" = ");
+            print(ast.getValue().get());
         }
         print(";");
         return null;
@@ -212,13 +312,18 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Statement.Assignment ast) {
-        print(ast.getReceiver(), " = ", ast.getValue(), ";");
+        print(ast.getReceiver());
+        print(" = ");
+        print(ast.getValue());
+        print(";");
         return null;
     }
 
     @Override
     public Void visit(Ast.Statement.If ast) {
-        print("if (", ast.getCondition(), ") {");
+        print("if (");
+        print(ast.getCondition());
+        print(") {");
         this.indent++;
         for (int i = 0; i < ast.getThenStatements().size(); i++) {
             newline(this.indent);
@@ -259,7 +364,9 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Statement.Switch ast) {
-        print("switch (", ast.getCondition(), ") {");
+        print("switch (");
+        print(ast.getCondition());
+        print(") {");
         for (int i = 0; i < ast.getCases().size(); i++) {
             print(ast.getCases().get(i));
         }
@@ -273,7 +380,9 @@ public final class Generator implements Ast.Visitor<Void> {
         this.indent++;
         newline(this.indent);
         if(ast.getValue().isPresent()){
-            print("case ", ast.getValue().get(), ":");
+            print("case ");
+            print(ast.getValue().get());
+            print(":");
             this.indent++;
             for (int i = 0; i < ast.getStatements().size(); i++) {
                 newline(this.indent);
@@ -311,7 +420,9 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Statement.While ast) {
-        print("while (", ast.getCondition(), ") {");
+        print("while (");
+        print(ast.getCondition());
+        print(") {");
         if (!ast.getStatements().isEmpty()) {
             this.indent++;
             for (int i = 0; i < ast.getStatements().size(); i++) {
@@ -335,7 +446,9 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Statement.Return ast) {
-        print("return ", ast.getValue(), ";");
+        print("return ");
+        print(ast.getValue());
+        print(";");
         return null;
         /*Ast.Expression value = ast.getValue();
         print("        return ");
@@ -378,9 +491,13 @@ public final class Generator implements Ast.Visitor<Void> {
             BigDecimal decimal = (BigDecimal)ast.getLiteral();
             print(decimal.doubleValue());
         } else if (ast.getType() == Environment.Type.CHARACTER) {
-            print("'", (char)ast.getLiteral(), "'");
+            print("'");
+            print((char)ast.getLiteral());
+            print("'");
         } else if (ast.getType() == Environment.Type.STRING) {
-            print("\"", (String)ast.getLiteral(), "\"");
+            print("\"");
+            print((String)ast.getLiteral());
+            print("\"");
         } else if (ast.getType() == Environment.Type.NIL) {
             print("null");
         }
@@ -398,86 +515,59 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Expression.Group ast) {
-        print("(", ast.getExpression(), ")");
+        expression(ast);
         return null;
     }
 
     @Override
     public Void visit(Ast.Expression.Binary ast) {
-        if(ast.getOperator().equals("^")){
-            print("Math.pow(", ast.getLeft(), ", ", ast.getRight(), ")");
-        }
-        else{
-            print(ast.getLeft(), " ", ast.getOperator(), " ", ast.getRight());
-
-        }
+        expression(ast);
         return null;
-        /*if (ast.getOperator().equals("+")) {
-            visit(ast.getLeft());
-            print(" + ");
-            visit(ast.getRight());
-        } else if (ast.getOperator().equals("-")) {
-            visit(ast.getLeft());
-            print(" - ");
-            visit(ast.getRight());
-        } else if (ast.getOperator().equals("*")) {
-            visit(ast.getLeft());
-            print(" * ");
-            visit(ast.getRight());
-        } else if (ast.getOperator().equals("/")) {
-            visit(ast.getLeft());
-            print(" / ");
-            visit(ast.getRight());
-        } else if (ast.getOperator().equals("%")) {
-            visit(ast.getLeft());
-            print(" % ");
-            visit(ast.getRight());
-        } else if (ast.getOperator().equals("<")) {
-            visit(ast.getLeft());
-            print(" < ");
-            visit(ast.getRight());
-        } else if (ast.getOperator().equals("<=")) {
-            visit(ast.getLeft());
-            print(" <= ");
-            visit(ast.getRight());
-        } else if (ast.getOperator().equals(">")) {
-            visit(ast.getLeft());
-            print(" > ");
-            visit(ast.getRight());
-        } else if (ast.getOperator().equals(">=")) {
-            visit(ast.getLeft());
-            print(" >= ");
-            visit(ast.getRight());
-        } else if (ast.getOperator().equals("==")) {
-            visit(ast.getLeft());
-            print(" == ");
-            visit(ast.getRight());
-        } else if (ast.getOperator().equals("!=")) {
-            visit(ast.getLeft());
-            print(" != ");
-            visit(ast.getRight());
-        } else if (ast.getOperator().equals("&&")) {
-            visit(ast.getLeft());
-            print(" && ");
-            visit(ast.getRight());
-        } else if (ast.getOperator().equals("||")) {
-            visit(ast.getLeft());
-            print(" ", ast.getOperator(), " ");
-            visit(ast.getRight());
-        } else if (ast.getOperator().equals("^")) {
-            print("Math.pow(", ast.getLeft(), ", ", ast.getRight(), ")");
-        }
-        else {
-            throw new RuntimeException("Invalid operator: " + ast.getOperator());
-        }
+    }
 
-        return null;*/
+    /**
+     * Generates nested binary expressions and groups from an explicit stack
+     * of the expressions and strings left to print, so deeply nested
+     * expressions don't overflow the Java stack.
+     */
+    private void expression(Ast.Expression ast) {
+        List<Object> pending = new ArrayList<>();
+        pending.add(ast);
+        while (!pending.isEmpty()) {
+            Object next = pending.remove(pending.size() - 1);
+            if (next instanceof String) {
+                print((String) next);
+            } else if (next instanceof Ast.Expression.Group) {
+                print("(");
+                pending.add(")");
+                pending.add(((Ast.Expression.Group) next).getExpression());
+            } else if (next instanceof Ast.Expression.Binary) {
+                Ast.Expression.Binary binary = (Ast.Expression.Binary) next;
+                if (binary.getOperator().equals("^")) {
+                    print("Math.pow(");
+                    pending.add(")");
+                    pending.add(binary.getRight());
+                    pending.add(", ");
+                } else {
+                    pending.add(binary.getRight());
+                    pending.add(" ");
+                    pending.add(binary.getOperator());
+                    pending.add(" ");
+                }
+                pending.add(binary.getLeft());
+            } else {
+                print((Ast) next);
+            }
+        }
     }
 
     @Override
     public Void visit(Ast.Expression.Access ast) {
         if (ast.getOffset().isPresent()) {
-            print(ast.getName(), "[", ast.getOffset().get(), "]");
+            print(ast.getName());
+            print("[");
+            print(ast.getOffset().get());
+            print("]");
         } else {
             print(ast.getName());
         }
@@ -488,7 +578,8 @@ public final class Generator implements Ast.Visitor<Void> {
     public Void visit(Ast.Expression.Function ast) {
         String jvmName = ast.getFunction().getJvmName();
 
-        print(jvmName, "(");
+        print(jvmName);
+        print("(");
 
         for(int i = 0; i < ast.getArguments().size(); i++){
             if (i > 0) {
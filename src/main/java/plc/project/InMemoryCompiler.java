@@ -0,0 +1,235 @@
+package plc.project;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the Java source from the {@link Generator} with javac in memory
+ * and loads the resulting {@code Main} class, without touching the disk.
+ *
+ * Loaded classes are cached by the SHA-256 of their content: {@link #load(String)}
+ * by the PLC input, so an unchanged program skips lexing, parsing, analysis
+ * and compilation, and {@link #load(Ast.Source)} by the generated Java source.
+ * Each cache holds at most {@code capacity} classes, evicting the least
+ * recently loaded, so a long-lived compiler doesn't keep every program it
+ * has seen. The compiler holds javac's file manager until it is closed.
+ */
+public final class InMemoryCompiler implements AutoCloseable {
+
+    /**
+     * The number of classes each cache holds by default.
+     */
+    public static final int CAPACITY = 256;
+
+    private final JavaCompiler javac;
+    private final StandardJavaFileManager files;
+    private final Map<String, Class<?>> programs;
+    private final Map<String, Class<?>> classes;
+
+    public InMemoryCompiler() {
+        this(CAPACITY);
+    }
+
+    public InMemoryCompiler(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive, received " + capacity + ".");
+        }
+        javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null) {
+            throw new IllegalStateException("The Java compiler is not available; a JDK is required.");
+        }
+        files = javac.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        programs = cache(capacity);
+        classes = cache(capacity);
+    }
+
+    /**
+     * Returns the {@code Main} class for the PLC input, lexing, parsing,
+     * analyzing, optimizing and compiling it only if the input has not been
+     * loaded before.
+     */
+    public Class<?> load(String input) {
+        String key = hash(input);
+        synchronized (programs) {
+            Class<?> main = programs.get(key);
+            if (main != null) {
+                return main;
+            }
+        }
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        Class<?> main = load(new DeadCodeEliminator().eliminate(new ConstantFolder().visit(ast)));
+        synchronized (programs) {
+            programs.put(key, main);
+        }
+        return main;
+    }
+
+    /**
+     * Returns the {@code Main} class for the analyzed source, compiling the
+     * generated Java source only if it has not been loaded before.
+     */
+    public Class<?> load(Ast.Source ast) {
+        CodeBuffer buffer = new CodeBuffer();
+        new Generator(buffer).visit(ast);
+        String source = buffer.toString();
+        String key = hash(source);
+        synchronized (classes) {
+            Class<?> main = classes.get(key);
+            if (main != null) {
+                return main;
+            }
+        }
+        Class<?> main = compile(source);
+        synchronized (classes) {
+            // Another thread may have compiled the same source meanwhile
+            Class<?> loaded = classes.putIfAbsent(key, main);
+            return loaded != null ? loaded : main;
+        }
+    }
+
+    /**
+     * Runs {@code new Main().main()}, which unlike {@code Main.main(String[])}
+     * returns the exit code rather than exiting.
+     */
+    public static int run(Class<?> main) {
+        try {
+            Constructor<?> constructor = main.getDeclaredConstructor();
+            Method method = main.getDeclaredMethod("main");
+            constructor.setAccessible(true);
+            method.setAccessible(true);
+            return (int) method.invoke(constructor.newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Unable to run " + main.getName() + ".", e);
+        }
+    }
+
+    /**
+     * The number of distinct classes cached by this compiler.
+     */
+    public int size() {
+        synchronized (classes) {
+            return classes.size();
+        }
+    }
+
+    /**
+     * Closes javac's file manager. Classes already loaded stay usable.
+     */
+    @Override
+    public void close() {
+        try {
+            files.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns a map in access order which evicts its least recently used
+     * entry once it holds more than {@code capacity} entries.
+     */
+    private static Map<String, Class<?>> cache(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Class<?>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private synchronized Class<?> compile(String source) {
+        Map<String, ByteArrayOutputStream> output = new HashMap<>();
+        JavaFileManager manager = new ForwardingJavaFileManager<>(files) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return output.computeIfAbsent(className, name -> new ByteArrayOutputStream());
+                    }
+                };
+            }
+        };
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///Main.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        if (!javac.getTask(null, manager, diagnostics, List.of("-proc:none"), null, List.of(file)).call()) {
+            StringBuilder message = new StringBuilder("Unable to compile the generated source:");
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                message.append(System.lineSeparator()).append(diagnostic.getLineNumber()).append(": ").append(diagnostic.getMessage(null));
+            }
+            throw new RuntimeException(message.toString());
+        }
+
+        Map<String, byte[]> bytes = new HashMap<>();
+        output.forEach((name, stream) -> bytes.put(name, stream.toByteArray()));
+        try {
+            return new Loader(bytes).loadClass("Main");
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("The generated source does not declare Main.", e);
+        }
+    }
+
+    private static String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e); // SHA-256 is required of every JVM
+        }
+    }
+
+    /**
+     * Defines the classes of one compilation, in their own loader so that
+     * every program can declare Main.
+     */
+    private static final class Loader extends ClassLoader {
+
+        private final Map<String, byte[]> bytes;
+
+        private Loader(Map<String, byte[]> bytes) {
+            super(InMemoryCompiler.class.getClassLoader());
+            this.bytes = bytes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] definition = bytes.get(name);
+            if (definition == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, definition, 0, definition.length);
+        }
+
+    }
+
+}
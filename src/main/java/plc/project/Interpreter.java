@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -15,6 +16,20 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     private Scope scope = new Scope(null);
 
+    /**
+     * The frame of the executing function when it was resolved by the
+     * {@link Resolver}, or null when variables are looked up in scopes.
+     */
+    private Frame frame = null;
+
+    /**
+     * The value of the {@code RETURN} being executed, which is set until the
+     * invoked function consumes it. Statements are not executed while it is
+     * set, so returning unwinds through ordinary method returns instead of
+     * throwing an exception.
+     */
+    private Environment.PlcObject returnValue = null;
+
     public Interpreter(Scope parent) {
         scope = new Scope(parent);
         scope.defineFunction("print", 1, args -> {
@@ -29,16 +44,22 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Source ast) {
-        for (Ast.Global global : ast.getGlobals()) {
-            visit(global);
-        }
-        for (Ast.Function function : ast.getFunctions()) {
-            visit(function);
-        }
+        Frame previous = frame;
+        frame = ast.getFrameSize() >= 0 ? new Frame(null, ast.getFrameSize()) : null;
+        try {
+            for (Ast.Global global : ast.getGlobals()) {
+                visit(global);
+            }
+            for (Ast.Function function : ast.getFunctions()) {
+                visit(function);
+            }
 
-        List<Environment.PlcObject> arguments = new ArrayList<Environment.PlcObject>();
-        Environment.PlcObject object = scope.lookupFunction("main", 0).invoke(arguments);
-        return object;
+            List<Environment.PlcObject> arguments = new ArrayList<Environment.PlcObject>();
+            Environment.PlcObject object = scope.lookupFunction("main", 0).invoke(arguments);
+            return object;
+        } finally {
+            frame = previous;
+        }
 
         /*try {
             Environment.Function mainFunction = scope.lookupFunction("main", 0);
@@ -55,10 +76,10 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Global ast) {
-        if (ast.getValue().isPresent()) {
-            scope.defineVariable(ast.getName(), ast.getMutable(), visit(ast.getValue().get()));
-        } else {
-            scope.defineVariable(ast.getName(), ast.getMutable(), Environment.NIL);
+        Environment.PlcObject value = ast.getValue().isPresent() ? visit(ast.getValue().get()) : Environment.NIL;
+        Environment.Variable variable = scope.defineVariable(ast.getName(), ast.getName(), Environment.Type.ANY, ast.getMutable(), value);
+        if (frame != null && ast.getSlot() >= 0) {
+            frame.slots[ast.getSlot()] = variable;
         }
         return Environment.NIL;
     }
@@ -66,20 +87,35 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Function ast) {
         Scope oldScope = scope;
+        Frame definitionFrame = frame;
+        boolean resolved = ast.getFrameSize() >= 0 && definitionFrame != null;
         scope.defineFunction(ast.getName(), ast.getParameters().size(), args -> {
-            scope = new Scope(oldScope);
+            Scope callerScope = scope;
+            Frame callerFrame = frame;
+            if (resolved) {
+                scope = oldScope;
+                frame = new Frame(definitionFrame, ast.getFrameSize());
+            } else {
+                scope = new Scope(oldScope);
+                frame = null;
+            }
 
             try {
                 for (int i = 0; i < ast.getParameters().size(); i++) {
-                    scope.defineVariable(ast.getParameters().get(i), true, args.get(i));
+                    if (resolved) {
+                        frame.slots[i] = new Environment.Variable(ast.getParameters().get(i), true, args.get(i));
+                    } else {
+                        scope.defineVariable(ast.getParameters().get(i), true, args.get(i));
+                    }
                 }
-                ast.getStatements().forEach(this::visit);
-            } catch (Return returnValue) {
-                return returnValue.value;
+                execute(ast.getStatements());
             } finally {
-                scope = scope.getParent();
+                scope = callerScope;
+                frame = callerFrame;
             }
-            return Environment.NIL;
+            Environment.PlcObject result = returnValue != null ? returnValue : Environment.NIL;
+            returnValue = null;
+            return result;
         });
         return Environment.NIL;
     }
@@ -96,11 +132,18 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         //Optional<Ast.Expression> op1 = ast.getValue();
         //Boolean present = optional.isPresent();
 
+        Environment.PlcObject value = Environment.NIL;
         if (ast.getValue().isPresent()){
             Ast.Expression expr = ast.getValue().get();
-            scope.defineVariable(ast.getName(), true, visit(expr));
+            value = visit(expr);
+        }
+        if (frame != null && ast.getSlot() >= 0) {
+            if (frame.slots[ast.getSlot()] != null) {
+                throw new RuntimeException("The variable " + ast.getName() + " is already defined in this scope.");
+            }
+            frame.slots[ast.getSlot()] = new Environment.Variable(ast.getName(), true, value);
         } else {
-            scope.defineVariable(ast.getName(), true, Environment.NIL);
+            scope.defineVariable(ast.getName(), true, value);
         }
         return Environment.NIL;
     }
@@ -114,7 +157,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
             Ast.Expression.Access access = (Ast.Expression.Access) ast.getReceiver();
             String variableName = access.getName();
 
-            Environment.Variable variable = scope.lookupVariable(variableName);
+            Environment.Variable variable = lookupVariable(access);
 
             if (!variable.getMutable()) {
                 throw new RuntimeException("Cannot assign to immutable variable: " + variableName);
@@ -122,19 +165,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
             if (variable.getValue().getValue() instanceof List && access.getOffset().isPresent()) {
                 List<Object> list = requireType(List.class, variable.getValue());
-                Object offsetObject = visit(access.getOffset().get()).getValue();
-                int offset;
-                if (offsetObject instanceof Integer) {
-                    offset = (int) offsetObject;
-                } else if (offsetObject instanceof BigInteger) {
-                    offset = ((BigInteger) offsetObject).intValueExact();
-                } else {
-                    throw new RuntimeException("Index expression must evaluate to an Integer or a BigInteger");
-                }
-                if (offset < 0 || offset >= list.size()) {
-                    throw new IndexOutOfBoundsException("Index out of bounds: " + offset);
-                }
-                list.set(offset, value.getValue());
+                Operations.set(list, visit(access.getOffset().get()), value.getValue());
                 variable.setValue(Environment.create(list));
             } else {
                 variable.setValue(value);
@@ -156,9 +187,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
         List<Ast.Statement> branch = ((boolean) conditionValue.getValue()) ? ast.getThenStatements() : ast.getElseStatements();
 
-        for (Ast.Statement statement : branch) {
-            visit(statement);
-        }
+        execute(branch);
 
         return Environment.NIL;
     }
@@ -174,16 +203,12 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
                 Environment.PlcObject caseValue = visit(switchCase.getValue().get());
                 if (caseValue.getValue().equals(conditionValue.getValue())) {
 
-                    for (Ast.Statement statement : switchCase.getStatements()) {
-                        visit(statement);
-                    }
+                    execute(switchCase.getStatements());
                     caseMatched = true;
                     break;
                 }
             } else {
-                for (Ast.Statement statement : switchCase.getStatements()) {
-                    visit(statement);
-                }
+                execute(switchCase.getStatements());
                 caseMatched = true;
                 break;
             }
@@ -192,9 +217,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         if (!caseMatched) {
             for (Ast.Statement.Case switchCase : ast.getCases()) {
                 if (!switchCase.getValue().isPresent()) {
-                    for (Ast.Statement statement : switchCase.getStatements()) {
-                        visit(statement);
-                    }
+                    execute(switchCase.getStatements());
                     break;
                 }
             }
@@ -211,247 +234,232 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Statement.While ast) {
         //throw new UnsupportedOperationException(); //TODO (in lecture)
+        if (frame != null && ast.getFirstSlot() >= 0) {
+            // The body's slots are cleared instead of creating a new scope.
+            while (requireType(Boolean.class, visit(ast.getCondition()))) {
+                Arrays.fill(frame.slots, ast.getFirstSlot(), ast.getLastSlot(), null);
+                execute(ast.getStatements());
+                if (returnValue != null) {
+                    break;
+                }
+            }
+            return Environment.NIL;
+        }
         while (requireType(Boolean.class, visit(ast.getCondition()))) {
             try{
                 scope = new Scope(scope);
-                ast.getStatements().forEach(this::visit);
+                execute(ast.getStatements());
             } finally {
                 scope = scope.getParent();
             }
+            if (returnValue != null) {
+                break;
+            }
         }
         return Environment.NIL;
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Statement.Return ast) {
-        Environment.PlcObject value = visit(ast.getValue());
-        throw new Return(value);
+        returnValue = visit(ast.getValue());
+        return Environment.NIL;
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Expression.Literal ast) {
-        if (ast.getLiteral() == null){
+        return value(ast.getLiteral());
+    }
+
+    /**
+     * Returns the value of a literal.
+     */
+    static Environment.PlcObject value(Object literal) {
+        if (literal == null){
             return Environment.NIL;
         }
-        return Environment.create(ast.getLiteral());
+        if (literal instanceof BigInteger && ((BigInteger) literal).bitLength() < Long.SIZE) {
+            return Environment.createInteger(((BigInteger) literal).longValue());
+        }
+        return Environment.create(literal);
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Expression.Group ast) {
         // Visit the grouped expression and return its value
-        return visit(ast.getExpression());
+        Ast.Expression expression = ast.getExpression();
+        while (expression instanceof Ast.Expression.Group) {
+            expression = ((Ast.Expression.Group) expression).getExpression();
+        }
+        return visit(expression);
     }
 
+    /**
+     * Evaluates nested binary expressions and groups with an explicit stack of
+     * pending work rather than recursion, so the depth of the expression isn't
+     * limited by the Java stack. As before, the right operand is evaluated
+     * before the left except for the logical operators, which evaluate the
+     * left operand first and only evaluate the right if needed. An expression
+     * whose operands are neither binary expressions nor groups, which is most
+     * of them, is evaluated directly.
+     */
     @Override
     public Environment.PlcObject visit(Ast.Expression.Binary ast) {
-        String operator = ast.getOperator();
-        if(operator.equals(">") || operator.equals("<")){
-            // Get left and right values
+        if (!isNested(ast.getLeft()) && !isNested(ast.getRight())) {
+            if (isLogical(ast)) {
+                Environment.PlcObject leftValue = visit(ast.getLeft());
+                return logical(ast, leftValue, decides(ast, leftValue) ? null : visit(ast.getRight()));
+            }
             Environment.PlcObject rightValue = visit(ast.getRight());
-            Environment.PlcObject leftValue = visit(ast.getLeft());
-
-            // Check if both are comparable
-            requireType(leftValue.getValue().getClass(), rightValue);
-            requireType(Comparable.class, rightValue);
-            requireType(Comparable.class, leftValue);
-
-            // Set as comparable objects
-            Comparable<Object> right = (Comparable<Object>) rightValue.getValue();
-            Comparable<Object> left = (Comparable<Object>) leftValue.getValue();
-
-            // Compare the values
-            int result = left.compareTo(right);
-
-            // Return the result
-            if(operator.equals(">")){
-                if (result > 0){
-                    return Environment.create(true);
+            return apply(ast, visit(ast.getLeft()), rightValue);
+        }
+        List<Object> work = new ArrayList<>();
+        List<Environment.PlcObject> values = new ArrayList<>();
+        work.add(ast);
+        while (!work.isEmpty()) {
+            Object next = work.remove(work.size() - 1);
+            if (next instanceof Step) {
+                Step step = (Step) next;
+                Environment.PlcObject value = values.remove(values.size() - 1);
+                if (!step.logical) {
+                    values.add(apply(step.binary, value, values.remove(values.size() - 1)));
+                } else if (step.left != null) {
+                    values.add(logical(step.binary, step.left, value));
+                } else if (decides(step.binary, value)) {
+                    values.add(logical(step.binary, value, null));
                 } else {
-                    return Environment.create(false);
+                    work.add(new Step(step.binary, value));
+                    work.add(step.binary.getRight());
                 }
-            } else {
-                if (result < 0){
-                    return Environment.create(true);
+            } else if (next instanceof Ast.Expression.Binary) {
+                Ast.Expression.Binary binary = (Ast.Expression.Binary) next;
+                if (isLogical(binary)) {
+                    work.add(new Step(binary, null));
+                    work.add(binary.getLeft());
                 } else {
-                    return Environment.create(false);
+                    work.add(new Step(binary));
+                    work.add(binary.getLeft());
+                    work.add(binary.getRight());
                 }
-            }
-
-        } else if (operator.equals("+")) {
-            Environment.PlcObject rightValue = visit(ast.getRight());
-            Environment.PlcObject leftValue = visit(ast.getLeft());
-
-            if (rightValue.getValue().getClass() == String.class || leftValue.getValue().getClass() == String.class){
-                return Environment.create(leftValue.getValue().toString() + rightValue.getValue().toString());
-            } else if (rightValue.getValue().getClass() == BigDecimal.class){
-                requireType(BigDecimal.class, leftValue);
-                return Environment.create(((BigDecimal) leftValue.getValue()).add((BigDecimal) rightValue.getValue()));
-            } else if (rightValue.getValue().getClass() == BigInteger.class){
-                requireType(BigInteger.class, leftValue);
-                return Environment.create(((BigInteger) leftValue.getValue()).add((BigInteger) rightValue.getValue()));
+            } else if (next instanceof Ast.Expression.Group) {
+                work.add(((Ast.Expression.Group) next).getExpression());
             } else {
-                throw new RuntimeException("Unsupported operand types for operator +");
+                values.add(visit((Ast.Expression) next));
             }
-        } else if (operator.equals("^")) {
-            Environment.PlcObject rightValue = visit(ast.getRight());
-            Environment.PlcObject leftValue = visit(ast.getLeft());
+        }
+        return values.get(0);
+    }
 
-            requireType(BigInteger.class, rightValue);
+    private static boolean isNested(Ast.Expression ast) {
+        return ast instanceof Ast.Expression.Binary || ast instanceof Ast.Expression.Group;
+    }
 
-            if (leftValue.getValue().getClass() == BigDecimal.class){
-                return Environment.create(((BigDecimal) leftValue.getValue()).pow(((BigInteger) rightValue.getValue()).intValue(), MathContext.DECIMAL64));
-            } else if (leftValue.getValue().getClass() == BigInteger.class){
-                return Environment.create(((BigInteger) leftValue.getValue()).pow(((BigInteger) rightValue.getValue()).intValue()));
-            } else {
-                throw new RuntimeException("Unsupported operand types for operator ^");
-            }
-        } else if (operator.equals("-")) {
-            Environment.PlcObject rightValue = visit(ast.getRight());
-            Environment.PlcObject leftValue = visit(ast.getLeft());
-
-            if (rightValue.getValue().getClass() == BigDecimal.class){
-                requireType(BigDecimal.class, leftValue);
-                return Environment.create(((BigDecimal) leftValue.getValue()).subtract((BigDecimal) rightValue.getValue()));
-            } else if (rightValue.getValue().getClass() == BigInteger.class){
-                requireType(BigInteger.class, leftValue);
-                return Environment.create(((BigInteger) leftValue.getValue()).subtract((BigInteger) rightValue.getValue()));
-            } else {
-                throw new RuntimeException("Unsupported operand types for operator -");
-            }
-        } else if (operator.equals("*")) {
-            Environment.PlcObject rightValue = visit(ast.getRight());
-            Environment.PlcObject leftValue = visit(ast.getLeft());
-
-            if (rightValue.getValue().getClass() == BigDecimal.class){
-                requireType(BigDecimal.class, leftValue);
-                return Environment.create(((BigDecimal) leftValue.getValue()).multiply((BigDecimal) rightValue.getValue()));
-            } else if (rightValue.getValue().getClass() == BigInteger.class){
-                requireType(BigInteger.class, leftValue);
-                return Environment.create(((BigInteger) leftValue.getValue()).multiply((BigInteger) rightValue.getValue()));
-            } else {
-                throw new RuntimeException("Unsupported operand types for operator *");
-            }
-        } else if (operator.equals("/")) {
-            Environment.PlcObject rightValue = visit(ast.getRight());
-            Environment.PlcObject leftValue = visit(ast.getLeft());
+    private static boolean isLogical(Ast.Expression.Binary ast) {
+        if (ast.getOpcode() != null) {
+            return ast.getOpcode().isLogical();
+        }
+        return ast.getOperator().equals("&&") || ast.getOperator().equals("||");
+    }
 
-            if (rightValue.getValue().equals(BigDecimal.ZERO) || rightValue.getValue().equals(BigInteger.ZERO)){
-                throw new RuntimeException("Division by zero");
-            }
+    /**
+     * Returns whether the left value of a logical expression decides its
+     * result, so the right operand isn't evaluated.
+     */
+    private static boolean decides(Ast.Expression.Binary ast, Environment.PlcObject leftValue) {
+        requireType(Boolean.class, leftValue);
+        boolean or = ast.getOpcode() != null ? ast.getOpcode() == Opcode.BOOL_OR : ast.getOperator().equals("||");
+        return leftValue.getValue().equals(or);
+    }
 
-            if(rightValue.getValue().getClass() == BigDecimal.class){
-                requireType(BigDecimal.class, leftValue);
-                return Environment.create(((BigDecimal) leftValue.getValue()).divide((BigDecimal) rightValue.getValue(), RoundingMode.HALF_EVEN));
-            } else if (rightValue.getValue().getClass() == BigInteger.class){
-                requireType(BigInteger.class, leftValue);
-                return Environment.create(((BigInteger) leftValue.getValue()).divide((BigInteger) rightValue.getValue()));
-            } else {
-                throw new RuntimeException("Unsupported operand types for operator /");
+    /**
+     * Returns the result of a logical expression, given a null right value if
+     * the left value decides it.
+     */
+    private static Environment.PlcObject logical(Ast.Expression.Binary ast, Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (rightValue == null) {
+            return Environment.create((boolean) leftValue.getValue());
+        }
+        requireType(Boolean.class, rightValue);
+        return Environment.create((boolean) rightValue.getValue());
+    }
 
-            }
-        } else if (operator.equals("==") || operator.equals("!=")) {
-            Environment.PlcObject rightValue = visit(ast.getRight());
-            Environment.PlcObject leftValue = visit(ast.getLeft());
+    /**
+     * Applies a non-logical binary expression to its evaluated operands,
+     * switching on its opcode if it has been analyzed.
+     */
+    private static Environment.PlcObject apply(Ast.Expression.Binary ast, Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (ast.getOpcode() == null) {
+            return apply(ast.getOperator(), leftValue, rightValue);
+        }
+        switch (ast.getOpcode()) {
+            case INT_ADD:
+                return Operations.addIntegers(leftValue, rightValue);
+            case INT_SUB:
+                return Operations.subtractIntegers(leftValue, rightValue);
+            case INT_MUL:
+                return Operations.multiplyIntegers(leftValue, rightValue);
+            case INT_DIV:
+                return Operations.divideIntegers(leftValue, rightValue);
+            case INT_POW:
+                return Operations.powerIntegers(leftValue, rightValue);
+            case DEC_ADD:
+                return Operations.addDecimals(leftValue, rightValue);
+            case DEC_SUB:
+                return Operations.subtractDecimals(leftValue, rightValue);
+            case DEC_MUL:
+                return Operations.multiplyDecimals(leftValue, rightValue);
+            case DEC_DIV:
+                return Operations.divideDecimals(leftValue, rightValue);
+            case DEC_POW:
+                // The exponent is a Decimal, which power rejects
+                return Operations.power(leftValue, rightValue);
+            case STR_CONCAT:
+                return Operations.concatenate(leftValue, rightValue);
+            case CMP_EQ_INT:
+                return Environment.create(Operations.compareIntegers(leftValue, rightValue) == 0);
+            case CMP_NE_INT:
+                return Environment.create(Operations.compareIntegers(leftValue, rightValue) != 0);
+            case CMP_LT_INT:
+                return Environment.create(Operations.compareIntegers(leftValue, rightValue) < 0);
+            case CMP_GT_INT:
+                return Environment.create(Operations.compareIntegers(leftValue, rightValue) > 0);
+            case CMP_EQ:
+                return Operations.equal(leftValue, rightValue);
+            case CMP_NE:
+                return Operations.notEqual(leftValue, rightValue);
+            case CMP_LT:
+                return Operations.lessThan(leftValue, rightValue);
+            case CMP_GT:
+                return Operations.greaterThan(leftValue, rightValue);
+            default:
+                throw new AssertionError("Logical opcode " + ast.getOpcode() + " applied eagerly.");
+        }
+    }
 
-            if (operator.equals("==")){
-                return Environment.create(leftValue.getValue().equals(rightValue.getValue()));
-            } else {
-                return Environment.create(!leftValue.getValue().equals(rightValue.getValue()));
-            }
-        } else if (operator.equals("&&") || operator.equals("||")) {
-            Environment.PlcObject leftValue = visit(ast.getLeft());
-            requireType(Boolean.class, leftValue);
-
-            if(leftValue.getValue().equals(true) && operator.equals("||")){
-                return Environment.create(true);
-            } else if(leftValue.getValue().equals(false) && operator.equals("&&")){
-                return Environment.create(false);
-            } else{
-                Environment.PlcObject rightValue = visit(ast.getRight());
-                requireType(Boolean.class, rightValue);
-                if (operator.equals("&&")){
-                    return Environment.create((boolean) leftValue.getValue() && (boolean) rightValue.getValue());
-                } else {
-                    return Environment.create((boolean) leftValue.getValue() || (boolean) rightValue.getValue());
-                }
-            }
+    /**
+     * Applies a non-logical binary operator to evaluated operands.
+     */
+    static Environment.PlcObject apply(String operator, Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (operator.equals(">")) {
+            return Operations.greaterThan(leftValue, rightValue);
+        } else if (operator.equals("<")) {
+            return Operations.lessThan(leftValue, rightValue);
+        } else if (operator.equals("+")) {
+            return Operations.add(leftValue, rightValue);
+        } else if (operator.equals("^")) {
+            return Operations.power(leftValue, rightValue);
+        } else if (operator.equals("-")) {
+            return Operations.subtract(leftValue, rightValue);
+        } else if (operator.equals("*")) {
+            return Operations.multiply(leftValue, rightValue);
+        } else if (operator.equals("/")) {
+            return Operations.divide(leftValue, rightValue);
+        } else if (operator.equals("==")) {
+            return Operations.equal(leftValue, rightValue);
+        } else if (operator.equals("!=")) {
+            return Operations.notEqual(leftValue, rightValue);
         } else {
             throw new RuntimeException("Unsupported binary expression");
         }
-        /*Environment.PlcObject leftValue = visit(ast.getLeft());
-
-        if (ast.getOperator().equals("||") && (boolean) leftValue.getValue()) {
-            return leftValue;
-        }
-
-        Environment.PlcObject rightValue = visit(ast.getRight());
-
-        switch (ast.getOperator()) {
-            case "+":
-                if (leftValue.getValue() instanceof BigInteger && rightValue.getValue() instanceof BigInteger) {
-                    return Environment.create(((BigInteger) leftValue.getValue()).add((BigInteger) rightValue.getValue()));
-                } else if (leftValue.getValue() instanceof String && rightValue.getValue() instanceof String) {
-                    return Environment.create((String) leftValue.getValue() + (String) rightValue.getValue());
-                } else if (leftValue.getValue() instanceof BigDecimal && rightValue.getValue() instanceof BigDecimal) {
-                    return Environment.create(((BigDecimal) leftValue.getValue()).add((BigDecimal) rightValue.getValue()));
-                } else {
-                    throw new UnsupportedOperationException("Unsupported operand types for operator +");
-                }
-            case "-":
-                if (leftValue.getValue() instanceof BigInteger && rightValue.getValue() instanceof BigInteger) {
-                    return Environment.create(((BigInteger) leftValue.getValue()).subtract((BigInteger) rightValue.getValue()));
-                } else {
-                    throw new UnsupportedOperationException("Unsupported operand types for operator -");
-                }
-            case "*":
-                if (leftValue.getValue() instanceof BigInteger && rightValue.getValue() instanceof BigInteger) {
-                    return Environment.create(((BigInteger) leftValue.getValue()).multiply((BigInteger) rightValue.getValue()));
-                } else {
-                    throw new UnsupportedOperationException("Unsupported operand types for operator *");
-                }
-            case "/":
-                if (leftValue.getValue() instanceof BigDecimal && rightValue.getValue() instanceof BigDecimal) {
-                    BigDecimal left = (BigDecimal) leftValue.getValue();
-                    BigDecimal right = (BigDecimal) rightValue.getValue();
-                    return Environment.create(left.divide(right, MathContext.DECIMAL64).setScale(1, BigDecimal.ROUND_HALF_UP));
-                } else {
-                    throw new UnsupportedOperationException("Unsupported operand types for operator /");
-                }
-            case "<":
-                if (leftValue.getValue() instanceof BigInteger && rightValue.getValue() instanceof BigInteger) {
-                    return Environment.create(((BigInteger) leftValue.getValue()).compareTo((BigInteger) rightValue.getValue()) < 0);
-                } else {
-                    throw new UnsupportedOperationException("Unsupported operand types for operator <");
-                }
-            case "==":
-                return Environment.create(leftValue.getValue().equals(rightValue.getValue()));
-            case "&&":
-                return Environment.create((boolean) leftValue.getValue() && (boolean) rightValue.getValue());
-            case "||":
-                return Environment.create((boolean) leftValue.getValue() || (boolean) rightValue.getValue());
-            case "=":
-                // Assignment operation for list
-                if (ast.getLeft() instanceof Ast.Expression.Access) {
-                    Ast.Expression.Access access = (Ast.Expression.Access) ast.getLeft();
-                    Environment.Variable variable = scope.lookupVariable(access.getName());
-                    List<Object> list = requireType(List.class, variable.getValue());
-
-                    if (access.getOffset().isPresent()) {
-                        int offset = requireType(Integer.class, visit(access.getOffset().get()));
-                        if (offset < 0 || offset >= list.size()) {
-                            throw new IndexOutOfBoundsException("Index out of bounds: " + offset);
-                        }
-                        list.set(offset, rightValue.getValue());
-                    } else {
-                        throw new UnsupportedOperationException("List assignment requires an index.");
-                    }
-                    return Environment.NIL;
-                } else {
-                    throw new UnsupportedOperationException("Unsupported assignment target: " + ast.getLeft());
-                }
-            default:
-                throw new UnsupportedOperationException("Unsupported binary operator: " + ast.getOperator());
-        }*/
     }
 
     @Override
@@ -460,36 +468,13 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         Optional<Ast.Expression> indexExpression = ast.getOffset();
 
         // Resolve the variable
-        Environment.Variable variable = scope.lookupVariable(variableName);
+        Environment.Variable variable = lookupVariable(ast);
 
         // If the variable value is a list and an index is specified
         if (variable.getValue().getValue() instanceof List && indexExpression.isPresent()) {
             // Evaluate the index expression
             Environment.PlcObject indexValue = visit(indexExpression.get());
-            // Check if the index value is an Integer or a BigInteger
-            if (indexValue.getValue() instanceof Integer) {
-                int index = (int) indexValue.getValue();
-                List<Object> list = (List<Object>) variable.getValue().getValue();
-                // Check if the index is within bounds
-                if (index >= 0 && index < list.size()) {
-                    // Return the value at the specified index in the list
-                    return new Environment.PlcObject(null, list.get(index));
-                } else {
-                    throw new RuntimeException("Index out of bounds for list variable: " + variableName);
-                }
-            } else if (indexValue.getValue() instanceof BigInteger) {
-                BigInteger index = (BigInteger) indexValue.getValue();
-                List<Object> list = (List<Object>) variable.getValue().getValue();
-                // Check if the index is within bounds
-                if (index.compareTo(BigInteger.ZERO) >= 0 && index.compareTo(BigInteger.valueOf(list.size())) < 0) {
-                    // Return the value at the specified index in the list
-                    return new Environment.PlcObject(null, list.get(index.intValue()));
-                } else {
-                    throw new RuntimeException("Index out of bounds for list variable: " + variableName);
-                }
-            } else {
-                throw new RuntimeException("Index expression must evaluate to an Integer or a BigInteger");
-            }
+            return Operations.get(variableName, (List<Object>) variable.getValue().getValue(), indexValue);
         } else {
             // Return the variable value if no index is specified or if the variable is not a list
             return variable.getValue();
@@ -500,7 +485,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Expression.Function ast) {
 
-        Environment.Function function = scope.lookupFunction(ast.getName(), ast.getArguments().size());
+        Environment.Function function = scope.lookupFunction(ast.getName(), ast.getArguments().size(), ast.getBinding());
 
         List<Environment.PlcObject> arguments = ast.getArguments().stream()
                 .map(this::visit)
@@ -523,26 +508,82 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         return Environment.create(list);
     }
 
+    /**
+     * Returns the variable at the resolved slot of the access, falling back to
+     * the scopes if it is unresolved or the declaration has not run, such as
+     * one in an {@code IF} branch that was not taken.
+     */
+    private Environment.Variable lookupVariable(Ast.Expression.Access ast) {
+        if (frame != null && ast.getSlot() >= 0) {
+            Frame target = frame;
+            for (int i = 0; i < ast.getDepth(); i++) {
+                target = target.parent;
+            }
+            Environment.Variable variable = target.slots[ast.getSlot()];
+            if (variable != null) {
+                return variable;
+            }
+        }
+        return scope.lookupVariable(ast.getName());
+    }
+
+    /**
+     * Executes the statements in order, stopping once a {@code RETURN} has
+     * been executed so it can propagate to the invoked function.
+     */
+    private void execute(List<Ast.Statement> statements) {
+        for (Ast.Statement statement : statements) {
+            visit(statement);
+            if (returnValue != null) {
+                return;
+            }
+        }
+    }
+
     /**
      * Helper function to ensure an object is of the appropriate type.
      */
     private static <T> T requireType(Class<T> type, Environment.PlcObject object) {
-        if (type.isInstance(object.getValue())) {
-            return type.cast(object.getValue());
-        } else {
-            throw new RuntimeException("Expected type " + type.getName() + ", received " + object.getValue().getClass().getName() + ".");
+        return Operations.requireType(type, object);
+    }
+
+    /**
+     * The variables of a resolved function invocation or of the globals,
+     * indexed by the slots assigned by the {@link Resolver}.
+     */
+    private static final class Frame {
+
+        private final Frame parent;
+        private final Environment.Variable[] slots;
+
+        private Frame(Frame parent, int size) {
+            this.parent = parent;
+            this.slots = new Environment.Variable[size];
         }
+
     }
 
     /**
-     * Exception class for returning values.
+     * A binary expression on the work stack of {@link #visit(Ast.Expression.Binary)}
+     * whose operands are being evaluated. A logical step holds its left value
+     * once that has been evaluated and the right operand is needed.
      */
-    private static class Return extends RuntimeException {
+    private static final class Step {
 
-        private final Environment.PlcObject value;
+        private final Ast.Expression.Binary binary;
+        private final boolean logical;
+        private final Environment.PlcObject left;
+
+        private Step(Ast.Expression.Binary binary) {
+            this.binary = binary;
+            this.logical = false;
+            this.left = null;
+        }
 
-        private Return(Environment.PlcObject value) {
-            this.value = value;
+        private Step(Ast.Expression.Binary binary, Environment.PlcObject left) {
+            this.binary = binary;
+            this.logical = true;
+            this.left = left;
         }
 
     }
@@ -1,7 +1,16 @@
 package plc.project;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 // Cameron Change
 
@@ -17,34 +26,152 @@ import java.util.List;
  * should throw a {@link ParseException} with an index at the character which is
  * invalid.
  *
- * The {@link #peek(String...)} and {@link #match(String...)} functions are * helpers you need to use, they will make the implementation a lot easier. */
+ * Characters are classified through the precomputed {@link #CLASSES} table
+ * rather than regular expressions, so scanning never allocates per character.
+ * The regex based {@link #peek(String...)} and {@link #match(String...)}
+ * helpers are kept for callers outside of the scanner.
+ */
 public final class Lexer {
 
+    /**
+     * Character classes, one bit each, mirroring the regex patterns the lexer
+     * was originally written with.
+     */
+    private static final int WHITESPACE = 1;        // [ \b\n\r\t]
+    private static final int IDENTIFIER_START = 2;  // [A-Za-z@]
+    private static final int IDENTIFIER_PART = 4;   // [A-Za-z0-9_-]
+    private static final int DIGIT = 8;             // [0-9]
+    private static final int NONZERO_DIGIT = 16;    // [1-9]
+    private static final int ESCAPE = 32;           // [bnrt"'\\]
+    private static final int CHARACTER_BODY = 64;   // [^'\n\r]
+    private static final int STRING_BODY = 128;     // [^"\n\r\\]
+    private static final int COMPARISON = 256;      // [<>!=]
+    private static final int ANY = 512;             // . (any except line terminators)
+
+    private static final int[] CLASSES = new int[128];
+
+    static {
+        for (char c = 0; c < CLASSES.length; c++) {
+            int classes = 0;
+            if (c == ' ' || c == '\b' || c == '\n' || c == '\r' || c == '\t') {
+                classes |= WHITESPACE;
+            }
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '@') {
+                classes |= IDENTIFIER_START;
+            }
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_' || c == '-') {
+                classes |= IDENTIFIER_PART;
+            }
+            if (c >= '0' && c <= '9') {
+                classes |= DIGIT;
+            }
+            if (c >= '1' && c <= '9') {
+                classes |= NONZERO_DIGIT;
+            }
+            if ("bnrt\"'\\".indexOf(c) != -1) {
+                classes |= ESCAPE;
+            }
+            if (c != '\'' && c != '\n' && c != '\r') {
+                classes |= CHARACTER_BODY;
+            }
+            if (c != '"' && c != '\n' && c != '\r' && c != '\\') {
+                classes |= STRING_BODY;
+            }
+            if ("<>!=".indexOf(c) != -1) {
+                classes |= COMPARISON;
+            }
+            if (c != '\n' && c != '\r') {
+                classes |= ANY;
+            }
+            CLASSES[c] = classes;
+        }
+    }
+
     private final CharStream chars;
 
     public Lexer(String input) {
         chars = new CharStream(input);
     }
 
+    /**
+     * Creates a lexer which reads its input incrementally from the reader,
+     * for use with {@link #tokens()}.
+     */
+    public Lexer(Reader reader) {
+        chars = new CharStream(reader);
+    }
+
+    /**
+     * Creates a lexer which decodes its input incrementally from the channel
+     * as UTF-8, for use with {@link #tokens()}.
+     */
+    public Lexer(ReadableByteChannel channel) {
+        this(Channels.newReader(channel, StandardCharsets.UTF_8));
+    }
+
+    Lexer(Reader reader, int capacity) {
+        chars = new CharStream(reader, capacity);
+    }
+
     /**
      * Repeatedly lexes the input using {@link #lexToken()}, also skipping over
-     * whitespace where appropriate.
+     * whitespace where appropriate. String input is collected into a {@link
+     * TokenBuffer}, which stores only the offsets of each token.
      */
     public List<Token> lex() {
-        List<Token> tokens = new ArrayList<>();
-
-        while(chars.has(0)){
-            // Whitespace
-            if(peek("[ \b\n\r\t]")){
-                match("[ \b\n\r\t]");
-                chars.skip();
-            }else {
+        if (chars.input == null) {
+            List<Token> tokens = new ArrayList<>();
+            while (skipWhitespace()) {
                 tokens.add(lexToken());
             }
+            return tokens;
+        }
+        TokenBuffer tokens = new TokenBuffer(chars.input);
+        chars.sink = tokens;
+        try {
+            while (skipWhitespace()) {
+                lexToken();
+            }
+        } finally {
+            chars.sink = null;
         }
         return tokens;
     }
 
+    /**
+     * Returns an iterator which lexes one token per call to {@code next()},
+     * so tokens can be consumed while the input is still being read. Any
+     * {@link ParseException} is thrown from {@code next()}.
+     */
+    public Iterator<Token> tokens() {
+        return new Iterator<Token>() {
+
+            @Override
+            public boolean hasNext() {
+                return skipWhitespace();
+            }
+
+            @Override
+            public Token next() {
+                if (!skipWhitespace()) {
+                    throw new NoSuchElementException();
+                }
+                return lexToken();
+            }
+
+        };
+    }
+
+    /**
+     * Skips over whitespace, returning true if there is another token.
+     */
+    private boolean skipWhitespace() {
+        while (matchClass(WHITESPACE)) {
+            chars.skip();
+        }
+        return chars.has(0);
+    }
+
     /**
      * This method determines the type of the next token, delegating to the
      * appropriate lex method. As such, it is best for this method to not change
@@ -54,13 +181,13 @@ public final class Lexer {
      * by {@link #lex()}
      */
     public Token lexToken() {
-        if (peek("[A-Za-z@]")){
+        if (isClass(0, IDENTIFIER_START)){
             return lexIdentifier();
-        } else if (peek("-?|[0-9]")){
+        } else if (isChar(0, '-') || isClass(0, DIGIT)){
             return lexNumber();
-        } else if (peek("'")) {
+        } else if (isChar(0, '\'')) {
             return lexCharacter();
-        } else if (peek("\"")) {
+        } else if (isChar(0, '"')) {
             return lexString();
         }
         else {
@@ -69,59 +196,37 @@ public final class Lexer {
     }
 
     public Token lexIdentifier() {
-        match("[A-Za-z@]");
+        matchClass(IDENTIFIER_START);
 
-        while(match("[A-Za-z0-9_-]")){}
-        return chars.emit(Token.Type.IDENTIFIER); //TODO
+        while(matchClass(IDENTIFIER_PART)){}
+        return chars.emit(Token.Type.IDENTIFIER);
     }
 
     public Token lexNumber() {
-        if (match("-")) {
-            if(peek("0")){
-                match("0");
-                if (!peek("\\.")) {
+        if (matchChar('-')) {
+            if(matchChar('0')){
+                if (!matchChar('.')) {
                     throw new ParseException("Invalid Decimal", chars.index);
                 } else {
-                    match("\\.");
-                    if (!match("[0-9]")) {
-                        throw new ParseException("Invalid Decimal", chars.index);
-                    }
-                    while (match("[0-9]")) {
-                    }
-                    //if previous character is zero, then it is invalid
-                    if (chars.get(-1) == '0' && chars.get(-2) != '.'){
-                        throw new ParseException("Invalid Decimal", chars.index);
-                    }
-                    return chars.emit(Token.Type.DECIMAL);
+                    return lexFraction();
                 }
             }
         }
 
-        if (match("0")) {
-            if (peek("\\.")) {
-                match("\\.");
-                if (!match("[0-9]")) {
-                    throw new ParseException("Invalid Decimal", chars.index);
-                }
-                while (match("[0-9]")) {
-                }
-                // if previous character is zero, then it is invalid
-                if (chars.get(-1) == '0' && chars.get(-2) != '.'){
-                    throw new ParseException("Invalid Decimal", chars.index);
-                }
-                return chars.emit(Token.Type.DECIMAL);
-            } else if (peek("[0-9]")){
+        if (matchChar('0')) {
+            if (matchChar('.')) {
+                return lexFraction();
+            } else if (isClass(0, DIGIT)){
                 throw new ParseException("Invalid Number", chars.index);
             }
         }
         // match negative sign
-        match("-");
-        match("[1-9]");
-        while(match("[0-9]")){}
-        if(peek("\\.", "[0-9]")){
-            match("\\.");
-            match("[0-9]");
-            while(match("[0-9]")){}
+        matchChar('-');
+        matchClass(NONZERO_DIGIT);
+        while(matchClass(DIGIT)){}
+        if(isChar(0, '.') && isClass(1, DIGIT)){
+            matchChar('.');
+            while(matchClass(DIGIT)){}
             if (chars.get(-1) == '0' && chars.get(-2) != '.') {
                 throw new ParseException("Invalid Decimal", chars.index);
             }
@@ -131,21 +236,36 @@ public final class Lexer {
         }
     }
 
+    /**
+     * Lexes the digits following the decimal point of a number starting with
+     * {@code 0.} or {@code -0.}, which must be present and cannot end in a
+     * trailing zero.
+     */
+    private Token lexFraction() {
+        if (!matchClass(DIGIT)) {
+            throw new ParseException("Invalid Decimal", chars.index);
+        }
+        while (matchClass(DIGIT)) {
+        }
+        //if previous character is zero, then it is invalid
+        if (chars.get(-1) == '0' && chars.get(-2) != '.'){
+            throw new ParseException("Invalid Decimal", chars.index);
+        }
+        return chars.emit(Token.Type.DECIMAL);
+    }
+
     public Token lexCharacter() {
-        if(match("'")) {
-            if (peek("'")) {
+        if(matchChar('\'')) {
+            if (isChar(0, '\'')) {
                 throw new ParseException("Invalid Character", chars.index);
             }
             // Checks for escape character
-            if (peek("\\\\") || peek("([^'\\n\\r])")) {
-                if (peek("\\\\")) {
-                    lexEscape();
-                } else {
-                    match("[^'\\n\\r]");
-                }
+            if (isChar(0, '\\')) {
+                lexEscape();
+            } else {
+                matchClass(CHARACTER_BODY);
             }
-            if (peek("'")) {
-                match("'");
+            if (matchChar('\'')) {
                 return chars.emit(Token.Type.CHARACTER);
             } else {
                 throw new ParseException("Invalid Character", chars.index);
@@ -157,57 +277,97 @@ public final class Lexer {
     }
 
     public Token lexString() {
-        match("\"");
-        while(peek("\\\\", "[bnrt'\\\"\\\\]") || peek("[^\\\"\\n\\r\\\\]")){
-            if(peek("\\\\", "[bnrt'\\\"\\\\]")){
+        matchChar('"');
+        while(true){
+            if(isChar(0, '\\') && isClass(1, ESCAPE)){
                 lexEscape();
-            } else if (peek("[^\\\"\\n\\r\\\\]")) {
-                match("[^\\\"\\n\\r\\\\]");
+            } else if (!matchClass(STRING_BODY)) {
+                break;
             }
         }
-        if(peek("\"")){
-            match("\"");
-        }
-        else {
-            if(peek("\\\\")){
-                match("\\\\");
-            }
+        if(!matchChar('"')){
+            matchChar('\\');
             throw new ParseException("Unterminated String", chars.index);
-
         }
         return chars.emit(Token.Type.STRING);
     }
 
     public void lexEscape() {
-        match("\\\\");
-        if(!match("[bnrt\"'\\\\]")){
+        matchChar('\\');
+        if(!matchClass(ESCAPE)){
             throw new ParseException("Invalid escape", chars.index);
         }
     }
 
     public Token lexOperator() {
-        if(match("[<>!=]")){
-            match("=");
+        if(matchClass(COMPARISON)){
+            matchChar('=');
             return chars.emit(Token.Type.OPERATOR);
-        } else if (match("&", "&") || match("|", "|")) {
+        } else if (isChar(0, '&') && isChar(1, '&')) {
+            // The original patterns were match("&", "&") || match("|", "|"),
+            // but the regex "|" only matches an empty string, so "||" has
+            // always been lexed as two separate operators.
+            chars.advance();
+            chars.advance();
             return chars.emit(Token.Type.OPERATOR);
-        } else if (match(".")){
+        } else if (matchClass(ANY)){
             return chars.emit(Token.Type.OPERATOR);
         }else {
             throw new ParseException("Invalid Operator", chars.index);
         }
-        /*if(match("[!=]", "=") || match("=") || match(":")){
-            return chars.emit(Token.Type.OPERATOR);
-        } else if(match("&", "&")){
-            return chars.emit(Token.Type.OPERATOR);
-        } else if (match("|", "|")) {
-            return chars.emit(Token.Type.OPERATOR);
-        } else if(match("[<(;)>]")){
-            // Any other character except whitespace
-            return chars.emit(Token.Type.OPERATOR);
-        } else if () {
+    }
+
+    /**
+     * Returns the character classes of {@code c}. Characters outside of ASCII
+     * only belong to the negated classes, except for the Unicode line
+     * terminators which are excluded from {@link #ANY} like a regex {@code .}.
+     */
+    private static int classify(char c) {
+        if (c < CLASSES.length) {
+            return CLASSES[c];
+        } else if (c == '\u0085' || c == '\u2028' || c == '\u2029') {
+            return CHARACTER_BODY | STRING_BODY;
+        } else {
+            return CHARACTER_BODY | STRING_BODY | ANY;
+        }
+    }
+
+    /**
+     * Returns true if the character at the given offset exists and belongs to
+     * the given character class.
+     */
+    private boolean isClass(int offset, int charClass) {
+        return chars.has(offset) && (classify(chars.get(offset)) & charClass) != 0;
+    }
 
-        }*/
+    /**
+     * Returns true if the character at the given offset exists and is exactly
+     * the given character.
+     */
+    private boolean isChar(int offset, char c) {
+        return chars.has(offset) && chars.get(offset) == c;
+    }
+
+    /**
+     * Advances past the next character if it belongs to the given class.
+     */
+    private boolean matchClass(int charClass) {
+        boolean peek = isClass(0, charClass);
+        if (peek) {
+            chars.advance();
+        }
+        return peek;
+    }
+
+    /**
+     * Advances past the next character if it is exactly the given character.
+     */
+    private boolean matchChar(char c) {
+        boolean peek = isChar(0, c);
+        if (peek) {
+            chars.advance();
+        }
+        return peek;
     }
 
     /**
@@ -244,8 +404,14 @@ public final class Lexer {
     }
 
     /**
-     * A helper class maintaining the input string, current index of the char
-     * stream, and the current length of the token being matched.
+     * A helper class maintaining the input, current index of the char stream,
+     * and the current length of the token being matched.
+     *
+     * A string input is read in place. Otherwise, the input is held in a
+     * sliding buffer which is refilled from a {@link Reader} on demand. Characters before the start of the current
+     * token are discarded when the buffer is full, so memory is bounded by the
+     * buffer capacity unless a single token is longer than it. Offsets passed
+     * to {@link #get(int)} may reach back to the start of the current token.
      *
      * You should rely on peek/match for state management in nearly all cases.
      * The only field you need to access is {@link #index} for any {@link
@@ -253,20 +419,54 @@ public final class Lexer {
      */
     public static final class CharStream {
 
+        private static final int DEFAULT_CAPACITY = 8192;
+
         private final String input;
+        private final Reader reader;
+        /**
+         * While {@link #lex()} runs over string input, emitted tokens are
+         * appended here as offsets and {@link #emit} returns {@code null}, so
+         * no {@link Token} objects are created.
+         */
+        private TokenBuffer sink;
+        private char[] buffer;
+        private int base = 0;
+        private int limit;
+        private boolean eof;
         private int index = 0;
         private int length = 0;
 
         public CharStream(String input) {
             this.input = input;
+            this.reader = null;
+            this.buffer = null;
+            this.limit = input.length();
+            this.eof = true;
+        }
+
+        public CharStream(Reader reader) {
+            this(reader, DEFAULT_CAPACITY);
+        }
+
+        public CharStream(Reader reader, int capacity) {
+            this.input = null;
+            this.reader = reader;
+            this.buffer = new char[Math.max(capacity, 2)];
+            this.limit = 0;
+            this.eof = false;
         }
 
         public boolean has(int offset) {
-            return index + offset < input.length();
+            int position = index + offset - base;
+            return position < limit || (!eof && fill(position));
         }
 
+        /**
+         * Returns the character at index + offset, which must have been
+         * checked with {@link #has(int)} first.
+         */
         public char get(int offset) {
-            return input.charAt(index + offset);
+            return input != null ? input.charAt(index + offset) : buffer[index + offset - base];
         }
 
         public void advance() {
@@ -281,7 +481,45 @@ public final class Lexer {
         public Token emit(Token.Type type) {
             int start = index - length;
             skip();
-            return new Token(type, input.substring(start, index), start);
+            if (sink != null) {
+                sink.add(type, start, index - start);
+                return null;
+            } else if (input != null) {
+                return new Token(type, input, start, index - start);
+            }
+            return new Token(type, new String(buffer, start - base, index - start), start);
+        }
+
+        /**
+         * Reads from the reader until the buffer position is available or the
+         * input is exhausted, first compacting away characters before the
+         * current token and growing the buffer only if the token fills it.
+         */
+        private boolean fill(int position) {
+            try {
+                while (!eof && position >= limit) {
+                    if (limit == buffer.length) {
+                        int discard = index - length - base;
+                        if (discard > 0) {
+                            System.arraycopy(buffer, discard, buffer, 0, limit - discard);
+                            base += discard;
+                            limit -= discard;
+                            position -= discard;
+                        } else {
+                            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                        }
+                    }
+                    int read = reader.read(buffer, limit, buffer.length - limit);
+                    if (read == -1) {
+                        eof = true;
+                    } else {
+                        limit += read;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return position < limit;
         }
 
     }
@@ -0,0 +1,767 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An executable node compiled from the AST by the {@link Compiler}. Operators,
+ * variable addresses and control flow are decided once at compile time, so
+ * executing a node is a direct virtual call with no visitor dispatch or
+ * operator string comparisons.
+ *
+ * Nodes follow the semantics of the {@link Interpreter}, which remains the
+ * reference implementation, including its right to left evaluation of binary
+ * operands and its scoping of variables.
+ */
+public abstract class Node {
+
+    public abstract Environment.PlcObject execute(Frame frame);
+
+    /**
+     * The variables of an executing function, addressed by the slots assigned
+     * by the {@link Resolver}, along with the scope unresolved variables and
+     * functions are looked up in.
+     */
+    public static final class Frame {
+
+        private final Frame parent;
+        private final Environment.Variable[] slots;
+        private Scope scope;
+
+        /**
+         * The value of the {@code RETURN} being executed, which stops every
+         * {@link Block} of the frame until the invocation consumes it.
+         */
+        private Environment.PlcObject returnValue;
+
+        Frame(Frame parent, int size, Scope scope) {
+            this.parent = parent;
+            this.slots = new Environment.Variable[size];
+            this.scope = scope;
+        }
+
+        public Scope getScope() {
+            return scope;
+        }
+
+    }
+
+    static final class Literal extends Node {
+
+        private final Environment.PlcObject value;
+
+        Literal(Environment.PlcObject value) {
+            this.value = value;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            return value;
+        }
+
+    }
+
+    static final class PlcList extends Node {
+
+        private final Node[] values;
+
+        PlcList(Node[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            List<Object> list = new ArrayList<>(values.length);
+            for (Node value : values) {
+                list.add(value.execute(frame).getValue());
+            }
+            return Environment.create(list);
+        }
+
+    }
+
+    static final class Call extends Node {
+
+        private final String name;
+        private final Node[] arguments;
+        private final Scope.Binding binding = new Scope.Binding();
+
+        Call(String name, Node[] arguments) {
+            this.name = name;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.Function function = frame.scope.lookupFunction(name, arguments.length, binding);
+            List<Environment.PlcObject> values = new ArrayList<>(arguments.length);
+            for (Node argument : arguments) {
+                values.add(argument.execute(frame));
+            }
+            return function.invoke(values);
+        }
+
+    }
+
+    /**
+     * Fails when executed, for constructs the interpreter only rejects once
+     * it reaches them.
+     */
+    static final class Unsupported extends Node {
+
+        private final Node before;
+        private final String message;
+
+        Unsupported(Node before, String message) {
+            this.before = before;
+            this.message = message;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            if (before != null) {
+                before.execute(frame);
+            }
+            throw new RuntimeException(message);
+        }
+
+    }
+
+    /**
+     * A binary operator, which evaluates the right operand before the left.
+     * Each operator implements {@link #execute(Frame)} itself rather than
+     * sharing one through an abstract method, so the call is not megamorphic.
+     */
+    abstract static class Binary extends Node {
+
+        final Node left;
+        final Node right;
+
+        Binary(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+    }
+
+    static final class Add extends Binary {
+
+        Add(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject rightValue = right.execute(frame);
+            return Operations.add(left.execute(frame), rightValue);
+        }
+
+    }
+
+    static final class Subtract extends Binary {
+
+        Subtract(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject rightValue = right.execute(frame);
+            return Operations.subtract(left.execute(frame), rightValue);
+        }
+
+    }
+
+    static final class Multiply extends Binary {
+
+        Multiply(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject rightValue = right.execute(frame);
+            return Operations.multiply(left.execute(frame), rightValue);
+        }
+
+    }
+
+    static final class Divide extends Binary {
+
+        Divide(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject rightValue = right.execute(frame);
+            return Operations.divide(left.execute(frame), rightValue);
+        }
+
+    }
+
+    static final class Power extends Binary {
+
+        Power(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject rightValue = right.execute(frame);
+            return Operations.power(left.execute(frame), rightValue);
+        }
+
+    }
+
+    static final class LessThan extends Binary {
+
+        LessThan(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject rightValue = right.execute(frame);
+            return Operations.lessThan(left.execute(frame), rightValue);
+        }
+
+    }
+
+    static final class GreaterThan extends Binary {
+
+        GreaterThan(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject rightValue = right.execute(frame);
+            return Operations.greaterThan(left.execute(frame), rightValue);
+        }
+
+    }
+
+    static final class Equal extends Binary {
+
+        Equal(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject rightValue = right.execute(frame);
+            return Operations.equal(left.execute(frame), rightValue);
+        }
+
+    }
+
+    static final class NotEqual extends Binary {
+
+        NotEqual(Node left, Node right) {
+            super(left, right);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject rightValue = right.execute(frame);
+            return Operations.notEqual(left.execute(frame), rightValue);
+        }
+
+    }
+
+    /**
+     * {@code &&} and {@code ||}, which evaluate the left operand first and
+     * only evaluate the right one if it does not decide the result.
+     */
+    static final class Logical extends Node {
+
+        private final Node left;
+        private final Node right;
+        private final boolean and;
+
+        Logical(Node left, Node right, boolean and) {
+            this.left = left;
+            this.right = right;
+            this.and = and;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            boolean leftValue = Operations.requireType(Boolean.class, left.execute(frame));
+            if (leftValue != and) {
+                return Environment.create(leftValue);
+            }
+            return Environment.create(Operations.requireType(Boolean.class, right.execute(frame)));
+        }
+
+    }
+
+    /**
+     * A reference to a variable, which evaluates to its value.
+     */
+    abstract static class Variable extends Node {
+
+        final String name;
+
+        Variable(String name) {
+            this.name = name;
+        }
+
+        abstract Environment.Variable lookup(Frame frame);
+
+    }
+
+    /**
+     * A variable in a slot of the executing frame. The scope is only used if
+     * the declaration has not run, such as one in an {@code IF} branch that
+     * was not taken.
+     */
+    static final class LocalRead extends Variable {
+
+        private final int slot;
+
+        LocalRead(String name, int slot) {
+            super(name);
+            this.slot = slot;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            return lookup(frame).getValue();
+        }
+
+        @Override
+        Environment.Variable lookup(Frame frame) {
+            Environment.Variable variable = frame.slots[slot];
+            return variable != null ? variable : frame.scope.lookupVariable(name);
+        }
+
+    }
+
+    /**
+     * A variable in a slot of an enclosing frame, such as a global.
+     */
+    static final class FrameRead extends Variable {
+
+        private final int depth;
+        private final int slot;
+
+        FrameRead(String name, int depth, int slot) {
+            super(name);
+            this.depth = depth;
+            this.slot = slot;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            return lookup(frame).getValue();
+        }
+
+        @Override
+        Environment.Variable lookup(Frame frame) {
+            Frame target = frame;
+            for (int i = 0; i < depth; i++) {
+                target = target.parent;
+            }
+            Environment.Variable variable = target.slots[slot];
+            return variable != null ? variable : frame.scope.lookupVariable(name);
+        }
+
+    }
+
+    static final class ScopeRead extends Variable {
+
+        ScopeRead(String name) {
+            super(name);
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            return lookup(frame).getValue();
+        }
+
+        @Override
+        Environment.Variable lookup(Frame frame) {
+            return frame.scope.lookupVariable(name);
+        }
+
+    }
+
+    /**
+     * An access with an offset, which indexes the value if it is a list and
+     * otherwise ignores the offset.
+     */
+    static final class IndexRead extends Node {
+
+        private final Variable variable;
+        private final Node offset;
+
+        IndexRead(Variable variable, Node offset) {
+            this.variable = variable;
+            this.offset = offset;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject value = variable.lookup(frame).getValue();
+            if (value.getValue() instanceof List) {
+                return Operations.get(variable.name, (List<Object>) value.getValue(), offset.execute(frame));
+            }
+            return value;
+        }
+
+    }
+
+    /**
+     * The statements of a function body or branch, which stop once a
+     * {@code RETURN} has been executed.
+     */
+    static final class Block extends Node {
+
+        private final Node[] statements;
+
+        Block(Node[] statements) {
+            this.statements = statements;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            for (Node statement : statements) {
+                statement.execute(frame);
+                if (frame.returnValue != null) {
+                    break;
+                }
+            }
+            return Environment.NIL;
+        }
+
+    }
+
+    static final class ExpressionStatement extends Node {
+
+        private final Node expression;
+
+        ExpressionStatement(Node expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            expression.execute(frame);
+            return Environment.NIL;
+        }
+
+    }
+
+    static final class LocalDeclaration extends Node {
+
+        private final String name;
+        private final int slot;
+        private final Node value;
+
+        LocalDeclaration(String name, int slot, Node value) {
+            this.name = name;
+            this.slot = slot;
+            this.value = value;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject object = value != null ? value.execute(frame) : Environment.NIL;
+            if (frame.slots[slot] != null) {
+                throw new RuntimeException("The variable " + name + " is already defined in this scope.");
+            }
+            frame.slots[slot] = new Environment.Variable(name, true, object);
+            return Environment.NIL;
+        }
+
+    }
+
+    static final class ScopeDeclaration extends Node {
+
+        private final String name;
+        private final Node value;
+
+        ScopeDeclaration(String name, Node value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject object = value != null ? value.execute(frame) : Environment.NIL;
+            frame.scope.defineVariable(name, true, object);
+            return Environment.NIL;
+        }
+
+    }
+
+    /**
+     * An assignment, which evaluates the value before looking up the variable
+     * and, if the variable is a list, the offset last.
+     */
+    static final class Assignment extends Node {
+
+        private final Variable variable;
+        private final Node offset;
+        private final Node value;
+
+        Assignment(Variable variable, Node offset, Node value) {
+            this.variable = variable;
+            this.offset = offset;
+            this.value = value;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject object = value.execute(frame);
+            Environment.Variable target = variable.lookup(frame);
+            if (!target.getMutable()) {
+                throw new RuntimeException("Cannot assign to immutable variable: " + variable.name);
+            }
+            if (offset != null && target.getValue().getValue() instanceof List) {
+                List<Object> list = (List<Object>) target.getValue().getValue();
+                Operations.set(list, offset.execute(frame), object.getValue());
+                target.setValue(Environment.create(list));
+            } else {
+                target.setValue(object);
+            }
+            return Environment.NIL;
+        }
+
+    }
+
+    static final class If extends Node {
+
+        private final Node condition;
+        private final Block thenBlock;
+        private final Block elseBlock;
+
+        If(Node condition, Block thenBlock, Block elseBlock) {
+            this.condition = condition;
+            this.thenBlock = thenBlock;
+            this.elseBlock = elseBlock;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Object value = condition.execute(frame).getValue();
+            if (!(value instanceof Boolean)) {
+                throw new RuntimeException("If statement condition must evaluate to a boolean value.");
+            }
+            return ((Boolean) value ? thenBlock : elseBlock).execute(frame);
+        }
+
+    }
+
+    /**
+     * A switch, which runs the first case equal to the condition or the first
+     * default case, whichever comes first.
+     */
+    static final class Switch extends Node {
+
+        private final Node condition;
+        private final Node[] values;
+        private final Block[] blocks;
+
+        Switch(Node condition, Node[] values, Block[] blocks) {
+            this.condition = condition;
+            this.values = values;
+            this.blocks = blocks;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Object value = condition.execute(frame).getValue();
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null || values[i].execute(frame).getValue().equals(value)) {
+                    return blocks[i].execute(frame);
+                }
+            }
+            return Environment.NIL;
+        }
+
+    }
+
+    /**
+     * A resolved loop, which clears the slots declared in its body on each
+     * iteration instead of creating a scope.
+     */
+    static final class While extends Node {
+
+        private final Node condition;
+        private final Block body;
+        private final int firstSlot;
+        private final int lastSlot;
+
+        While(Node condition, Block body, int firstSlot, int lastSlot) {
+            this.condition = condition;
+            this.body = body;
+            this.firstSlot = firstSlot;
+            this.lastSlot = lastSlot;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            while (Operations.requireType(Boolean.class, condition.execute(frame))) {
+                Arrays.fill(frame.slots, firstSlot, lastSlot, null);
+                body.execute(frame);
+                if (frame.returnValue != null) {
+                    break;
+                }
+            }
+            return Environment.NIL;
+        }
+
+    }
+
+    /**
+     * An unresolved loop, which runs each iteration in a new scope.
+     */
+    static final class ScopeWhile extends Node {
+
+        private final Node condition;
+        private final Block body;
+
+        ScopeWhile(Node condition, Block body) {
+            this.condition = condition;
+            this.body = body;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            while (Operations.requireType(Boolean.class, condition.execute(frame))) {
+                Scope scope = frame.scope;
+                frame.scope = new Scope(scope);
+                try {
+                    body.execute(frame);
+                } finally {
+                    frame.scope = scope;
+                }
+                if (frame.returnValue != null) {
+                    break;
+                }
+            }
+            return Environment.NIL;
+        }
+
+    }
+
+    static final class Return extends Node {
+
+        private final Node value;
+
+        Return(Node value) {
+            this.value = value;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            frame.returnValue = value.execute(frame);
+            return Environment.NIL;
+        }
+
+    }
+
+    static final class Global extends Node {
+
+        private final String name;
+        private final boolean mutable;
+        private final Node value;
+        private final int slot;
+
+        Global(String name, boolean mutable, Node value, int slot) {
+            this.name = name;
+            this.mutable = mutable;
+            this.value = value;
+            this.slot = slot;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Environment.PlcObject object = value != null ? value.execute(frame) : Environment.NIL;
+            Environment.Variable variable = frame.scope.defineVariable(name, name, Environment.Type.ANY, mutable, object);
+            if (slot >= 0 && slot < frame.slots.length) {
+                frame.slots[slot] = variable;
+            }
+            return Environment.NIL;
+        }
+
+    }
+
+    /**
+     * Defines a function in the scope of the executing frame. A resolved
+     * function runs each invocation in a new frame whose parent is the
+     * defining frame, and an unresolved one in a new scope.
+     */
+    static final class Function extends Node {
+
+        private final String name;
+        private final String[] parameters;
+        private final int frameSize;
+        private final Block body;
+
+        Function(String name, String[] parameters, int frameSize, Block body) {
+            this.name = name;
+            this.parameters = parameters;
+            this.frameSize = frameSize;
+            this.body = body;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Scope scope = frame.scope;
+            frame.scope.defineFunction(name, parameters.length, args -> {
+                Frame callee;
+                if (frameSize >= 0) {
+                    callee = new Frame(frame, frameSize, scope);
+                    for (int i = 0; i < parameters.length; i++) {
+                        callee.slots[i] = new Environment.Variable(parameters[i], true, args.get(i));
+                    }
+                } else {
+                    callee = new Frame(null, 0, new Scope(scope));
+                    for (int i = 0; i < parameters.length; i++) {
+                        callee.scope.defineVariable(parameters[i], true, args.get(i));
+                    }
+                }
+                body.execute(callee);
+                return callee.returnValue != null ? callee.returnValue : Environment.NIL;
+            });
+            return Environment.NIL;
+        }
+
+    }
+
+    /**
+     * Defines the globals and functions, in a frame of their own if resolved,
+     * and invokes {@code main}.
+     */
+    static final class Source extends Node {
+
+        private final Node[] globals;
+        private final Node[] functions;
+        private final int frameSize;
+
+        Source(Node[] globals, Node[] functions, int frameSize) {
+            this.globals = globals;
+            this.functions = functions;
+            this.frameSize = frameSize;
+        }
+
+        @Override
+        public Environment.PlcObject execute(Frame frame) {
+            Frame global = frameSize >= 0 ? new Frame(null, frameSize, frame.scope) : frame;
+            for (Node node : globals) {
+                node.execute(global);
+            }
+            for (Node node : functions) {
+                node.execute(global);
+            }
+            return frame.scope.lookupFunction("main", 0).invoke(new ArrayList<>());
+        }
+
+    }
+
+}
@@ -0,0 +1,79 @@
+package plc.project;
+
+/**
+ * The operation of a binary expression, resolved by the {@link Analyzer}
+ * from its operator and the types of its operands so the {@link Interpreter}
+ * dispatches with a single switch rather than comparing operator strings.
+ * Since the analyzer has checked the operand types, the Integer and Decimal
+ * opcodes are applied by the typed {@link Operations} without checking the
+ * classes of the values again, computing on primitive longs where both
+ * Integers fit.
+ */
+public enum Opcode {
+
+    INT_ADD, INT_SUB, INT_MUL, INT_DIV, INT_POW,
+    DEC_ADD, DEC_SUB, DEC_MUL, DEC_DIV, DEC_POW,
+    STR_CONCAT,
+    BOOL_AND, BOOL_OR,
+    CMP_EQ_INT, CMP_NE_INT, CMP_LT_INT, CMP_GT_INT,
+    CMP_EQ, CMP_NE, CMP_LT, CMP_GT;
+
+    /**
+     * Returns whether the right operand is only evaluated if the left
+     * operand doesn't decide the result.
+     */
+    public boolean isLogical() {
+        return this == BOOL_AND || this == BOOL_OR;
+    }
+
+    /**
+     * Returns the opcode of the operator applied to operands of the given
+     * types, or null if there is none, such as for operands which the
+     * analyzer rejects.
+     */
+    public static Opcode resolve(String operator, Environment.Type left, Environment.Type right) {
+        boolean integers = left == Environment.Type.INTEGER && right == Environment.Type.INTEGER;
+        boolean decimals = left == Environment.Type.DECIMAL && right == Environment.Type.DECIMAL;
+        switch (operator) {
+            case "+":
+                if (left == Environment.Type.STRING || right == Environment.Type.STRING) {
+                    return STR_CONCAT;
+                }
+                return integers ? INT_ADD : decimals ? DEC_ADD : null;
+            case "-":
+                return integers ? INT_SUB : decimals ? DEC_SUB : null;
+            case "*":
+                return integers ? INT_MUL : decimals ? DEC_MUL : null;
+            case "/":
+                return integers ? INT_DIV : decimals ? DEC_DIV : null;
+            case "^":
+                return integers ? INT_POW : decimals ? DEC_POW : null;
+            case "&&":
+            case "||":
+                if (left != Environment.Type.BOOLEAN || right != Environment.Type.BOOLEAN) {
+                    return null;
+                }
+                return operator.equals("&&") ? BOOL_AND : BOOL_OR;
+            case "==":
+                return integers ? CMP_EQ_INT : comparable(left, right) ? CMP_EQ : null;
+            case "!=":
+                return integers ? CMP_NE_INT : comparable(left, right) ? CMP_NE : null;
+            case "<":
+                return integers ? CMP_LT_INT : comparable(left, right) ? CMP_LT : null;
+            case ">":
+                return integers ? CMP_GT_INT : comparable(left, right) ? CMP_GT : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns whether the analyzer accepts comparing operands of the types.
+     */
+    private static boolean comparable(Environment.Type left, Environment.Type right) {
+        return left == right && (left == Environment.Type.DECIMAL
+                || left == Environment.Type.CHARACTER
+                || left == Environment.Type.STRING);
+    }
+
+}
@@ -0,0 +1,284 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * The semantics of the binary operators and list indexing, shared by the
+ * {@link Interpreter} and the compiled {@link Node}s. Operands are passed
+ * already evaluated; the order of evaluation is up to the caller.
+ */
+final class Operations {
+
+    private Operations() {}
+
+    static Environment.PlcObject lessThan(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        return Environment.create(compare(leftValue, rightValue) < 0);
+    }
+
+    static Environment.PlcObject greaterThan(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        return Environment.create(compare(leftValue, rightValue) > 0);
+    }
+
+    private static int compare(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (leftValue.isLong() && rightValue.isLong()) {
+            return compareIntegers(leftValue, rightValue);
+        }
+
+        // Check if both are comparable
+        requireType(leftValue.getValue().getClass(), rightValue);
+        requireType(Comparable.class, rightValue);
+        requireType(Comparable.class, leftValue);
+
+        // Set as comparable objects
+        Comparable<Object> right = (Comparable<Object>) rightValue.getValue();
+        Comparable<Object> left = (Comparable<Object>) leftValue.getValue();
+
+        return left.compareTo(right);
+    }
+
+    static Environment.PlcObject add(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (leftValue.isLong() && rightValue.isLong()) {
+            return addIntegers(leftValue, rightValue);
+        }
+
+        if (rightValue.getValue().getClass() == String.class || leftValue.getValue().getClass() == String.class){
+            return concatenate(leftValue, rightValue);
+        } else if (rightValue.getValue().getClass() == BigDecimal.class){
+            requireType(BigDecimal.class, leftValue);
+            return addDecimals(leftValue, rightValue);
+        } else if (rightValue.getValue().getClass() == BigInteger.class){
+            requireType(BigInteger.class, leftValue);
+            return addIntegers(leftValue, rightValue);
+        } else {
+            throw new RuntimeException("Unsupported operand types for operator +");
+        }
+    }
+
+    static Environment.PlcObject power(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        requireType(BigInteger.class, rightValue);
+
+        if (leftValue.getValue().getClass() == BigDecimal.class){
+            return Environment.create(((BigDecimal) leftValue.getValue()).pow(((BigInteger) rightValue.getValue()).intValue(), MathContext.DECIMAL64));
+        } else if (leftValue.getValue().getClass() == BigInteger.class){
+            return powerIntegers(leftValue, rightValue);
+        } else {
+            throw new RuntimeException("Unsupported operand types for operator ^");
+        }
+    }
+
+    static Environment.PlcObject subtract(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (leftValue.isLong() && rightValue.isLong()) {
+            return subtractIntegers(leftValue, rightValue);
+        }
+
+        if (rightValue.getValue().getClass() == BigDecimal.class){
+            requireType(BigDecimal.class, leftValue);
+            return subtractDecimals(leftValue, rightValue);
+        } else if (rightValue.getValue().getClass() == BigInteger.class){
+            requireType(BigInteger.class, leftValue);
+            return subtractIntegers(leftValue, rightValue);
+        } else {
+            throw new RuntimeException("Unsupported operand types for operator -");
+        }
+    }
+
+    static Environment.PlcObject multiply(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (leftValue.isLong() && rightValue.isLong()) {
+            return multiplyIntegers(leftValue, rightValue);
+        }
+
+        if (rightValue.getValue().getClass() == BigDecimal.class){
+            requireType(BigDecimal.class, leftValue);
+            return multiplyDecimals(leftValue, rightValue);
+        } else if (rightValue.getValue().getClass() == BigInteger.class){
+            requireType(BigInteger.class, leftValue);
+            return multiplyIntegers(leftValue, rightValue);
+        } else {
+            throw new RuntimeException("Unsupported operand types for operator *");
+        }
+    }
+
+    static Environment.PlcObject divide(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (leftValue.isLong() && rightValue.isLong()) {
+            return divideIntegers(leftValue, rightValue);
+        }
+
+        if (rightValue.getValue().equals(BigDecimal.ZERO) || rightValue.getValue().equals(BigInteger.ZERO)){
+            throw new RuntimeException("Division by zero");
+        }
+
+        if(rightValue.getValue().getClass() == BigDecimal.class){
+            requireType(BigDecimal.class, leftValue);
+            return divideDecimals(leftValue, rightValue);
+        } else if (rightValue.getValue().getClass() == BigInteger.class){
+            requireType(BigInteger.class, leftValue);
+            return divideIntegers(leftValue, rightValue);
+        } else {
+            throw new RuntimeException("Unsupported operand types for operator /");
+        }
+    }
+
+    static Environment.PlcObject equal(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (leftValue.isLong() && rightValue.isLong()) {
+            return Environment.create(leftValue.getLong() == rightValue.getLong());
+        }
+        return Environment.create(leftValue.getValue().equals(rightValue.getValue()));
+    }
+
+    static Environment.PlcObject notEqual(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (leftValue.isLong() && rightValue.isLong()) {
+            return Environment.create(leftValue.getLong() != rightValue.getLong());
+        }
+        return Environment.create(!leftValue.getValue().equals(rightValue.getValue()));
+    }
+
+    /*
+     * The operations below trust the types of their operands, which the
+     * callers above have checked and the analyzer checks for the typed
+     * opcodes, so they compute on primitive longs where both Integers fit and
+     * otherwise cast straight to BigInteger or BigDecimal.
+     */
+
+    static Environment.PlcObject concatenate(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        return Environment.create(leftValue.getValue().toString() + rightValue.getValue().toString());
+    }
+
+    static Environment.PlcObject addIntegers(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (leftValue.isLong() && rightValue.isLong()) {
+            try {
+                return Environment.createInteger(Math.addExact(leftValue.getLong(), rightValue.getLong()));
+            } catch (ArithmeticException overflow) {
+                // Promoted to BigInteger below
+            }
+        }
+        return Environment.create(((BigInteger) leftValue.getValue()).add((BigInteger) rightValue.getValue()));
+    }
+
+    static Environment.PlcObject subtractIntegers(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (leftValue.isLong() && rightValue.isLong()) {
+            try {
+                return Environment.createInteger(Math.subtractExact(leftValue.getLong(), rightValue.getLong()));
+            } catch (ArithmeticException overflow) {
+                // Promoted to BigInteger below
+            }
+        }
+        return Environment.create(((BigInteger) leftValue.getValue()).subtract((BigInteger) rightValue.getValue()));
+    }
+
+    static Environment.PlcObject multiplyIntegers(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (leftValue.isLong() && rightValue.isLong()) {
+            try {
+                return Environment.createInteger(Math.multiplyExact(leftValue.getLong(), rightValue.getLong()));
+            } catch (ArithmeticException overflow) {
+                // Promoted to BigInteger below
+            }
+        }
+        return Environment.create(((BigInteger) leftValue.getValue()).multiply((BigInteger) rightValue.getValue()));
+    }
+
+    static Environment.PlcObject divideIntegers(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        // Long.MIN_VALUE / -1 is the only quotient which overflows
+        if (leftValue.isLong() && rightValue.isLong() && rightValue.getLong() != 0
+                && !(leftValue.getLong() == Long.MIN_VALUE && rightValue.getLong() == -1)) {
+            return Environment.createInteger(leftValue.getLong() / rightValue.getLong());
+        }
+        if (rightValue.getValue().equals(BigInteger.ZERO)) {
+            throw new RuntimeException("Division by zero");
+        }
+        return Environment.create(((BigInteger) leftValue.getValue()).divide((BigInteger) rightValue.getValue()));
+    }
+
+    static Environment.PlcObject powerIntegers(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        return Environment.create(((BigInteger) leftValue.getValue()).pow(((BigInteger) rightValue.getValue()).intValue()));
+    }
+
+    static int compareIntegers(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (leftValue.isLong() && rightValue.isLong()) {
+            return Long.compare(leftValue.getLong(), rightValue.getLong());
+        }
+        return ((BigInteger) leftValue.getValue()).compareTo((BigInteger) rightValue.getValue());
+    }
+
+    static Environment.PlcObject addDecimals(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        return Environment.create(((BigDecimal) leftValue.getValue()).add((BigDecimal) rightValue.getValue()));
+    }
+
+    static Environment.PlcObject subtractDecimals(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        return Environment.create(((BigDecimal) leftValue.getValue()).subtract((BigDecimal) rightValue.getValue()));
+    }
+
+    static Environment.PlcObject multiplyDecimals(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        return Environment.create(((BigDecimal) leftValue.getValue()).multiply((BigDecimal) rightValue.getValue()));
+    }
+
+    static Environment.PlcObject divideDecimals(Environment.PlcObject leftValue, Environment.PlcObject rightValue) {
+        if (rightValue.getValue().equals(BigDecimal.ZERO)) {
+            throw new RuntimeException("Division by zero");
+        }
+        return Environment.create(((BigDecimal) leftValue.getValue()).divide((BigDecimal) rightValue.getValue(), RoundingMode.HALF_EVEN));
+    }
+
+    /**
+     * Returns the element of the list variable with the given name at the
+     * evaluated index.
+     */
+    static Environment.PlcObject get(String variableName, List<Object> list, Environment.PlcObject indexValue) {
+        // Check if the index value is an Integer or a BigInteger
+        if (indexValue.getValue() instanceof Integer) {
+            int index = (int) indexValue.getValue();
+            // Check if the index is within bounds
+            if (index >= 0 && index < list.size()) {
+                // Return the value at the specified index in the list
+                return Environment.create(list.get(index));
+            } else {
+                throw new RuntimeException("Index out of bounds for list variable: " + variableName);
+            }
+        } else if (indexValue.getValue() instanceof BigInteger) {
+            BigInteger index = (BigInteger) indexValue.getValue();
+            // Check if the index is within bounds
+            if (index.compareTo(BigInteger.ZERO) >= 0 && index.compareTo(BigInteger.valueOf(list.size())) < 0) {
+                // Return the value at the specified index in the list
+                return Environment.create(list.get(index.intValue()));
+            } else {
+                throw new RuntimeException("Index out of bounds for list variable: " + variableName);
+            }
+        } else {
+            throw new RuntimeException("Index expression must evaluate to an Integer or a BigInteger");
+        }
+    }
+
+    /**
+     * Replaces the element of the list at the evaluated index.
+     */
+    static void set(List<Object> list, Environment.PlcObject offsetValue, Object value) {
+        Object offsetObject = offsetValue.getValue();
+        int offset;
+        if (offsetObject instanceof Integer) {
+            offset = (int) offsetObject;
+        } else if (offsetObject instanceof BigInteger) {
+            offset = ((BigInteger) offsetObject).intValueExact();
+        } else {
+            throw new RuntimeException("Index expression must evaluate to an Integer or a BigInteger");
+        }
+        if (offset < 0 || offset >= list.size()) {
+            throw new IndexOutOfBoundsException("Index out of bounds: " + offset);
+        }
+        list.set(offset, value);
+    }
+
+    /**
+     * Helper function to ensure an object is of the appropriate type.
+     */
+    static <T> T requireType(Class<T> type, Environment.PlcObject object) {
+        if (type.isInstance(object.getValue())) {
+            return type.cast(object.getValue());
+        } else {
+            throw new RuntimeException("Expected type " + type.getName() + ", received " + object.getValue().getClass().getName() + ".");
+        }
+    }
+
+}
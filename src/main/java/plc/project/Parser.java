@@ -2,6 +2,7 @@ package plc.project;
 
 import javax.swing.plaf.nimbus.NimbusLookAndFeel;
 import javax.swing.text.html.HTMLDocument;
+import java.util.Iterator;
 import java.util.List;
 
 import java.util.ArrayList;
@@ -20,16 +21,60 @@ import java.util.Optional;
  *
  * This type of parser is called <em>recursive descent</em>. Each rule in our
  * grammar will have it's own function, and reference to other rules correspond
- * to calling that functions.
+ * to calling that functions. Expressions are the exception: they are parsed
+ * with explicit stacks, since they may be nested far deeper than statements.
  */
 public final class Parser {
 
+    /**
+     * Binary operator precedences, from loosest to tightest binding. No
+     * operator has {@link #PRIMARY} precedence, so parsing at that precedence
+     * stops after a single primary expression.
+     */
+    private static final int NONE = 0, LOGICAL = 1, COMPARISON = 2, ADDITIVE = 3, MULTIPLICATIVE = 4, PRIMARY = 5;
+
+    /**
+     * The precedence of each single character operator, and of each two
+     * character operator ({@code &&}, {@code ||}, {@code ==} and {@code !=})
+     * by its first character.
+     */
+    private static final int[] PRECEDENCE = new int[128];
+    private static final int[] COMPOUND_PRECEDENCE = new int[128];
+
+    static {
+        PRECEDENCE['<'] = COMPARISON;
+        PRECEDENCE['>'] = COMPARISON;
+        PRECEDENCE['+'] = ADDITIVE;
+        PRECEDENCE['-'] = ADDITIVE;
+        PRECEDENCE['*'] = MULTIPLICATIVE;
+        PRECEDENCE['/'] = MULTIPLICATIVE;
+        PRECEDENCE['^'] = MULTIPLICATIVE;
+        COMPOUND_PRECEDENCE['&'] = LOGICAL;
+        COMPOUND_PRECEDENCE['|'] = LOGICAL;
+        COMPOUND_PRECEDENCE['='] = COMPARISON;
+        COMPOUND_PRECEDENCE['!'] = COMPARISON;
+    }
+
     private final TokenStream tokens;
 
+    /**
+     * The errors recovered from by {@link #parseSource(List)}, or null when
+     * parsing stops at the first error.
+     */
+    private List<ParseException> errors = null;
+
     public Parser(List<Token> tokens) {
         this.tokens = new TokenStream(tokens);
     }
 
+    /**
+     * Creates a parser which pulls tokens on demand, such as from {@link
+     * Lexer#tokens()}, so lexing and parsing are interleaved.
+     */
+    public Parser(Iterator<Token> tokens) {
+        this.tokens = new TokenStream(tokens);
+    }
+
     /**
      * Parses the {@code source} rule.
      */
@@ -51,6 +96,71 @@ public final class Parser {
         return new Ast.Source(globalList, functionList);
     }
 
+    /**
+     * Parses the {@code source} rule into a {@link FlatAst}, encoding each
+     * global and function as soon as it is parsed so that only one of them is
+     * held as a tree of {@link Ast} objects at a time.
+     */
+    public FlatAst parseFlatSource() throws ParseException {
+        FlatAst.Builder builder = new FlatAst.Builder();
+        while (peek("LIST") || peek("VAR") || peek("VAL")) {
+            builder.add(parseGlobal());
+        }
+        while (peek("FUN")) {
+            builder.add(parseFunction());
+        }
+        if (tokens.has(0)) {
+            throw new ParseException("Invalid Source", tokens.index);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Parses the {@code source} rule, recovering from errors rather than
+     * stopping at the first. Each error is added to the list and the tokens up
+     * to the next boundary ({@code ;}, {@code END}, {@code LET} or {@code FUN})
+     * are skipped. The returned source holds the globals and functions which
+     * parsed, including functions with invalid statements left out, so it is
+     * only useful for further diagnostics if any errors were added.
+     */
+    public Ast.Source parseSource(List<ParseException> errors) {
+        this.errors = errors;
+        try {
+            List<Ast.Global> globalList = new ArrayList<Ast.Global>();
+            List<Ast.Function> functionList = new ArrayList<Ast.Function>();
+            while (peek("LIST") || peek("VAR") || peek("VAL")) {
+                int start = tokens.index;
+                try {
+                    globalList.add(parseGlobal());
+                } catch (ParseException e) {
+                    record(e);
+                    skip(start);
+                    while (tokens.has(0) && !match(";") && !peek("FUN") && !peek("LIST") && !peek("VAR") && !peek("VAL")) {
+                        tokens.advance();
+                    }
+                }
+            }
+            while (tokens.has(0)) {
+                int start = tokens.index;
+                try {
+                    if (!peek("FUN")) {
+                        throw new ParseException("Invalid Source", tokens.index);
+                    }
+                    functionList.add(parseFunction());
+                } catch (ParseException e) {
+                    record(e);
+                    skip(start);
+                    while (tokens.has(0) && !peek("FUN")) {
+                        tokens.advance();
+                    }
+                }
+            }
+            return new Ast.Source(globalList, functionList);
+        } finally {
+            this.errors = null;
+        }
+    }
+
     /**
      * Parses the {@code global} rule. This method should only be called if the
      * next tokens start a global, aka {@code LIST|VAL|VAR}.
@@ -85,11 +195,11 @@ public final class Parser {
     public Ast.Global parseList() throws ParseException {
         match("LIST");
         if(peek(Token.Type.IDENTIFIER)){
-            String identifier = tokens.get(0).getLiteral();
+            String identifier = tokens.getLiteral(0);
             match(identifier);
             List<Ast.Expression> values = new ArrayList<Ast.Expression>();
             if(match(":")) {
-                String typeIdentifier = tokens.get(0).getLiteral();
+                String typeIdentifier = tokens.getLiteral(0);
                 match(typeIdentifier);
                 if (match("=")) {
                     if (match("[")) {
@@ -124,10 +234,10 @@ public final class Parser {
      */
     public Ast.Global parseMutable() throws ParseException {
         if (peek(Token.Type.IDENTIFIER)){
-            String identifier = tokens.get(0).getLiteral();
+            String identifier = tokens.getLiteral(0);
             match(identifier);
             if(match(":")) {
-                String typeIdentifier = tokens.get(0).getLiteral();
+                String typeIdentifier = tokens.getLiteral(0);
                 match(typeIdentifier);
                 if (match("=")) {
                     return new Ast.Global(identifier, typeIdentifier,true, Optional.of(parseExpression()));
@@ -155,10 +265,10 @@ public final class Parser {
      */
     public Ast.Global parseImmutable() throws ParseException {
         if(peek(Token.Type.IDENTIFIER)){
-            String identifier = tokens.get(0).getLiteral();
+            String identifier = tokens.getLiteral(0);
             match(identifier);
             if(match(":")) {
-                String typeIdentifier = tokens.get(0).getLiteral();
+                String typeIdentifier = tokens.getLiteral(0);
                 match(typeIdentifier);
                 if (match("=")) {
                     return new Ast.Global(identifier, typeIdentifier,false, Optional.of(parseExpression()));
@@ -198,16 +308,16 @@ public final class Parser {
         List<Ast.Statement> statements = new ArrayList<>();
 
         if (peek(Token.Type.IDENTIFIER)) {
-            identifier = tokens.get(0).getLiteral();
+            identifier = tokens.getLiteral(0);
             match(identifier);
 
             if (match("(")) {
                 if (peek(Token.Type.IDENTIFIER)) {
                     do {
-                        parameters.add(tokens.get(0).getLiteral());
+                        parameters.add(tokens.getLiteral(0));
                         match(Token.Type.IDENTIFIER);
                         if (match(":")) {
-                            typeParameters.add(tokens.get(0).getLiteral());
+                            typeParameters.add(tokens.getLiteral(0));
                             match(Token.Type.IDENTIFIER);
                         }
                         else {
@@ -231,14 +341,14 @@ public final class Parser {
                 }
 
                 if (match(":")) {
-                    typeIdentifier = tokens.get(0).getLiteral();
+                    typeIdentifier = tokens.getLiteral(0);
                     match(Token.Type.IDENTIFIER);
                 }
 
                 match("DO");
 
                 while (!peek("END")) {
-                    statements.add(parseStatement());
+                    parseStatement(statements);
                 }
 
                 if (match("END")) {
@@ -320,6 +430,57 @@ public final class Parser {
         return statement;
     }
 
+    /**
+     * Parses a statement into the list. When recovering, an invalid statement
+     * is added to the errors and skipped up to the next boundary instead, and
+     * the error is only rethrown if that reaches the next function or the end
+     * of the tokens.
+     */
+    private void parseStatement(List<Ast.Statement> statements) throws ParseException {
+        if (errors == null) {
+            statements.add(parseStatement());
+            return;
+        }
+        int start = tokens.index;
+        try {
+            if (peek("FUN")) {
+                throw new ParseException("Expected END", tokens.get(0).getIndex());
+            }
+            statements.add(parseStatement());
+        } catch (ParseException e) {
+            record(e);
+            if (!peek("FUN")) {
+                skip(start);
+                while (tokens.has(0) && !match(";") && !peek("END") && !peek("LET") && !peek("FUN")) {
+                    tokens.advance();
+                }
+            }
+            if (!tokens.has(0) || peek("FUN")) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Adds the error, unless it was rethrown to an enclosing rule after
+     * already being added.
+     */
+    private void record(ParseException e) {
+        if (errors.isEmpty() || errors.get(errors.size() - 1) != e) {
+            errors.add(e);
+        }
+    }
+
+    /**
+     * Skips the first token of a rule which failed without consuming any, so
+     * recovery always makes progress.
+     */
+    private void skip(int start) {
+        if (tokens.index == start && tokens.has(0)) {
+            tokens.advance();
+        }
+    }
+
     /**
      * Parses a declaration statement from the {@code statement} rule. This
      * method should only be called if the next tokens start a declaration
@@ -338,7 +499,7 @@ public final class Parser {
             throw new ParseException("Expected identifier after LET", prevToken.getIndex() + tokenLength);
         }
 
-        String name = tokens.get(0).getLiteral();
+        String name = tokens.getLiteral(0);
         match(Token.Type.IDENTIFIER);
 
         Optional<Ast.Expression> value = Optional.empty();
@@ -347,7 +508,7 @@ public final class Parser {
         if (match(":")) {
             isList = true;
             if (peek(Token.Type.IDENTIFIER)) {
-                typeName = Optional.of(tokens.get(0).getLiteral());
+                typeName = Optional.of(tokens.getLiteral(0));
                 match(Token.Type.IDENTIFIER);
             } else {
                 if (tokens.has(0)){
@@ -392,12 +553,12 @@ public final class Parser {
 
         if (match("DO")) {
             while (!peek("ELSE") && !peek("END")) {
-                thenStatements.add(parseStatement());
+                parseStatement(thenStatements);
             }
 
             if (match("ELSE")) {
                 while (!peek("END")) {
-                    elseStatements.add(parseStatement());
+                    parseStatement(elseStatements);
                 }
             }
 
@@ -464,14 +625,14 @@ public final class Parser {
             if (match(":")){
                 List<Ast.Statement> statements = new ArrayList<Ast.Statement>();
                 while (!peek("CASE") && !peek("DEFAULT")){
-                    statements.add(parseStatement());
+                    parseStatement(statements);
                 }
                 caseStatement = new Ast.Statement.Case(Optional.of(value), statements);
             }
         } else if (match("DEFAULT")) {
             List<Ast.Statement> statements = new ArrayList<Ast.Statement>();
             while (!peek("END")){
-                statements.add(parseStatement());
+                parseStatement(statements);
             }
             caseStatement = new Ast.Statement.Case(Optional.empty(), statements);
         } else {
@@ -496,7 +657,7 @@ public final class Parser {
             if(match("DO")){
                 List<Ast.Statement> statements = new ArrayList<Ast.Statement>();
                 while (!match("END")){
-                    statements.add(parseStatement());
+                    parseStatement(statements);
                 }
                 return new Ast.Statement.While(condition, statements);
             }
@@ -541,65 +702,164 @@ public final class Parser {
      * Parses the {@code logical-expression} rule.
      */
     public Ast.Expression parseLogicalExpression() throws ParseException {
-        Ast.Expression leftOperand =  parseComparisonExpression();
-        if (peek("||") || peek("&&")){
-            String operator = tokens.get(0).getLiteral();
-            match(operator);
-            Ast.Expression rightOperand =  parseComparisonExpression();
-            leftOperand = new Ast.Expression.Binary(operator, leftOperand, rightOperand);
-        }
-        return leftOperand;
+        return parseBinaryExpression(LOGICAL);
     }
 
     /**
      * Parses the {@code comparison-expression} rule.
      */
     public Ast.Expression parseComparisonExpression() throws ParseException {
-        Ast.Expression leftOperand =  parseAdditiveExpression();
-        if (peek("!=") || peek("==") || peek(">") || peek("<")){
-            String operator = tokens.get(0).getLiteral();
-            match(operator);
-            Ast.Expression rightOperand =  parseComparisonExpression();
-            leftOperand = new Ast.Expression.Binary(operator, leftOperand, rightOperand);
-        }
-        return leftOperand;
+        return parseBinaryExpression(COMPARISON);
     }
 
     /**
      * Parses the {@code additive-expression} rule.
      */
     public Ast.Expression parseAdditiveExpression() throws ParseException {
-        Ast.Expression leftOperand =  parseMultiplicativeExpression();
-        if (peek("-") || peek("+")){
-            String operator = tokens.get(0).getLiteral();
-            match(operator);
-            Ast.Expression rightOperand =  parseComparisonExpression();
-            leftOperand = new Ast.Expression.Binary(operator, leftOperand, rightOperand);
-        }
-        return leftOperand;
+        return parseBinaryExpression(ADDITIVE);
     }
 
     /**
      * Parses the {@code multiplicative-expression} rule.
      */
     public Ast.Expression parseMultiplicativeExpression() throws ParseException {
-        Ast.Expression leftOperand =  parsePrimaryExpression();
-        if (peek("^") || peek("/") || peek("*")){
-            String operator = tokens.get(0).getLiteral();
-            match(operator);
-            Ast.Expression rightOperand =  parseComparisonExpression();
-            leftOperand = new Ast.Expression.Binary(operator, leftOperand, rightOperand);
+        return parseBinaryExpression(MULTIPLICATIVE);
+    }
+
+    /**
+     * Parses binary operators with at least the given precedence. Rather than
+     * recursing for each operand, this is an operator precedence parser over
+     * two explicit stacks: one of operands, and one of pending operators and
+     * the groups, function calls and offsets still open around them. Each
+     * open bracket starts a new expression which accepts any operator, so the
+     * Java stack stays bounded however deeply the expression is nested.
+     */
+    private Ast.Expression parseBinaryExpression(int minimum) throws ParseException {
+        List<Ast.Expression> operands = new ArrayList<>();
+        List<Object> operators = new ArrayList<>();
+        int open = 0;
+        while (true) {
+            Ast.Expression operand = parseOperand(operators);
+            if (operand == null) {
+                open++;
+                continue;
+            }
+            operands.add(operand);
+            while (true) {
+                int precedence = precedence();
+                if (precedence != NONE && precedence >= (open > 0 ? LOGICAL : minimum)) {
+                    reduce(operands, operators, precedence);
+                    operators.add(tokens.getLiteral(0));
+                    tokens.advance();
+                    break;
+                }
+                reduce(operands, operators, LOGICAL);
+                if (open == 0) {
+                    return operands.remove(operands.size() - 1);
+                }
+                Nesting nesting = (Nesting) operators.remove(operators.size() - 1);
+                Ast.Expression expression = operands.remove(operands.size() - 1);
+                if (nesting.kind == Nesting.Kind.CALL) {
+                    nesting.arguments.add(expression);
+                    if (match(",")) {
+                        operators.add(nesting);
+                        break;
+                    } else if (!match(")")) {
+                        throw error("Expected closing parenthesis");
+                    }
+                    operands.add(new Ast.Expression.Function(nesting.name, nesting.arguments));
+                } else if (nesting.kind == Nesting.Kind.OFFSET) {
+                    match("]");
+                    operands.add(new Ast.Expression.Access(Optional.of(expression), nesting.name));
+                } else if (match(")")) {
+                    operands.add(new Ast.Expression.Group(expression));
+                } else {
+                    throw error("Expected Closing Parenthesis");
+                }
+                open--;
+            }
+        }
+    }
+
+    /**
+     * Combines the operands of pending operators with at least the given
+     * precedence, stopping at the innermost open bracket.
+     */
+    private static void reduce(List<Ast.Expression> operands, List<Object> operators, int minimum) {
+        while (!operators.isEmpty() && operators.get(operators.size() - 1) instanceof String
+                && precedence((String) operators.get(operators.size() - 1)) >= minimum) {
+            String operator = (String) operators.remove(operators.size() - 1);
+            Ast.Expression right = operands.remove(operands.size() - 1);
+            Ast.Expression left = operands.remove(operands.size() - 1);
+            operands.add(new Ast.Expression.Binary(operator, left, right));
+        }
+    }
+
+    /**
+     * A group, function call or offset whose closing bracket hasn't been
+     * parsed yet, along with the name and arguments parsed so far.
+     */
+    private static final class Nesting {
+
+        private enum Kind {
+            GROUP, CALL, OFFSET
+        }
+
+        private final Kind kind;
+        private final String name;
+        private final List<Ast.Expression> arguments;
+
+        private Nesting(Kind kind, String name) {
+            this.kind = kind;
+            this.name = name;
+            this.arguments = kind == Kind.CALL ? new ArrayList<>() : null;
+        }
+
+    }
+
+    /**
+     * Returns the precedence of the next token as a binary operator, or
+     * {@link #NONE} if it isn't one. As with {@link #peek(String)} only the
+     * literal is checked, since the lexer emits a lone {@code -} as an
+     * integer.
+     */
+    private int precedence() {
+        return tokens.has(0) ? precedence(tokens.getLiteral(0)) : NONE;
+    }
+
+    /**
+     * Operator literals are shared strings, so this is a table lookup on the
+     * first character rather than a comparison against each operator.
+     */
+    private static int precedence(String literal) {
+        if (literal.isEmpty() || literal.charAt(0) >= PRECEDENCE.length) {
+            return NONE;
+        }
+        char first = literal.charAt(0);
+        if (literal.length() == 1) {
+            return PRECEDENCE[first];
+        } else if (literal.length() == 2 && literal.charAt(1) == (first == '!' ? '=' : first)) {
+            return COMPOUND_PRECEDENCE[first];
         }
-        return leftOperand;
+        return NONE;
     }
 
     /**
      * Parses the {@code primary-expression} rule. This is the top-level rule
      * for expressions and includes literal values, grouping, variables, and
-     * functions. It may be helpful to break these up into other methods but is
-     * not strictly necessary.
+     * functions.
      */
     public Ast.Expression parsePrimaryExpression() throws ParseException {
+        return parseBinaryExpression(PRIMARY);
+    }
+
+    /**
+     * Parses a primary expression up to its first nested expression. Literals,
+     * variables and calls without arguments are returned; otherwise the opened
+     * group, call or offset is pushed onto the operators and null is
+     * returned.
+     */
+    private Ast.Expression parseOperand(List<Object> operators) throws ParseException {
         if (peek("NIL")) {
             Ast.Expression output = new Ast.Expression.Literal(null);
             match("NIL");
@@ -613,23 +873,23 @@ public final class Parser {
             match("FALSE");
             return output;
         } else if (peek(Token.Type.INTEGER)) {
-            BigInteger number = new BigInteger(tokens.get(0).getLiteral());
+            BigInteger number = new BigInteger(tokens.getLiteral(0));
             Ast.Expression output = new Ast.Expression.Literal(number);
             match(Token.Type.INTEGER);
             return output;
         } else if (peek(Token.Type.DECIMAL)) {
-            BigDecimal number = new BigDecimal(tokens.get(0).getLiteral());
+            BigDecimal number = new BigDecimal(tokens.getLiteral(0));
             Ast.Expression output = new Ast.Expression.Literal(number);
             match(Token.Type.DECIMAL);
             return output;
         } else if (peek(Token.Type.CHARACTER)) {
-            String newString = tokens.get(0).getLiteral();
+            String newString = tokens.getLiteral(0);
             newString = newString.replace("\'", "");
             Ast.Expression output = new Ast.Expression.Literal(newString.charAt(0));
             match(Token.Type.CHARACTER);
             return output;
         } else if (peek(Token.Type.STRING)) {
-            String newString = tokens.get(0).getLiteral();
+            String newString = tokens.getLiteral(0);
             newString = newString.replace("\"", "");
             newString = newString.replace("\\\\", "\\");
             newString = newString.replace("\\n", "\n");
@@ -641,66 +901,47 @@ public final class Parser {
             return output;
         } else if (peek("(")) {
             match("(");
-            Ast.Expression output = new Ast.Expression.Group(parseExpression());
-            if (match(")")) {
-                return output;
-            } else {
-                if(tokens.has(0)) {
-                    throw  new ParseException("Expected Closing Parenthesis", tokens.get(0).getIndex());
-                }
-                Token prevToken = tokens.get(-1);
-                int tokenLength = prevToken.getLiteral().length();
-                throw new ParseException("Expected Closing Parenthesis", prevToken.getIndex() + tokenLength);
-            }
+            operators.add(new Nesting(Nesting.Kind.GROUP, null));
+            return null;
         } else if (peek(Token.Type.IDENTIFIER)) {
-            String id = tokens.get(0).getLiteral();
+            String id = tokens.getLiteral(0);
             match(id);
 
             if (peek("(")) {
                 match("(");
-                List<Ast.Expression> expressions = new ArrayList<>();
-
-                if (!peek(")")) {
-                    do {
-                        expressions.add(parseExpression());
-                    } while (match(","));
-                }
-
                 if (match(")")) {
-                    return new Ast.Expression.Function(id, expressions);
-                } else {
-                    if(tokens.has(0)) {
-                        throw  new ParseException("Expected closing parenthesis", tokens.get(0).getIndex());
-                    }
-                    Token prevToken = tokens.get(-1);
-                    int tokenLength = prevToken.getLiteral().length();
-                    throw new ParseException("Expected closing parenthesis", prevToken.getIndex() + tokenLength);
+                    return new Ast.Expression.Function(id, new ArrayList<>());
                 }
+                operators.add(new Nesting(Nesting.Kind.CALL, id));
+                return null;
             } else if (peek("[")) {
                 match("[");
-                Ast.Expression output = null;
-
-                if (!peek("]")) {
-                    output = parseExpression();
+                if (match("]")) {
+                    return new Ast.Expression.Access(Optional.empty(), id);
                 }
-
-                match("]");  // Add this line
-                return new Ast.Expression.Access(Optional.ofNullable(output), id);
+                operators.add(new Nesting(Nesting.Kind.OFFSET, id));
+                return null;
             } else {
                 Ast.Expression output = new Ast.Expression.Access(Optional.empty(), id);
                 return output;
             }
         }
+        throw error("Invalid expression");
+    }
 
-        if (tokens.has(0)){
-            throw new ParseException("Invalid expression", tokens.get(0).getIndex());
+    /**
+     * Returns an error at the next token, or just past the last token if
+     * there are none left.
+     */
+    private ParseException error(String message) {
+        if (tokens.has(0)) {
+            return new ParseException(message, tokens.get(0).getIndex());
         }
         Token prevToken = tokens.get(-1);
         int tokenLength = prevToken.getLiteral().length();
-        throw new ParseException("Invalid expression", prevToken.getIndex() + tokenLength);
+        return new ParseException(message, prevToken.getIndex() + tokenLength);
     }
 
-
     /**
      * As in the lexer, returns {@code true} if the current sequence of tokens
      * matches the given patterns. Unlike the lexer, the pattern is not a regex;
@@ -716,11 +957,11 @@ public final class Parser {
             if(!tokens.has(i)){
                 return false;
             } else if (patterns[i] instanceof Token.Type){
-                if(patterns[i] != tokens .get(i).getType()){
+                if(patterns[i] != tokens.getType(i)){
                     return false;
                 }
             } else if (patterns[i] instanceof String) {
-                if(!patterns[i].equals(tokens.get(i).getLiteral())){
+                if(!tokens.literalEquals(i, (String) patterns[i])){
                     return false;
                 }
             } else {
@@ -730,6 +971,34 @@ public final class Parser {
         return true;
     }
 
+    /**
+     * Single pattern forms of {@link #peek(Object...)}, which compare against
+     * the token without allocating a pattern array or the token's literal.
+     */
+    private boolean peek(String literal) {
+        return tokens.has(0) && tokens.literalEquals(0, literal);
+    }
+
+    private boolean peek(Token.Type type) {
+        return tokens.has(0) && tokens.getType(0) == type;
+    }
+
+    private boolean match(String literal) {
+        boolean peek = peek(literal);
+        if (peek) {
+            tokens.advance();
+        }
+        return peek;
+    }
+
+    private boolean match(Token.Type type) {
+        boolean peek = peek(type);
+        if (peek) {
+            tokens.advance();
+        }
+        return peek;
+    }
+
     /**
      * As in the lexer, returns {@code true} if {@link #peek(Object...)} is true
      * and advances the token stream.
@@ -745,27 +1014,81 @@ public final class Parser {
         return peek;
     }
 
+    /**
+     * Provides indexed access to the tokens. A list of tokens is indexed
+     * directly, while an iterator is pulled into a small ring buffer holding
+     * the previous token (for error positions) and the lookahead used by
+     * {@link #peek(Object...)}.
+     */
     private static final class TokenStream {
 
-        private final List<Token> tokens;
+        private static final int CAPACITY = 8;
+        private static final int MASK = CAPACITY - 1;
+
+        private final List<Token> list;
+        private final TokenBuffer columns;
+        private final Iterator<Token> iterator;
+        private final Token[] buffer;
+        private int filled;
         private int index = 0;
 
         private TokenStream(List<Token> tokens) {
-            this.tokens = tokens;
+            this.list = tokens;
+            this.columns = tokens instanceof TokenBuffer ? (TokenBuffer) tokens : null;
+            this.iterator = null;
+            this.buffer = null;
+            this.filled = tokens.size();
+        }
+
+        private TokenStream(Iterator<Token> tokens) {
+            this.list = null;
+            this.columns = null;
+            this.iterator = tokens;
+            this.buffer = new Token[CAPACITY];
+            this.filled = 0;
         }
 
         /**
          * Returns true if there is a token at index + offset.
          */
         public boolean has(int offset) {
-            return index + offset < tokens.size();
+            return index + offset < filled || (iterator != null && fill(offset));
         }
 
         /**
-         * Gets the token at index + offset.
+         * Gets the token at index + offset. When reading from an iterator, the
+         * offset must be at least -1.
          */
         public Token get(int offset) {
-            return tokens.get(index + offset);
+            if (list != null) {
+                return list.get(index + offset);
+            } else if (offset < -1 || index + offset < 0 || !has(offset)) {
+                throw new IndexOutOfBoundsException("Index " + (index + offset) + " is not buffered.");
+            }
+            return buffer[(index + offset) & MASK];
+        }
+
+        /**
+         * Gets the type of the token at index + offset, reading the columns
+         * directly when the tokens are in a {@link TokenBuffer}.
+         */
+        public Token.Type getType(int offset) {
+            return columns != null ? columns.getType(index + offset) : get(offset).getType();
+        }
+
+        /**
+         * Gets the literal of the token at index + offset.
+         */
+        public String getLiteral(int offset) {
+            return columns != null ? columns.getLiteral(index + offset) : get(offset).getLiteral();
+        }
+
+        /**
+         * Returns true if the literal of the token at index + offset is equal
+         * to the given string, without materializing the literal.
+         */
+        public boolean literalEquals(int offset, String literal) {
+            return columns != null ? columns.literalEquals(index + offset, literal) : get(offset).literalEquals(literal);
         }
 
         /**
@@ -775,6 +1098,22 @@ public final class Parser {
             index++;
         }
 
+        /**
+         * Pulls tokens until index + offset is buffered or the iterator is
+         * exhausted. The lookahead is limited so the previous token is never
+         * overwritten.
+         */
+        private boolean fill(int offset) {
+            if (offset >= MASK) {
+                throw new IndexOutOfBoundsException("Lookahead " + offset + " exceeds the token buffer.");
+            }
+            while (filled <= index + offset && iterator.hasNext()) {
+                buffer[filled & MASK] = iterator.next();
+                filled++;
+            }
+            return index + offset < filled;
+        }
+
     }
 
 }
@@ -0,0 +1,246 @@
+package plc.project;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Assigns each variable a (depth, slot) coordinate so the {@link Interpreter}
+ * can address it with array loads instead of looking up names in scopes. The
+ * globals occupy one frame and each function invocation another, with depth
+ * counting the frames between an access and its declaration.
+ *
+ * Blocks are resolved exactly as the interpreter scopes them: a {@code WHILE}
+ * body is a new block on each iteration, while {@code IF} and {@code SWITCH}
+ * branches declare into the enclosing block. Accesses which cannot be resolved
+ * are left unresolved and looked up by name at runtime, as are functions where
+ * a branch conditionally shadows a variable of an outer block.
+ */
+public final class Resolver implements Ast.Visitor<Void> {
+
+    private Frame frame;
+
+    @Override
+    public Void visit(Ast.Source ast) {
+        frame = new Frame(null);
+        for (Ast.Global global : ast.getGlobals()) {
+            visit(global);
+        }
+        ast.setFrameSize(frame.size);
+        for (Ast.Function function : ast.getFunctions()) {
+            visit(function);
+        }
+        frame = null;
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Global ast) {
+        ast.getValue().ifPresent(this::visit);
+        ast.setSlot(frame.declare(ast.getName()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Function ast) {
+        // Duplicate parameters fail when the function is invoked, which is
+        // left to the name based path. A function resolved on its own, outside
+        // of a source, has no frame of globals.
+        Set<String> parameters = new HashSet<>(ast.getParameters());
+        if (parameters.size() != ast.getParameters().size()) {
+            return null;
+        }
+        frame = new Frame(frame);
+        try {
+            ast.getParameters().forEach(frame::declare);
+            ast.getStatements().forEach(this::visit);
+            if (!frame.ambiguous) {
+                ast.setFrameSize(frame.size);
+            }
+        } finally {
+            frame = frame.parent;
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Expression ast) {
+        visit(ast.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Declaration ast) {
+        ast.getValue().ifPresent(this::visit);
+        if (frame.conditional > 0 && frame.shadows(ast.getName())) {
+            frame.ambiguous = true;
+        }
+        ast.setSlot(frame.declare(ast.getName()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Assignment ast) {
+        visit(ast.getReceiver());
+        visit(ast.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.If ast) {
+        visit(ast.getCondition());
+        frame.conditional++;
+        ast.getThenStatements().forEach(this::visit);
+        ast.getElseStatements().forEach(this::visit);
+        frame.conditional--;
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Switch ast) {
+        visit(ast.getCondition());
+        frame.conditional++;
+        ast.getCases().forEach(this::visit);
+        frame.conditional--;
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Case ast) {
+        ast.getValue().ifPresent(this::visit);
+        ast.getStatements().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.While ast) {
+        visit(ast.getCondition());
+        int first = frame.size;
+        int conditional = frame.conditional;
+        frame.blocks.push(new HashMap<>());
+        frame.conditional = 0;
+        try {
+            ast.getStatements().forEach(this::visit);
+        } finally {
+            frame.blocks.pop();
+            frame.conditional = conditional;
+        }
+        ast.setSlots(first, frame.size);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Return ast) {
+        visit(ast.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Literal ast) {
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Group ast) {
+        expression(ast);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Binary ast) {
+        expression(ast);
+        return null;
+    }
+
+    /**
+     * Visits the operands of nested binary expressions and groups from an
+     * explicit stack, so deeply nested expressions don't overflow the Java
+     * stack.
+     */
+    private void expression(Ast.Expression ast) {
+        Deque<Ast.Expression> pending = new ArrayDeque<>();
+        pending.push(ast);
+        while (!pending.isEmpty()) {
+            Ast.Expression expression = pending.pop();
+            if (expression instanceof Ast.Expression.Binary) {
+                pending.push(((Ast.Expression.Binary) expression).getRight());
+                pending.push(((Ast.Expression.Binary) expression).getLeft());
+            } else if (expression instanceof Ast.Expression.Group) {
+                pending.push(((Ast.Expression.Group) expression).getExpression());
+            } else {
+                visit(expression);
+            }
+        }
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Access ast) {
+        ast.getOffset().ifPresent(this::visit);
+        int depth = 0;
+        for (Frame current = frame; current != null; current = current.parent, depth++) {
+            for (Map<String, Integer> block : current.blocks) {
+                Integer slot = block.get(ast.getName());
+                if (slot != null) {
+                    ast.setSlot(depth, slot);
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Function ast) {
+        ast.getArguments().forEach(this::visit);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.PlcList ast) {
+        ast.getValues().forEach(this::visit);
+        return null;
+    }
+
+    /**
+     * The blocks of a frame, innermost first, and the number of slots used.
+     * Slots are never reused, so every declaration keeps its own slot.
+     */
+    private static final class Frame {
+
+        private final Frame parent;
+        private final Deque<Map<String, Integer>> blocks = new ArrayDeque<>();
+        private int size = 0;
+        private int conditional = 0;
+        private boolean ambiguous = false;
+
+        private Frame(Frame parent) {
+            this.parent = parent;
+            blocks.push(new HashMap<>());
+        }
+
+        /**
+         * Declares the name in the innermost block. Declaring a name twice in
+         * the same block reuses its slot, so the interpreter can report the
+         * redefinition when the second declaration runs.
+         */
+        private int declare(String name) {
+            return blocks.peek().computeIfAbsent(name, n -> size++);
+        }
+
+        /**
+         * Returns true if declaring the name in the innermost block would
+         * shadow a variable of an outer block of this frame.
+         */
+        private boolean shadows(String name) {
+            if (blocks.peek().containsKey(name)) {
+                return false;
+            }
+            return blocks.stream().anyMatch(block -> block.containsKey(name));
+        }
+
+    }
+
+}
@@ -1,19 +1,33 @@
 package plc.project;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 public final class Scope {
 
     private final Scope parent;
     private final Map<String, Environment.Variable> variables = new HashMap<>();
-    private final Map<String, Environment.Function> functions = new HashMap<>();
+    /**
+     * Functions by name, then by arity as an index into the array, so that a
+     * lookup does not build a {@code name/arity} key.
+     */
+    private final Map<String, Environment.Function[]> functions = new HashMap<>();
+
+    /**
+     * Incremented whenever a function is defined in any scope under the same
+     * root, which this shares, invalidating the {@link Binding}s made from
+     * those scopes but not from other scope trees.
+     */
+    private final AtomicInteger generation;
 
     public Scope(Scope parent) {
         this.parent = parent;
+        this.generation = parent != null ? parent.generation : new AtomicInteger();
     }
 
     public Scope getParent() {
@@ -53,32 +67,94 @@ public final class Scope {
     }
 
     public Environment.Function defineFunction(String name, String jvmName, List<Environment.Type> parameterTypes, Environment.Type returnType, java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
-        if (functions.containsKey(name + "/" + parameterTypes.size())) {
-            throw new RuntimeException("The function " + name + "/" + parameterTypes.size() + " is already defined in this scope.");
+        int arity = parameterTypes.size();
+        if (getFunction(name, arity) != null) {
+            throw new RuntimeException("The function " + name + "/" + arity + " is already defined in this scope.");
         } else {
             Environment.Function func = new Environment.Function(name, jvmName, parameterTypes, returnType, function);
-            functions.put(func.getName() + "/" + func.getParameterTypes().size(), func);
+            Environment.Function[] overloads = functions.get(name);
+            if (overloads == null || overloads.length <= arity) {
+                overloads = overloads == null ? new Environment.Function[arity + 1] : Arrays.copyOf(overloads, arity + 1);
+                functions.put(name, overloads);
+            }
+            overloads[arity] = func;
+            generation.incrementAndGet();
             return func;
         }
     }
 
     public Environment.Function lookupFunction(String name, int arity) {
-        if (functions.containsKey(name + "/" + arity)) {
-            return functions.get(name + "/" + arity);
-        } else if (parent != null) {
-            return parent.lookupFunction(name, arity);
-        } else {
-            throw new RuntimeException("The function " + name + "/" + arity + " is not defined in this scope.");
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            Environment.Function function = scope.getFunction(name, arity);
+            if (function != null) {
+                return function;
+            }
         }
+        throw new RuntimeException("The function " + name + "/" + arity + " is not defined in this scope.");
+    }
+
+    /**
+     * Looks up a function through the binding of a call site, which is reused
+     * while the lookup is from the same scope and no function has been defined
+     * since it was bound.
+     */
+    public Environment.Function lookupFunction(String name, int arity, Binding binding) {
+        int current = generation.get();
+        Binding.Resolved resolved = binding.resolved;
+        if (resolved == null || resolved.scope != this || resolved.generation != current) {
+            resolved = new Binding.Resolved(this, current, lookupFunction(name, arity));
+            binding.resolved = resolved;
+        }
+        return resolved.function;
+    }
+
+    private Environment.Function getFunction(String name, int arity) {
+        Environment.Function[] overloads = functions.get(name);
+        return overloads != null && arity < overloads.length ? overloads[arity] : null;
     }
 
     @Override
     public String toString() {
+        List<String> functionKeys = new ArrayList<>();
+        functions.forEach((name, overloads) -> {
+            for (int arity = 0; arity < overloads.length; arity++) {
+                if (overloads[arity] != null) {
+                    functionKeys.add(name + "/" + arity);
+                }
+            }
+        });
         return "Scope{" +
                 "parent=" + parent +
                 ", variables=" + variables.keySet() +
-                ", functions=" + functions.keySet() +
+                ", functions=" + functionKeys +
                 '}';
     }
 
+    /**
+     * The function a call site last resolved to, along with the scope it was
+     * looked up from. See {@link #lookupFunction(String, int, Binding)}. The
+     * three are published together as one immutable snapshot, so a call site
+     * shared by interpreters on different threads never pairs the scope of
+     * one with the function of another.
+     */
+    public static final class Binding {
+
+        private volatile Resolved resolved;
+
+        private static final class Resolved {
+
+            private final Scope scope;
+            private final int generation;
+            private final Environment.Function function;
+
+            private Resolved(Scope scope, int generation, Environment.Function function) {
+                this.scope = scope;
+                this.generation = generation;
+                this.function = function;
+            }
+
+        }
+
+    }
+
 }
@@ -0,0 +1,333 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An incremental compilation session over a source which is edited in place.
+ * The source is split into its globals, which are always rebuilt, and one
+ * region per function, running from its {@code FUN} to the next. An edit
+ * within a single function region lexes and parses only that region, then
+ * analyzes only that function body; callers of the function are analyzed
+ * again only if its signature changed. Anything else, including an edit
+ * which doesn't parse as exactly one function, rebuilds the whole source.
+ */
+public final class Session {
+
+    private String input;
+    private List<Ast.Global> globals;
+    private final List<Unit> units = new ArrayList<>();
+    private Analyzer analyzer;
+    private Scope globalScope;
+    private Scope functionScope;
+
+    /**
+     * The error from the last rebuild, in which case there are no units.
+     */
+    private RuntimeException failure;
+    private int reanalyzed;
+
+    public Session(String input) {
+        this.input = input;
+        rebuild();
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    /**
+     * Returns the analyzed source, or throws the error from lexing, parsing
+     * or analyzing the globals.
+     */
+    public Ast.Source getSource() {
+        if (failure != null) {
+            throw failure;
+        }
+        List<Ast.Function> functions = new ArrayList<>(units.size());
+        for (Unit unit : units) {
+            functions.add(unit.ast);
+        }
+        return new Ast.Source(globals, functions);
+    }
+
+    /**
+     * Returns the number of function bodies analyzed by the last edit.
+     */
+    public int getReanalyzed() {
+        return reanalyzed;
+    }
+
+    /**
+     * Returns every error in source order: an error lexing, parsing or
+     * analyzing the globals on its own, else the first error in each function
+     * followed by a missing main function.
+     */
+    public List<RuntimeException> getErrors() {
+        List<RuntimeException> errors = new ArrayList<>();
+        if (failure != null) {
+            errors.add(failure);
+            return errors;
+        }
+        List<Ast.Function> functions = new ArrayList<>(units.size());
+        for (Unit unit : units) {
+            if (unit.declarationError != null) {
+                errors.add(unit.declarationError);
+            } else if (unit.bodyError != null) {
+                errors.add(unit.bodyError);
+            }
+            functions.add(unit.ast);
+        }
+        try {
+            Analyzer.requireMain(functions);
+        } catch (RuntimeException e) {
+            errors.add(e);
+        }
+        return errors;
+    }
+
+    /**
+     * Replaces the characters from start (inclusive) to end (exclusive) with
+     * the replacement and returns the errors afterwards.
+     */
+    public List<RuntimeException> edit(int start, int end, String replacement) {
+        Objects.checkFromToIndex(start, end, input.length());
+        Unit unit = failure == null ? find(start, end) : null;
+        input = input.substring(0, start) + replacement + input.substring(end);
+        reanalyzed = 0;
+        if (unit == null || !reparse(unit, replacement.length() - (end - start))) {
+            rebuild();
+        }
+        return getErrors();
+    }
+
+    private void rebuild() {
+        units.clear();
+        failure = null;
+        try {
+            List<Token> tokens = new Lexer(input).lex();
+            Ast.Source source = new Parser(tokens).parseSource();
+            globals = source.getGlobals();
+            analyzer = new Analyzer(null);
+            for (Ast.Global global : globals) {
+                analyzer.visit(global);
+            }
+            globalScope = analyzer.scope;
+
+            // Each function region starts at its FUN, which can't appear
+            // anywhere else, and ends where the next one starts
+            List<Integer> starts = new ArrayList<>();
+            for (Token token : tokens) {
+                if (token.getType() == Token.Type.IDENTIFIER && token.getLiteral().equals("FUN")) {
+                    starts.add(token.getIndex());
+                }
+            }
+            for (int i = 0; i < source.getFunctions().size(); i++) {
+                int end = i + 1 < starts.size() ? starts.get(i + 1) : input.length();
+                units.add(new Unit(source.getFunctions().get(i), starts.get(i), end));
+            }
+        } catch (RuntimeException e) {
+            units.clear();
+            failure = e;
+            return;
+        }
+        declare();
+        for (Unit unit : units) {
+            analyze(unit);
+        }
+    }
+
+    /**
+     * Returns the function region containing the edit, if any.
+     */
+    private Unit find(int start, int end) {
+        int low = 0;
+        int high = units.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Unit unit = units.get(middle);
+            if (start < unit.start) {
+                high = middle - 1;
+            } else if (start > unit.end || start == unit.end && middle + 1 < units.size()) {
+                low = middle + 1;
+            } else {
+                return end <= unit.end ? unit : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lexes, parses and analyzes the edited function region, returning false
+     * if it doesn't parse as exactly one function.
+     */
+    private boolean reparse(Unit unit, int delta) {
+        int from = unit.start;
+        int to = unit.end + delta;
+        if (from > 0 && !isWhitespace(input.charAt(from - 1)) || to < input.length() && !isWhitespace(input.charAt(to - 1))) {
+            return false;
+        }
+        Ast.Source parsed;
+        try {
+            List<Token> tokens = new ArrayList<>();
+            for (Token token : new Lexer(input.substring(from, to)).lex()) {
+                tokens.add(new Token(token.getType(), token.getLiteral(), token.getIndex() + from));
+            }
+            parsed = new Parser(tokens).parseSource();
+        } catch (ParseException e) {
+            return false;
+        }
+        if (!parsed.getGlobals().isEmpty() || parsed.getFunctions().size() != 1) {
+            return false;
+        }
+
+        int index = units.indexOf(unit);
+        unit.end = to;
+        for (int i = index + 1; i < units.size(); i++) {
+            units.get(i).start += delta;
+            units.get(i).end += delta;
+        }
+        Ast.Function previous = unit.ast;
+        unit.ast = parsed.getFunctions().get(0);
+        if (unit.declarationError == null && signature(previous).equals(signature(unit.ast))) {
+            unit.ast.setFunction(previous.getFunction());
+            analyze(unit);
+        } else {
+            // Functions can't be removed from a scope, so every signature is
+            // declared again and anything affected is analyzed again
+            Set<String> keys = new HashSet<>(List.of(key(previous), key(unit.ast)));
+            boolean[] declared = new boolean[units.size()];
+            for (int i = 0; i < units.size(); i++) {
+                declared[i] = units.get(i).declarationError == null;
+            }
+            declare();
+            for (int i = 0; i < units.size(); i++) {
+                Unit other = units.get(i);
+                boolean changed = declared[i] != (other.declarationError == null);
+                if (other == unit || changed || other.calls.stream().anyMatch(keys::contains)) {
+                    analyze(other);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Declares every function in a new scope below the globals.
+     */
+    private void declare() {
+        analyzer.scope = new Scope(globalScope);
+        for (Unit unit : units) {
+            try {
+                analyzer.declare(unit.ast);
+                unit.declarationError = null;
+            } catch (RuntimeException e) {
+                unit.declarationError = e;
+            }
+        }
+        functionScope = analyzer.scope;
+    }
+
+    private void analyze(Unit unit) {
+        unit.bodyError = null;
+        unit.calls.clear();
+        if (unit.declarationError != null) {
+            return;
+        }
+        reanalyzed++;
+        analyzer.scope = functionScope;
+        try {
+            analyzer.body(unit.ast);
+        } catch (RuntimeException e) {
+            unit.bodyError = e;
+        }
+        for (Ast.Statement statement : unit.ast.getStatements()) {
+            calls(statement, unit.calls);
+        }
+    }
+
+    private static List<Object> signature(Ast.Function ast) {
+        return List.of(ast.getName(), ast.getParameterTypeNames(), ast.getReturnTypeName());
+    }
+
+    private static String key(Ast.Function ast) {
+        return ast.getName() + "/" + ast.getParameters().size();
+    }
+
+    /**
+     * Collects the name/arity of every function called in the statement,
+     * walking it with an explicit stack so deep expressions don't overflow
+     * the Java stack.
+     */
+    private static void calls(Ast ast, Set<String> calls) {
+        List<Ast> pending = new ArrayList<>();
+        pending.add(ast);
+        while (!pending.isEmpty()) {
+            Ast next = pending.remove(pending.size() - 1);
+            if (next instanceof Ast.Statement.Expression) {
+                pending.add(((Ast.Statement.Expression) next).getExpression());
+            } else if (next instanceof Ast.Statement.Declaration) {
+                ((Ast.Statement.Declaration) next).getValue().ifPresent(pending::add);
+            } else if (next instanceof Ast.Statement.Assignment) {
+                pending.add(((Ast.Statement.Assignment) next).getReceiver());
+                pending.add(((Ast.Statement.Assignment) next).getValue());
+            } else if (next instanceof Ast.Statement.If) {
+                pending.add(((Ast.Statement.If) next).getCondition());
+                pending.addAll(((Ast.Statement.If) next).getThenStatements());
+                pending.addAll(((Ast.Statement.If) next).getElseStatements());
+            } else if (next instanceof Ast.Statement.Switch) {
+                pending.add(((Ast.Statement.Switch) next).getCondition());
+                for (Ast.Statement.Case switchCase : ((Ast.Statement.Switch) next).getCases()) {
+                    switchCase.getValue().ifPresent(pending::add);
+                    pending.addAll(switchCase.getStatements());
+                }
+            } else if (next instanceof Ast.Statement.While) {
+                pending.add(((Ast.Statement.While) next).getCondition());
+                pending.addAll(((Ast.Statement.While) next).getStatements());
+            } else if (next instanceof Ast.Statement.Return) {
+                pending.add(((Ast.Statement.Return) next).getValue());
+            } else if (next instanceof Ast.Expression.Group) {
+                pending.add(((Ast.Expression.Group) next).getExpression());
+            } else if (next instanceof Ast.Expression.Binary) {
+                pending.add(((Ast.Expression.Binary) next).getLeft());
+                pending.add(((Ast.Expression.Binary) next).getRight());
+            } else if (next instanceof Ast.Expression.Access) {
+                ((Ast.Expression.Access) next).getOffset().ifPresent(pending::add);
+            } else if (next instanceof Ast.Expression.Function) {
+                Ast.Expression.Function function = (Ast.Expression.Function) next;
+                calls.add(function.getName() + "/" + function.getArguments().size());
+                pending.addAll(function.getArguments());
+            } else if (next instanceof Ast.Expression.PlcList) {
+                pending.addAll(((Ast.Expression.PlcList) next).getValues());
+            }
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\b' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    /**
+     * A function, its region of the input and the state of its analysis.
+     */
+    private static final class Unit {
+
+        private Ast.Function ast;
+        private int start;
+        private int end;
+        private RuntimeException declarationError;
+        private RuntimeException bodyError;
+        private final Set<String> calls = new HashSet<>();
+
+        private Unit(Ast.Function ast, int start, int end) {
+            this.ast = ast;
+            this.start = start;
+            this.end = end;
+        }
+
+    }
+
+}
@@ -1,5 +1,7 @@
 package plc.project;
 
+import java.util.Arrays;
+
 public final class Token {
 
     public enum Type {
@@ -11,14 +13,58 @@ public final class Token {
         OPERATOR
     }
 
+    private static final Type[] TYPES = Type.values();
+
+    /**
+     * Literals which are shared between all tokens instead of being copied out
+     * of the source, indexed by length for keywords and by character for
+     * single character operators.
+     */
+    private static final String[][] KEYWORDS = new String[16][];
+    private static final String[] OPERATORS = new String[128];
+    private static final String[] COMPOUND_OPERATORS = {"<=", ">=", "!=", "==", "&&"};
+
+    static {
+        String[] keywords = {
+                "LIST", "VAR", "VAL", "FUN", "DO", "END", "LET", "IF", "ELSE",
+                "SWITCH", "CASE", "DEFAULT", "WHILE", "RETURN", "NIL", "TRUE", "FALSE",
+                "Any", "Nil", "Comparable", "Boolean", "Integer", "Decimal", "Character",
+                "String", "print"
+        };
+        for (String keyword : keywords) {
+            String[] existing = KEYWORDS[keyword.length()];
+            String[] updated = existing == null ? new String[1] : Arrays.copyOf(existing, existing.length + 1);
+            updated[updated.length - 1] = keyword;
+            KEYWORDS[keyword.length()] = updated;
+        }
+        for (char c = 0; c < OPERATORS.length; c++) {
+            OPERATORS[c] = String.valueOf(c).intern();
+        }
+    }
+
     private final Type type;
-    private final String literal;
+    private final String source;
     private final int index;
+    private final int length;
+    private String literal;
 
     public Token(Type type, String literal, int index) {
         this.type = type;
+        this.source = null;
         this.literal = literal;
         this.index = index;
+        this.length = literal == null ? 0 : literal.length();
+    }
+
+    /**
+     * Creates a token whose literal is the given region of the source, which
+     * is only copied out if {@link #getLiteral()} is called.
+     */
+    Token(Type type, String source, int index, int length) {
+        this.type = type;
+        this.source = source;
+        this.index = index;
+        this.length = length;
     }
 
     public Type getType() {
@@ -26,6 +72,9 @@ public final class Token {
     }
 
     public String getLiteral() {
+        if (literal == null && source != null) {
+            literal = literal(type, source, index, length);
+        }
         return literal;
     }
 
@@ -33,17 +82,63 @@ public final class Token {
         return index;
     }
 
+    /**
+     * Returns the length of the literal without materializing it.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns true if the literal is equal to the given string, comparing
+     * against the source directly if the literal has not been materialized.
+     */
+    public boolean literalEquals(String string) {
+        if (literal != null) {
+            return literal.equals(string);
+        }
+        return string.length() == length && source.startsWith(string, index);
+    }
+
+    static Type type(int ordinal) {
+        return TYPES[ordinal];
+    }
+
+    /**
+     * Returns the literal for the given region of the source, reusing a shared
+     * string for keywords and operators.
+     */
+    static String literal(Type type, String source, int index, int length) {
+        if (type == Type.OPERATOR) {
+            if (length == 1 && source.charAt(index) < OPERATORS.length) {
+                return OPERATORS[source.charAt(index)];
+            }
+            for (String operator : COMPOUND_OPERATORS) {
+                if (operator.length() == length && source.startsWith(operator, index)) {
+                    return operator;
+                }
+            }
+        } else if (type == Type.IDENTIFIER && length < KEYWORDS.length && KEYWORDS[length] != null) {
+            for (String keyword : KEYWORDS[length]) {
+                if (source.startsWith(keyword, index)) {
+                    return keyword;
+                }
+            }
+        }
+        return source.substring(index, index + length);
+    }
+
     @Override
     public boolean equals(Object obj) {
         return obj instanceof Token
                 && type == ((Token) obj).type
-                && literal.equals(((Token) obj).literal)
+                && getLiteral().equals(((Token) obj).getLiteral())
                 && index == ((Token) obj).index;
     }
 
     @Override
     public String toString() {
-        return type + "=" + literal + "@" + index;
+        return type + "=" + getLiteral() + "@" + index;
     }
 
 }
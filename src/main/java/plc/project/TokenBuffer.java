@@ -0,0 +1,106 @@
+package plc.project;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list of tokens stored as parallel arrays of type ordinals, start offsets
+ * and lengths over a shared source string. No {@link Token} or literal string
+ * is kept per token; {@link #get(int)} creates a token view on demand, and the
+ * column accessors let the {@link Parser} inspect tokens without allocating.
+ */
+public final class TokenBuffer extends AbstractList<Token> implements RandomAccess {
+
+    private final String source;
+    private int[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int size = 0;
+
+    public TokenBuffer(String source) {
+        this.source = source;
+        int capacity = Math.max(16, source.length() / 3);
+        this.types = new int[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Token get(int i) {
+        checkIndex(i);
+        return new Token(Token.type(types[i]), source, starts[i], lengths[i]);
+    }
+
+    /**
+     * Appends a token, which must have been lexed from the same source.
+     */
+    @Override
+    public boolean add(Token token) {
+        add(token.getType(), token.getIndex(), token.getLength());
+        return true;
+    }
+
+    public void add(Token.Type type, int start, int length) {
+        if (size == types.length) {
+            int capacity = types.length * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        types[size] = type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        size++;
+        modCount++;
+    }
+
+    public Token.Type getType(int i) {
+        checkIndex(i);
+        return Token.type(types[i]);
+    }
+
+    public int getIndex(int i) {
+        checkIndex(i);
+        return starts[i];
+    }
+
+    public int getLength(int i) {
+        checkIndex(i);
+        return lengths[i];
+    }
+
+    /**
+     * Returns the literal of the token, copying it out of the source unless it
+     * is a keyword or operator.
+     */
+    public String getLiteral(int i) {
+        checkIndex(i);
+        return Token.literal(Token.type(types[i]), source, starts[i], lengths[i]);
+    }
+
+    /**
+     * Returns true if the literal of the token is equal to the given string,
+     * without materializing the literal.
+     */
+    public boolean literalEquals(int i, String string) {
+        checkIndex(i);
+        return string.length() == lengths[i] && source.startsWith(string, starts[i]);
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + size);
+        }
+    }
+
+}
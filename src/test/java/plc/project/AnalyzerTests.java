@@ -10,6 +10,7 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -471,6 +472,42 @@ public final class AnalyzerTests {
         );
     }
 
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    public void testBinaryOpcode(String test, Ast.Expression.Binary ast, Opcode expected) {
+        new Analyzer(new Scope(null)).visit(ast);
+        Assertions.assertEquals(expected, ast.getOpcode());
+    }
+
+    private static Stream<Arguments> testBinaryOpcode() {
+        return Stream.of(
+                Arguments.of("Integer Addition",
+                        new Ast.Expression.Binary("+", new Ast.Expression.Literal(BigInteger.ONE), new Ast.Expression.Literal(BigInteger.TEN)),
+                        Opcode.INT_ADD
+                ),
+                Arguments.of("String Concatenation",
+                        new Ast.Expression.Binary("+", new Ast.Expression.Literal("Ben"), new Ast.Expression.Literal(BigInteger.TEN)),
+                        Opcode.STR_CONCAT
+                ),
+                Arguments.of("Decimal Division",
+                        new Ast.Expression.Binary("/", new Ast.Expression.Literal(BigDecimal.ONE), new Ast.Expression.Literal(BigDecimal.TEN)),
+                        Opcode.DEC_DIV
+                ),
+                Arguments.of("Logical AND",
+                        new Ast.Expression.Binary("&&", new Ast.Expression.Literal(Boolean.TRUE), new Ast.Expression.Literal(Boolean.FALSE)),
+                        Opcode.BOOL_AND
+                ),
+                Arguments.of("Integer Less Than",
+                        new Ast.Expression.Binary("<", new Ast.Expression.Literal(BigInteger.ONE), new Ast.Expression.Literal(BigInteger.TEN)),
+                        Opcode.CMP_LT_INT
+                ),
+                Arguments.of("String Equal",
+                        new Ast.Expression.Binary("==", new Ast.Expression.Literal("a"), new Ast.Expression.Literal("b")),
+                        Opcode.CMP_EQ
+                )
+        );
+    }
+
     @ParameterizedTest(name = "{0}")
     @MethodSource
     public void testAccessExpression(String test, Ast.Expression.Access ast, Ast.Expression.Access expected) {
@@ -527,6 +564,56 @@ public final class AnalyzerTests {
         );
     }
 
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    public void testParallel(String test, String input) {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Ast.Source sequential = new Parser(new Lexer(input).lex()).parseSource();
+            Ast.Source parallel = new Parser(new Lexer(input).lex()).parseSource();
+            RuntimeException expected = null;
+            try {
+                new Analyzer(new Scope(null)).visit(sequential);
+            } catch (RuntimeException e) {
+                expected = e;
+            }
+            if (expected == null) {
+                new Analyzer(new Scope(null), pool).visit(parallel);
+                Assertions.assertEquals(sequential, parallel);
+            } else {
+                RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> new Analyzer(new Scope(null), pool).visit(parallel));
+                Assertions.assertEquals(expected.getMessage(), exception.getMessage());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Stream<Arguments> testParallel() {
+        return Stream.of(
+                Arguments.of("Functions",
+                        "VAR x: Integer = 1;\n"
+                                + "FUN f(): Integer DO RETURN x + 1; END\n"
+                                + "FUN g(): String DO RETURN \"g\" + f(); END\n"
+                                + "FUN main(): Integer DO print(g()); RETURN f(); END"
+                ),
+                Arguments.of("Forward Reference",
+                        "FUN main(): Integer DO RETURN f(); END\n"
+                                + "FUN f(): Integer DO RETURN 1; END"
+                ),
+                Arguments.of("First Error",
+                        "FUN f(): Integer DO RETURN 1; END\n"
+                                + "FUN g(): Integer DO RETURN undefined; END\n"
+                                + "FUN h(): Integer DO RETURN \"h\"; END\n"
+                                + "FUN main(): Integer DO RETURN 0; END"
+                ),
+                Arguments.of("Missing Main",
+                        "FUN f(): Integer DO RETURN 1; END\n"
+                                + "FUN g(): Integer DO RETURN 2; END"
+                )
+        );
+    }
+
     /**
      * Helper function for tests. If {@param expected} is {@code null}, analysis
      * is expected to throw a {@link RuntimeException}.
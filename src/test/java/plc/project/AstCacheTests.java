@@ -0,0 +1,160 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Tests that a cached source reads back equal to the analyzed source, and
+ * that an invalid cache file is ignored.
+ */
+public final class AstCacheTests {
+
+    private static final String INPUT = "VAR x: Integer = 1;\n"
+            + "LIST values: Decimal = [1.5, -2.25, 12345678901234567890.0];\n"
+            + "VAL name: String = \"caf\u00e9\\n\";\n"
+            + "FUN square(n: Integer): Integer DO\n"
+            + "    RETURN x * x;\n"
+            + "END\n"
+            + "FUN log(): Nil DO\n"
+            + "    print(name + 'c');\n"
+            + "END\n"
+            + "FUN main(): Integer DO\n"
+            + "    LET i: Integer = 0;\n"
+            + "    LET big = 2147483647;\n"
+            + "    WHILE i < 3 DO\n"
+            + "        IF i == 1 && TRUE DO x = x + i; ELSE log(); END\n"
+            + "        i = i + 1;\n"
+            + "    END\n"
+            + "    SWITCH x CASE 2: print(values); DEFAULT print(name); END\n"
+            + "    RETURN square(x);\n"
+            + "END\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRoundTrip() {
+        Ast.Source expected = analyze(INPUT);
+        AstCache cache = new AstCache(directory);
+        Assertions.assertEquals(expected, cache.load(INPUT));
+        Assertions.assertTrue(Files.exists(cache.path(INPUT)));
+
+        Optional<Ast.Source> cached = new AstCache(directory).get(INPUT);
+        Assertions.assertTrue(cached.isPresent());
+        Assertions.assertEquals(expected, cached.get());
+    }
+
+    @Test
+    public void testSharedBindings() {
+        new AstCache(directory).load(INPUT);
+        Ast.Source ast = new AstCache(directory).get(INPUT).orElseThrow();
+        Ast.Global global = ast.getGlobals().get(0);
+        Ast.Statement.If statement = (Ast.Statement.If) ((Ast.Statement.While) ast.getFunctions().get(2).getStatements().get(2)).getStatements().get(0);
+        Ast.Statement.Assignment assignment = (Ast.Statement.Assignment) statement.getThenStatements().get(0);
+        Assertions.assertSame(global.getVariable(), ((Ast.Expression.Access) assignment.getReceiver()).getVariable());
+    }
+
+    @Test
+    public void testOpcodes() {
+        new AstCache(directory).load(INPUT);
+        Ast.Source ast = new AstCache(directory).get(INPUT).orElseThrow();
+        Ast.Statement.While loop = (Ast.Statement.While) ast.getFunctions().get(2).getStatements().get(2);
+        Ast.Expression.Binary condition = (Ast.Expression.Binary) ((Ast.Statement.If) loop.getStatements().get(0)).getCondition();
+        Assertions.assertEquals(Opcode.CMP_LT_INT, ((Ast.Expression.Binary) loop.getCondition()).getOpcode());
+        Assertions.assertEquals(Opcode.BOOL_AND, condition.getOpcode());
+        Assertions.assertEquals(Opcode.CMP_EQ_INT, ((Ast.Expression.Binary) condition.getLeft()).getOpcode());
+    }
+
+    @Test
+    public void testGenerate() {
+        CodeBuffer expected = new CodeBuffer();
+        new Generator(expected).visit(analyze(INPUT));
+        new AstCache(directory).load(INPUT);
+        CodeBuffer cached = new CodeBuffer();
+        new Generator(cached).visit(new AstCache(directory).get(INPUT).orElseThrow());
+        Assertions.assertEquals(expected.toString(), cached.toString());
+    }
+
+    @Test
+    public void testDeep() {
+        String input = "FUN main(): Integer DO\n    RETURN 1" + " + 1".repeat(200_000) + ";\nEND\n";
+        new AstCache(directory).load(input);
+        Ast.Source ast = new AstCache(directory).get(input).orElseThrow();
+        Ast.Expression expression = ((Ast.Statement.Return) ast.getFunctions().get(0).getStatements().get(0)).getValue();
+        int terms = 1;
+        while (expression instanceof Ast.Expression.Binary) {
+            Assertions.assertEquals(Opcode.INT_ADD, ((Ast.Expression.Binary) expression).getOpcode());
+            expression = ((Ast.Expression.Binary) expression).getLeft();
+            terms++;
+        }
+        Assertions.assertEquals(200_001, terms);
+    }
+
+    @Test
+    public void testMiss() {
+        AstCache cache = new AstCache(directory);
+        Assertions.assertEquals(Optional.empty(), cache.get(INPUT));
+        cache.load(INPUT);
+        Assertions.assertEquals(Optional.empty(), cache.get(INPUT + " "));
+    }
+
+    @Test
+    public void testAnalysisError() {
+        AstCache cache = new AstCache(directory);
+        String input = "FUN main(): Integer DO RETURN TRUE; END";
+        Assertions.assertThrows(RuntimeException.class, () -> cache.load(input));
+        Assertions.assertFalse(Files.exists(cache.path(input)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    public void testInvalid(String test, UnaryOperator<byte[]> corruption) throws IOException {
+        AstCache cache = new AstCache(directory);
+        cache.load(INPUT);
+        Path path = cache.path(INPUT);
+        Files.write(path, corruption.apply(Files.readAllBytes(path)));
+        Assertions.assertEquals(Optional.empty(), cache.get(INPUT));
+        Assertions.assertEquals(analyze(INPUT), cache.load(INPUT));
+        Assertions.assertTrue(cache.get(INPUT).isPresent());
+    }
+
+    private static Stream<Arguments> testInvalid() {
+        return Stream.of(
+                Arguments.of("Magic", corrupt(0)),
+                Arguments.of("Version", corrupt(7)),
+                Arguments.of("Digest", corrupt(8)),
+                Arguments.of("Length", corrupt(43)),
+                Arguments.of("Checksum", corrupt(47)),
+                Arguments.of("Payload", corrupt(100)),
+                Arguments.of("Truncated", (UnaryOperator<byte[]>) bytes -> Arrays.copyOf(bytes, bytes.length - 1)),
+                Arguments.of("Header", (UnaryOperator<byte[]>) bytes -> Arrays.copyOf(bytes, 10)),
+                Arguments.of("Empty", (UnaryOperator<byte[]>) bytes -> new byte[0])
+        );
+    }
+
+    private static UnaryOperator<byte[]> corrupt(int index) {
+        return bytes -> {
+            bytes[index] ^= 0x01;
+            return bytes;
+        };
+    }
+
+    private static Ast.Source analyze(String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        return ast;
+    }
+
+}
@@ -0,0 +1,145 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+/**
+ * Tests that constant expressions are folded to the values the interpreter
+ * computes, and that the folded source runs the same as the original.
+ */
+final class ConstantFolderTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testFold(String test, String globals, String expression, Object expected) {
+        Ast.Source ast = analyze(globals + "FUN main(): Integer DO print(" + expression + "); RETURN 0; END\nFUN one(): Integer DO RETURN 1; END");
+        Ast.Expression original = argument(ast);
+        Ast.Expression folded = argument(new ConstantFolder().visit(ast));
+        if (expected != null) {
+            Assertions.assertInstanceOf(Ast.Expression.Literal.class, folded);
+            Assertions.assertEquals(expected, ((Ast.Expression.Literal) folded).getLiteral());
+            if (!(original instanceof Ast.Expression.Group)) {
+                // The analyzer doesn't type groups
+                Assertions.assertEquals(original.getType(), folded.getType());
+            }
+        } else {
+            Assertions.assertSame(original, folded);
+        }
+    }
+
+    private static Stream<Arguments> testFold() {
+        return Stream.of(
+                Arguments.of("Integer", "", "1 + 2 * 3 - 4", BigInteger.valueOf(3)),
+                Arguments.of("Integer Division", "", "7 / 2", BigInteger.valueOf(3)),
+                Arguments.of("Integer Power", "", "2 ^ 10", null),
+                Arguments.of("Concatenation", "", "\"a\" + 1 + 'c'", "a1c"),
+                Arguments.of("Comparison", "", "1 < 2", true),
+                Arguments.of("Equality", "", "\"a\" == \"b\"", false),
+                Arguments.of("And", "", "1 < 2 && 2 < 1", false),
+                Arguments.of("Short Circuit", "VAR b: Boolean = TRUE;\n", "FALSE && b", false),
+                Arguments.of("Group", "", "(1 + 2)", BigInteger.valueOf(3)),
+                Arguments.of("Global", "VAL x: Integer = 2 * 3;\n", "x + 1", BigInteger.valueOf(7)),
+                Arguments.of("Globals", "VAL x: Integer = 2;\nVAL y: Integer = x * x;\n", "y", BigInteger.valueOf(4)),
+                Arguments.of("Mutable Global", "VAR x: Integer = 2;\n", "x + 1", null),
+                Arguments.of("Division By Zero", "", "1 / 0", null),
+                Arguments.of("Overflow", "", "2147483647 + 1", null),
+                Arguments.of("Decimal Power", "", "1.5 ^ 2.0", null),
+                Arguments.of("Decimal Division", "", "1.0 / 3.0", null),
+                Arguments.of("Decimal Multiplication", "", "1.5 * 1.5", null),
+                Arguments.of("Decimal Comparison", "", "1.5 < 2.25", null),
+                Arguments.of("Call", "", "1 + one()", null)
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testFoldInterpreted(String test, String expression, Object expected) {
+        Ast.Source ast = analyze("FUN main(): Integer DO print(" + expression + "); RETURN 0; END");
+        Ast.Expression folded = argument(new ConstantFolder(true).visit(ast));
+        Assertions.assertInstanceOf(Ast.Expression.Literal.class, folded);
+        Assertions.assertEquals(expected, ((Ast.Expression.Literal) folded).getLiteral());
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(argument(ast)).getValue());
+    }
+
+    private static Stream<Arguments> testFoldInterpreted() {
+        return Stream.of(
+                Arguments.of("Division", "1.0 / 3.0", new BigDecimal("0.3")),
+                Arguments.of("Multiplication", "1.5 * 1.5", new BigDecimal("2.25")),
+                Arguments.of("Comparison", "1.5 < 2.25", true),
+                Arguments.of("Power", "2 ^ 10", BigInteger.valueOf(1024))
+        );
+    }
+
+    @Test
+    void testPartial() {
+        Ast.Source ast = analyze("VAR x: Integer = 1;\nVAR b: Boolean = TRUE;\nFUN main(): Integer DO print(x + 2 * 3); print(TRUE && b); RETURN 0; END");
+        Ast.Source folded = new ConstantFolder().visit(ast);
+        Ast.Expression.Binary binary = (Ast.Expression.Binary) argument(folded);
+        Assertions.assertSame(argument(ast).getType(), binary.getType());
+        Assertions.assertSame(((Ast.Expression.Binary) argument(ast)).getLeft(), binary.getLeft());
+        Assertions.assertEquals(BigInteger.valueOf(6), ((Ast.Expression.Literal) binary.getRight()).getLiteral());
+        Ast.Statement.Expression statement = (Ast.Statement.Expression) folded.getFunctions().get(0).getStatements().get(1);
+        Assertions.assertInstanceOf(Ast.Expression.Access.class, ((Ast.Expression.Function) statement.getExpression()).getArguments().get(0));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testSource(String test, String input, Object expected) {
+        Ast.Source ast = analyze(input);
+        Ast.Source folded = new ConstantFolder().visit(ast);
+        Assertions.assertEquals(analyze(input), ast);
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(ast).getValue());
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(folded).getValue());
+        new Resolver().visit(folded);
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(folded).getValue());
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Loop",
+                        "VAL limit: Integer = 2 * 5;\nFUN main(): Integer DO LET i = 0; WHILE i < limit DO i = i + 3 - 2; END RETURN i * limit - 9 * limit; END",
+                        BigInteger.TEN
+                ),
+                Arguments.of("Parameter",
+                        "VAL x: Integer = 1;\nFUN f(x: Integer): Integer DO RETURN x; END\nFUN main(): Integer DO RETURN f(5); END",
+                        BigInteger.valueOf(5)
+                ),
+                Arguments.of("Local",
+                        "VAL x: Integer = 1;\nFUN main(): Integer DO LET x = 2; RETURN x; END",
+                        BigInteger.valueOf(2)
+                ),
+                Arguments.of("Division By Zero",
+                        "FUN main(): Integer DO IF 1 < 0 DO RETURN 1 / 0; END RETURN 0; END",
+                        BigInteger.ZERO
+                )
+        );
+    }
+
+    @Test
+    void testGenerate() {
+        Ast.Source ast = analyze("VAL x: Integer = 2;\nFUN main(): Integer DO print(\"x\" + x * 3); RETURN x ^ 3; END");
+        CodeBuffer buffer = new CodeBuffer();
+        new Generator(buffer).visit(new ConstantFolder().visit(ast));
+        Assertions.assertTrue(buffer.toString().contains("System.out.println(\"x6\");"), buffer.toString());
+        Assertions.assertTrue(buffer.toString().contains("return Math.pow(2, 3);"), buffer.toString());
+    }
+
+    private static Ast.Expression argument(Ast.Source ast) {
+        Ast.Statement.Expression statement = (Ast.Statement.Expression) ast.getFunctions().get(0).getStatements().get(0);
+        return ((Ast.Expression.Function) statement.getExpression()).getArguments().get(0);
+    }
+
+    private static Ast.Source analyze(String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        return ast;
+    }
+
+}
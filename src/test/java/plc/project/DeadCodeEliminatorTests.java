@@ -0,0 +1,140 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+/**
+ * Tests that dead code is removed and counted, and that the eliminated source
+ * returns and prints the same as the original.
+ */
+final class DeadCodeEliminatorTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testEliminate(String test, String input, int removed, Object expected, String output) {
+        Ast.Source ast = new ConstantFolder().visit(analyze(input));
+        DeadCodeEliminator eliminator = new DeadCodeEliminator();
+        Ast.Source eliminated = eliminator.eliminate(ast);
+        Assertions.assertEquals(removed, eliminator.getRemoved());
+        Assertions.assertEquals(removed == 0, eliminated == ast);
+        Assertions.assertEquals(output, run(ast, expected));
+        Assertions.assertEquals(output, run(eliminated, expected));
+        new Resolver().visit(eliminated);
+        Assertions.assertEquals(output, run(eliminated, expected));
+    }
+
+    private static Stream<Arguments> testEliminate() {
+        return Stream.of(
+                Arguments.of("After Return",
+                        "FUN main(): Integer DO print(1); RETURN 1; print(2); LET x = 3; END",
+                        5, BigInteger.ONE, "1\n"
+                ),
+                Arguments.of("If True",
+                        "FUN main(): Integer DO IF TRUE DO print(1); ELSE print(2); END RETURN 0; END",
+                        5, BigInteger.ZERO, "1\n"
+                ),
+                Arguments.of("If Folded",
+                        "FUN main(): Integer DO IF 1 > 2 DO print(1); END RETURN 0; END",
+                        5, BigInteger.ZERO, ""
+                ),
+                Arguments.of("If Declaration",
+                        "FUN main(): Integer DO IF TRUE DO LET x = one(); ELSE print(2); END RETURN 0; END\nFUN one(): Integer DO print(1); RETURN 1; END",
+                        3, BigInteger.ZERO, "1\n"
+                ),
+                Arguments.of("If Returns",
+                        "VAR c: Boolean = TRUE;\nFUN main(): Integer DO IF c DO RETURN 1; ELSE RETURN 2; END print(3); END",
+                        3, BigInteger.ONE, ""
+                ),
+                Arguments.of("While False",
+                        "FUN main(): Integer DO WHILE FALSE DO print(1); END RETURN 0; END",
+                        5, BigInteger.ZERO, ""
+                ),
+                Arguments.of("While Body",
+                        "FUN main(): Integer DO LET i = 0; WHILE i < 2 DO i = i + 1; IF TRUE DO print(i); END END RETURN i; END",
+                        2, BigInteger.TWO, "1\n2\n"
+                ),
+                Arguments.of("Switch",
+                        "FUN main(): Integer DO SWITCH 2 CASE 1: print(1); CASE 2: print(2); DEFAULT print(3); END RETURN 0; END",
+                        13, BigInteger.ZERO, "2\n"
+                ),
+                Arguments.of("Switch Default",
+                        "FUN main(): Integer DO SWITCH 5 CASE 1: print(1); CASE 2: print(2); DEFAULT print(3); END RETURN 0; END",
+                        13, BigInteger.ZERO, "3\n"
+                ),
+                Arguments.of("Switch Variable",
+                        "VAR x: Integer = 2;\nFUN main(): Integer DO SWITCH x CASE 1: print(1); RETURN 1; DEFAULT print(3); RETURN 3; END print(4); END",
+                        3, BigInteger.valueOf(3), "3\n"
+                ),
+                Arguments.of("Unused",
+                        "FUN main(): Integer DO LET x = 1; LET y = x + 2; RETURN 0; END",
+                        6, BigInteger.ZERO, ""
+                ),
+                Arguments.of("Used",
+                        "FUN main(): Integer DO LET x = 1; LET y = x + 2; RETURN y; END",
+                        0, BigInteger.valueOf(3), ""
+                ),
+                Arguments.of("Call",
+                        "FUN main(): Integer DO LET x = one(); RETURN 0; END\nFUN one(): Integer DO print(1); RETURN 1; END",
+                        0, BigInteger.ZERO, "1\n"
+                ),
+                Arguments.of("Division",
+                        "VAR z: Integer = 0;\nFUN main(): Integer DO LET x = 1 / z; RETURN 0; END",
+                        0, null, ""
+                )
+        );
+    }
+
+    @Test
+    void testUnchanged() {
+        Ast.Source ast = analyze("FUN main(): Integer DO LET x = 1; print(x); RETURN 0; END");
+        Ast.Source eliminated = new DeadCodeEliminator().eliminate(ast);
+        Assertions.assertSame(ast, eliminated);
+        Assertions.assertEquals(analyze("FUN main(): Integer DO LET x = 1; print(x); RETURN 0; END"), ast);
+    }
+
+    @Test
+    void testGenerate() {
+        Ast.Source ast = new ConstantFolder().visit(analyze("FUN main(): Integer DO IF TRUE DO print(1); END RETURN 0; print(2); END"));
+        CodeBuffer buffer = new CodeBuffer();
+        new Generator(buffer).visit(new DeadCodeEliminator().eliminate(ast));
+        Assertions.assertTrue(buffer.toString().contains("System.out.println(1);"), buffer.toString());
+        Assertions.assertFalse(buffer.toString().contains("if"), buffer.toString());
+        Assertions.assertFalse(buffer.toString().contains("System.out.println(2);"), buffer.toString());
+    }
+
+    /**
+     * Returns what the source prints, checking its result, or that it fails
+     * if the expected result is null.
+     */
+    private static String run(Ast.Source ast, Object expected) {
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            Interpreter interpreter = new Interpreter(new Scope(null));
+            if (expected != null) {
+                Assertions.assertEquals(expected, interpreter.visit(ast).getValue());
+            } else {
+                Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(ast));
+            }
+        } finally {
+            System.setOut(sysout);
+        }
+        return out.toString().replace(System.lineSeparator(), "\n");
+    }
+
+    private static Ast.Source analyze(String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        return ast;
+    }
+
+}
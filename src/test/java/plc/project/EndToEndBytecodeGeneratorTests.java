@@ -0,0 +1,99 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
+final class EndToEndBytecodeGeneratorTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testSource(String test, String input, int expected, String output) {
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            Assertions.assertEquals(expected, load(input).getAsInt());
+            Assertions.assertEquals(output, out.toString());
+        } finally {
+            System.setOut(sysout);
+        }
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Hello, World!",
+                        "FUN main(): Integer DO\n    print(\"Hello, World!\");\n    RETURN 0;\nEND",
+                        0,
+                        "Hello, World!" + System.lineSeparator()
+                ),
+                Arguments.of("Loop",
+                        "FUN main(): Integer DO\n    LET i = 0;\n    LET total = 0;\n    WHILE i < 10 DO\n        total = total + i;\n        i = i + 1;\n    END\n    RETURN total;\nEND",
+                        45,
+                        ""
+                ),
+                Arguments.of("Globals",
+                        "LIST list: Integer = [1, 2, 3];\nVAR x: Integer = 10;\nFUN main(): Integer DO\n    list[1] = x;\n    RETURN list[1] + list[2];\nEND",
+                        13,
+                        ""
+                ),
+                Arguments.of("Nil Function",
+                        "VAR count: Integer = 0;\nFUN increment() DO\n    count = count + 1;\nEND\nFUN main(): Integer DO\n    increment();\n    increment();\n    RETURN count;\nEND",
+                        2,
+                        ""
+                ),
+                Arguments.of("Switch",
+                        "FUN main(): Integer DO\n    LET x = 2;\n    SWITCH x\n        CASE 1: RETURN 10;\n        CASE 2: RETURN 20;\n        DEFAULT RETURN 30;\n    END\nEND",
+                        20,
+                        ""
+                ),
+                Arguments.of("Switch Default",
+                        "FUN main(): Integer DO\n    LET x = 3;\n    SWITCH x\n        CASE 1: RETURN 10;\n        DEFAULT RETURN 30;\n    END\nEND",
+                        30,
+                        ""
+                ),
+                Arguments.of("Logical",
+                        "FUN main(): Integer DO\n    IF 1 < 2 && 3 > 2 DO\n        RETURN 1;\n    ELSE\n        RETURN 0;\n    END\nEND",
+                        1,
+                        ""
+                ),
+                Arguments.of("Concatenation",
+                        "FUN main(): Integer DO\n    print(\"x = \" + 1.5);\n    print('c' + \"!\");\n    RETURN 0;\nEND",
+                        0,
+                        "x = 1.5" + System.lineSeparator() + "c!" + System.lineSeparator()
+                ),
+                Arguments.of("Decimal",
+                        "VAR x: Decimal = 1.5;\nFUN main(): Integer DO\n    x = x * 2.0;\n    print(x);\n    RETURN 0;\nEND",
+                        0,
+                        "3.0" + System.lineSeparator()
+                ),
+                Arguments.of("Integer Overflow",
+                        "FUN main(): Integer DO\n    RETURN 2147483647 + 1;\nEND",
+                        Integer.MIN_VALUE,
+                        ""
+                )
+        );
+    }
+
+    @Test
+    void testReload() {
+        // Each call to getAsInt runs main with freshly initialized globals
+        IntSupplier program = load("VAR count: Integer = 0;\nFUN main(): Integer DO\n    count = count + 1;\n    RETURN count;\nEND");
+        Assertions.assertEquals(1, program.getAsInt());
+        Assertions.assertEquals(1, program.getAsInt());
+    }
+
+    private static IntSupplier load(String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        return BytecodeGenerator.load(new BytecodeGenerator().generate(ast));
+    }
+
+}
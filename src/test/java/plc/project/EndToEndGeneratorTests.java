@@ -14,6 +14,7 @@ import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -320,6 +321,28 @@ public class EndToEndGeneratorTests {
         test(input, expected, Parser::parseExpression);
     }
 
+    @Test
+    void testParallelFunctions() {
+        StringBuilder input = new StringBuilder("VAR x: Integer = 0;\n");
+        for (int i = 0; i < 50; i++) {
+            input.append("FUN f").append(i).append("(): Integer DO\n    IF x < ").append(i).append(" DO\n        x = x + 1;\n    END\n    RETURN x;\nEND\n");
+        }
+        input.append("FUN main(): Integer DO\n    RETURN f0();\nEND");
+        Ast.Source ast = new Parser(new Lexer(input.toString()).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+
+        CodeBuffer sequential = new CodeBuffer();
+        new Generator(sequential).visit(ast);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            CodeBuffer parallel = new CodeBuffer();
+            new Generator(parallel, pool).visit(ast);
+            Assertions.assertEquals(sequential.toString(), parallel.toString());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     /**
      * Helper function for tests, using a StringWriter as the output stream.
      */
@@ -16,7 +16,7 @@ import java.util.Optional;
 import java.util.stream.Stream;
 import java.util.function.Function;
 
-final class EndToEndInterpreterTests {
+class EndToEndInterpreterTests {
 
 
     @ParameterizedTest
@@ -52,6 +52,16 @@ final class EndToEndInterpreterTests {
                 Arguments.of("Globals & No Return",
                         "VAR x: Integer = 1; VAR y: Integer = 10; FUN main() DO x + y; END",
                         Environment.NIL.getValue()
+                ),
+                // FUN main() DO LET i = 0; WHILE TRUE DO i = i + 1; IF i == 3 DO RETURN i; END END RETURN 0; END
+                Arguments.of("Return From Loop",
+                        "FUN main() DO LET i = 0; WHILE TRUE DO i = i + 1; IF i == 3 DO RETURN i; END END RETURN 0; END",
+                        BigInteger.valueOf(3)
+                ),
+                // FUN f(): Integer DO RETURN 1; print(0); END FUN main() DO RETURN f() + f(); END
+                Arguments.of("Nested Returns",
+                        "FUN f(): Integer DO RETURN 1; print(0); END FUN main() DO RETURN f() + f(); END",
+                        BigInteger.valueOf(2)
                 )
         );
     }
@@ -399,12 +409,20 @@ final class EndToEndInterpreterTests {
         Assertions.assertEquals(BigInteger.valueOf(42), scope.lookupFunction("testFunction", 0).invoke(List.of()).getValue());
     }
 
-    private static <T extends Ast> Scope test(String input, Object expected, Scope scope, Function<Parser, T> function) {
+    private <T extends Ast> Scope test(String input, Object expected, Scope scope, Function<Parser, T> function) {
         Lexer lexer = new Lexer(input);
         Parser parser = new Parser(lexer.lex());
 
         Ast ast = function.apply(parser);
 
+        return test(ast, expected, scope);
+    }
+
+    /**
+     * Executes the ast with the engine under test, which is overridden by
+     * {@link EndToEndCompilerTests}.
+     */
+    Scope test(Ast ast, Object expected, Scope scope) {
         Interpreter interpreter = new Interpreter(scope);
         if (expected != null) {
             Assertions.assertEquals(expected, interpreter.visit(ast).getValue());
@@ -0,0 +1,107 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Tests that expressions nested a million deep are parsed, analyzed,
+ * evaluated and generated without overflowing the Java stack. The trees are
+ * checked by walking them in a loop, since {@link Ast#equals(Object)} and
+ * {@link Ast#toString()} are recursive.
+ */
+final class ExpressionStressTests {
+
+    private static final int DEPTH = 1_000_000;
+
+    @Test
+    void testParseChain() {
+        Ast.Expression expression = parse(repeat("x", " + x"));
+        int terms = 1;
+        while (expression instanceof Ast.Expression.Binary) {
+            Assertions.assertEquals("+", ((Ast.Expression.Binary) expression).getOperator());
+            Assertions.assertInstanceOf(Ast.Expression.Access.class, ((Ast.Expression.Binary) expression).getRight());
+            expression = ((Ast.Expression.Binary) expression).getLeft();
+            terms++;
+        }
+        Assertions.assertEquals(DEPTH, terms);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testParseNesting(String test, String open, String close, UnaryOperator<Ast.Expression> inner) {
+        Ast.Expression expression = parse(open.repeat(DEPTH) + "x" + close.repeat(DEPTH));
+        int depth = 0;
+        for (Ast.Expression next = inner.apply(expression); next != null; next = inner.apply(next)) {
+            expression = next;
+            depth++;
+        }
+        Assertions.assertEquals(DEPTH, depth);
+        Assertions.assertEquals(new Ast.Expression.Access(Optional.empty(), "x"), expression);
+    }
+
+    private static Stream<Arguments> testParseNesting() {
+        return Stream.of(
+                Arguments.of("Group", "(", ")", (UnaryOperator<Ast.Expression>) expression ->
+                        expression instanceof Ast.Expression.Group ? ((Ast.Expression.Group) expression).getExpression() : null),
+                Arguments.of("Right Operand", "x + (", ")", (UnaryOperator<Ast.Expression>) expression ->
+                        expression instanceof Ast.Expression.Binary ? ((Ast.Expression.Group) ((Ast.Expression.Binary) expression).getRight()).getExpression() : null),
+                Arguments.of("Function", "f(", ")", (UnaryOperator<Ast.Expression>) expression ->
+                        expression instanceof Ast.Expression.Function ? ((Ast.Expression.Function) expression).getArguments().get(0) : null),
+                Arguments.of("Offset", "x[", "]", (UnaryOperator<Ast.Expression>) expression ->
+                        ((Ast.Expression.Access) expression).getOffset().orElse(null))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testEvaluate(String test, String input, Object expected) {
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        Assertions.assertEquals(expected, interpreter.visit(parse(input)).getValue());
+    }
+
+    private static Stream<Arguments> testEvaluate() {
+        return Stream.of(
+                Arguments.of("Chain", repeat("1", " + 1"), BigInteger.valueOf(DEPTH)),
+                Arguments.of("Subtraction", repeat("0", " - 1"), BigInteger.valueOf(1 - DEPTH)),
+                Arguments.of("Right Operand", "(1 + ".repeat(DEPTH - 1) + "1" + ")".repeat(DEPTH - 1), BigInteger.valueOf(DEPTH)),
+                Arguments.of("Group", "(".repeat(DEPTH) + "1" + ")".repeat(DEPTH), BigInteger.ONE),
+                Arguments.of("And", repeat("TRUE", " && TRUE") + " && FALSE", false),
+                Arguments.of("Short Circuit", "FALSE" + " && undefined".repeat(DEPTH), false)
+        );
+    }
+
+    @Test
+    void testSource() {
+        String input = "FUN main(): Integer DO RETURN " + repeat("1", " + 1") + "; END";
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Resolver().visit(ast);
+        new Analyzer(new Scope(null)).visit(ast);
+        Ast.Statement.Return statement = (Ast.Statement.Return) ast.getFunctions().get(0).getStatements().get(0);
+        Assertions.assertEquals(Environment.Type.INTEGER, statement.getValue().getType());
+        Assertions.assertEquals(BigInteger.valueOf(DEPTH), new Interpreter(new Scope(null)).visit(ast).getValue());
+
+        CodeBuffer buffer = new CodeBuffer();
+        new Generator(buffer).visit(ast);
+        Assertions.assertTrue(buffer.toString().contains("return " + repeat("1", " + 1") + ";"));
+    }
+
+    /**
+     * Returns the first term followed by the rest of {@link #DEPTH} terms.
+     */
+    private static String repeat(String first, String rest) {
+        return first + rest.repeat(DEPTH - 1);
+    }
+
+    private static Ast.Expression parse(String input) {
+        return new Parser(new Lexer(input).lex()).parseExpression();
+    }
+
+}
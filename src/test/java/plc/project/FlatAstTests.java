@@ -0,0 +1,99 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+/**
+ * Tests that a flat source views back equal to the tree it encodes, with
+ * its types and bindings, and that the visitors can walk the view.
+ */
+final class FlatAstTests {
+
+    private static final String INPUT = "VAR x: Integer = 1;\n"
+            + "LIST values: Decimal = [1.5, -2.25, 12345678901234567890.0];\n"
+            + "VAL name: String = \"caf\u00e9\\n\";\n"
+            + "FUN square(n: Integer): Integer DO\n"
+            + "    RETURN x * x;\n"
+            + "END\n"
+            + "FUN log(): Nil DO\n"
+            + "    print(name + 'c');\n"
+            + "END\n"
+            + "FUN main(): Integer DO\n"
+            + "    LET i: Integer = 0;\n"
+            + "    LET big = 2147483647;\n"
+            + "    WHILE i < 3 DO\n"
+            + "        IF i == 1 && TRUE DO x = x + i; ELSE log(); END\n"
+            + "        i = i + 1;\n"
+            + "    END\n"
+            + "    SWITCH x CASE 2: print(values); DEFAULT print(name); END\n"
+            + "    RETURN square(x);\n"
+            + "END\n";
+
+    private static final int DEPTH = 100_000;
+
+    @Test
+    void testParse() {
+        FlatAst flat = new Parser(new Lexer(INPUT).lex()).parseFlatSource();
+        Assertions.assertEquals(new Parser(new Lexer(INPUT).lex()).parseSource(), flat.view());
+    }
+
+    @Test
+    void testSize() {
+        FlatAst flat = new Parser(new Lexer("FUN main(): Integer DO RETURN 1; END").lex()).parseFlatSource();
+        Assertions.assertEquals(4, flat.size());
+    }
+
+    @Test
+    void testAnalyzed() {
+        Ast.Source expected = analyze(new Parser(new Lexer(INPUT).lex()).parseSource());
+        Ast.Source view = FlatAst.of(expected).view();
+        Assertions.assertEquals(expected, view);
+        Assertions.assertSame(expected.getGlobals().get(0).getVariable(), view.getGlobals().get(0).getVariable());
+        Assertions.assertSame(expected.getFunctions().get(2).getFunction(), view.getFunctions().get(2).getFunction());
+        Ast.Statement.While loop = (Ast.Statement.While) view.getFunctions().get(2).getStatements().get(2);
+        Assertions.assertEquals(Opcode.CMP_LT_INT, ((Ast.Expression.Binary) loop.getCondition()).getOpcode());
+    }
+
+    @Test
+    void testAnalyzeView() {
+        Ast.Source view = analyze(new Parser(new Lexer(INPUT).lex()).parseFlatSource().view());
+        CodeBuffer expected = new CodeBuffer();
+        new Generator(expected).visit(analyze(new Parser(new Lexer(INPUT).lex()).parseSource()));
+        CodeBuffer generated = new CodeBuffer();
+        new Generator(generated).visit(view);
+        Assertions.assertEquals(expected.toString(), generated.toString());
+        CodeBuffer encoded = new CodeBuffer();
+        new Generator(encoded).visit(FlatAst.of(view).view());
+        Assertions.assertEquals(expected.toString(), encoded.toString());
+    }
+
+    @Test
+    void testInterpret() {
+        String input = "VAL base: Integer = 3;\n"
+                + "FUN main(): Integer DO LET i = 0; LET total = 0; WHILE i < 4 DO total = total + i * base; i = i + 1; END RETURN total; END";
+        Ast.Source view = FlatAst.of(analyze(new Parser(new Lexer(input).lex()).parseSource())).view();
+        Assertions.assertEquals(BigInteger.valueOf(18), new Interpreter(new Scope(null)).visit(view).getValue());
+    }
+
+    @Test
+    void testDeep() {
+        String input = "FUN main(): Integer DO RETURN 1" + " + 1".repeat(DEPTH - 1) + "; END";
+        Ast.Source view = new Parser(new Lexer(input).lex()).parseFlatSource().view();
+        Ast.Expression expression = ((Ast.Statement.Return) view.getFunctions().get(0).getStatements().get(0)).getValue();
+        int terms = 1;
+        while (expression instanceof Ast.Expression.Binary) {
+            Assertions.assertEquals(new Ast.Expression.Literal(BigInteger.ONE), ((Ast.Expression.Binary) expression).getRight());
+            expression = ((Ast.Expression.Binary) expression).getLeft();
+            terms++;
+        }
+        Assertions.assertEquals(DEPTH, terms);
+    }
+
+    private static Ast.Source analyze(Ast.Source ast) {
+        new Analyzer(new Scope(null)).visit(ast);
+        return ast;
+    }
+
+}
@@ -11,6 +11,9 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -402,13 +405,26 @@ public class GeneratorTests {
         );
     }
 
+    @Test
+    void testBufferOverflow() {
+        CodeBuffer buffer = new CodeBuffer().append("int x;").newline(1);
+        Assertions.assertThrows(BufferOverflowException.class, () -> buffer.writeTo(ByteBuffer.allocate(4)));
+    }
+
     /**
-     * Helper function for tests, using a StringWriter as the output stream.
+     * Helper function for tests, using a StringWriter as the output stream and
+     * then a CodeBuffer encoded into a ByteBuffer.
      */
     private static void test(Ast ast, String expected) {
         StringWriter writer = new StringWriter();
         new Generator(new PrintWriter(writer)).visit(ast);
         Assertions.assertEquals(expected, writer.toString());
+
+        CodeBuffer buffer = new CodeBuffer(16);
+        new Generator(buffer).visit(ast);
+        ByteBuffer bytes = ByteBuffer.allocate(4 * buffer.length());
+        buffer.writeTo(bytes);
+        Assertions.assertEquals(expected, new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8));
     }
 
     /**
@@ -0,0 +1,130 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.stream.Stream;
+
+final class InMemoryCompilerTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testSource(String test, String input, int expected, String output) {
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try (InMemoryCompiler compiler = new InMemoryCompiler()) {
+            Class<?> main = compiler.load(input);
+            Assertions.assertEquals("Main", main.getName());
+            Assertions.assertEquals(expected, InMemoryCompiler.run(main));
+            Assertions.assertEquals(output, out.toString());
+        } finally {
+            System.setOut(sysout);
+        }
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Hello, World!",
+                        "FUN main(): Integer DO\n    print(\"Hello, World!\");\n    RETURN 0;\nEND",
+                        0,
+                        "Hello, World!" + System.lineSeparator()
+                ),
+                Arguments.of("Loop",
+                        "FUN main(): Integer DO\n    LET i = 0;\n    WHILE i < 10 DO\n        i = i + 1;\n    END\n    RETURN i;\nEND",
+                        10,
+                        ""
+                )
+        );
+    }
+
+    @Test
+    void testCache() {
+        try (InMemoryCompiler compiler = new InMemoryCompiler()) {
+            String input = "FUN main(): Integer DO\n    RETURN 1;\nEND";
+            Class<?> main = compiler.load(input);
+            Assertions.assertSame(main, compiler.load(input));
+            Assertions.assertEquals(1, compiler.size());
+
+            // Identical Java source is only compiled once, even if the input differs
+            Assertions.assertSame(main, compiler.load("FUN main(): Integer DO RETURN 1; END"));
+            Assertions.assertEquals(1, compiler.size());
+
+            Class<?> other = compiler.load("FUN main(): Integer DO\n    RETURN 2;\nEND");
+            Assertions.assertNotSame(main, other);
+            Assertions.assertEquals(2, compiler.size());
+            Assertions.assertEquals(1, InMemoryCompiler.run(main));
+            Assertions.assertEquals(2, InMemoryCompiler.run(other));
+        }
+    }
+
+    @Test
+    void testFolded() {
+        String input = "FUN main(): Integer DO\n"
+                + "    LET d = 1.0;\n"
+                + "    print(d / 3.0);\n"
+                + "    print(1.0 / 3.0);\n"
+                + "    print(0.1 * 0.1);\n"
+                + "    print(0.1 * 3.0 == 0.3);\n"
+                + "    print(2 * 3 + 1);\n"
+                + "    print(2 ^ 10);\n"
+                + "    RETURN 0;\n"
+                + "END";
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(ast);
+        String unfolded;
+        try (InMemoryCompiler compiler = new InMemoryCompiler()) {
+            unfolded = run(compiler.load(ast));
+        }
+        try (InMemoryCompiler compiler = new InMemoryCompiler()) {
+            Assertions.assertEquals(unfolded, run(compiler.load(input)));
+        }
+        Assertions.assertEquals(String.join(System.lineSeparator(), "0.3333333333333333", "0.3333333333333333", "0.010000000000000002", "false", "7", "1024.0", ""), unfolded);
+    }
+
+    /**
+     * Returns what the class prints when run.
+     */
+    private static String run(Class<?> main) {
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            InMemoryCompiler.run(main);
+        } finally {
+            System.setOut(sysout);
+        }
+        return out.toString();
+    }
+
+    @Test
+    void testCompileError() {
+        // The generated source calls a main function which is not defined
+        Ast.Source ast = new Ast.Source(List.of(), List.of());
+        try (InMemoryCompiler compiler = new InMemoryCompiler()) {
+            Assertions.assertThrows(RuntimeException.class, () -> compiler.load(ast));
+        }
+    }
+
+    @Test
+    void testEviction() {
+        try (InMemoryCompiler compiler = new InMemoryCompiler(2)) {
+            Class<?> one = compiler.load("FUN main(): Integer DO RETURN 1; END");
+            compiler.load("FUN main(): Integer DO RETURN 2; END");
+            compiler.load("FUN main(): Integer DO RETURN 3; END");
+            Assertions.assertEquals(2, compiler.size());
+            // The least recently loaded program is compiled again
+            Class<?> reloaded = compiler.load("FUN main(): Integer DO RETURN 1; END");
+            Assertions.assertNotSame(one, reloaded);
+            Assertions.assertEquals(1, InMemoryCompiler.run(reloaded));
+            Assertions.assertEquals(2, compiler.size());
+        }
+    }
+
+}
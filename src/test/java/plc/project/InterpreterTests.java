@@ -10,7 +10,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -452,6 +454,41 @@ final class InterpreterTests {
                         ),
                         BigInteger.valueOf(7)
                 ),
+                // 9223372036854775807 + 1
+                Arguments.of("Addition Overflow",
+                        new Ast.Expression.Binary("+",
+                                new Ast.Expression.Literal(BigInteger.valueOf(Long.MAX_VALUE)),
+                                new Ast.Expression.Literal(BigInteger.ONE)
+                        ),
+                        BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE)
+                ),
+                // -9223372036854775808 / -1
+                Arguments.of("Division Overflow",
+                        new Ast.Expression.Binary("/",
+                                new Ast.Expression.Literal(BigInteger.valueOf(Long.MIN_VALUE)),
+                                new Ast.Expression.Literal(BigInteger.valueOf(-1))
+                        ),
+                        BigInteger.valueOf(Long.MIN_VALUE).negate()
+                ),
+                // 4294967296 * 4294967296 < 18446744073709551617
+                Arguments.of("Multiplication Overflow",
+                        new Ast.Expression.Binary("<",
+                                new Ast.Expression.Binary("*",
+                                        new Ast.Expression.Literal(BigInteger.ONE.shiftLeft(32)),
+                                        new Ast.Expression.Literal(BigInteger.ONE.shiftLeft(32))
+                                ),
+                                new Ast.Expression.Literal(BigInteger.ONE.shiftLeft(64).add(BigInteger.ONE))
+                        ),
+                        true
+                ),
+                // 7 / 0
+                Arguments.of("Division By Zero",
+                        new Ast.Expression.Binary("/",
+                                new Ast.Expression.Literal(BigInteger.valueOf(7)),
+                                new Ast.Expression.Literal(BigInteger.ZERO)
+                        ),
+                        null
+                ),
                 // 1 + 2 * 3 / 4
                 Arguments.of("Order of Operations",
                         new Ast.Expression.Binary("+",
@@ -543,6 +580,59 @@ final class InterpreterTests {
         test(ast, expected, new Scope(null));
     }
 
+    @Test
+    void testFunctionBinding() {
+        // function() bound to the parent scope, then shadowed in the interpreter's scope
+        Scope scope = new Scope(null);
+        scope.defineFunction("function", 0, args -> Environment.create("parent"));
+        Ast.Expression.Function ast = new Ast.Expression.Function("function", Arrays.asList());
+        Interpreter interpreter = new Interpreter(scope);
+        Assertions.assertEquals("parent", interpreter.visit(ast).getValue());
+        Assertions.assertEquals("parent", interpreter.visit(ast).getValue());
+        interpreter.getScope().defineFunction("function", 0, args -> Environment.create("child"));
+        Assertions.assertEquals("child", interpreter.visit(ast).getValue());
+        Assertions.assertThrows(RuntimeException.class, () -> interpreter.getScope().defineFunction("function", 0, args -> Environment.NIL));
+        Assertions.assertThrows(RuntimeException.class, () -> scope.lookupFunction("function", 1));
+    }
+
+    @Test
+    void testFunctionBindingThreads() throws InterruptedException {
+        // One call site shared by interpreters over different scopes on different threads
+        Ast.Expression.Function ast = new Ast.Expression.Function("function", Arrays.asList());
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 4; i++) {
+            String name = "scope" + i;
+            Scope scope = new Scope(null);
+            scope.defineFunction("function", 0, args -> Environment.create(name));
+            Interpreter interpreter = new Interpreter(scope);
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    Assertions.assertEquals(name, interpreter.visit(ast).getValue());
+                }
+            });
+            thread.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(List.of(), failures);
+    }
+
+    @Test
+    void testCreate() {
+        Assertions.assertSame(Environment.TRUE, Environment.create(true));
+        Assertions.assertSame(Environment.create(BigInteger.TEN), Environment.createInteger(10));
+        Assertions.assertNotSame(Environment.create(BigInteger.valueOf(1_000_000)), Environment.create(BigInteger.valueOf(1_000_000)));
+        Assertions.assertSame(Environment.Type.INTEGER, Environment.createInteger(1_000_000).getType());
+        Assertions.assertSame(Environment.Type.STRING, Environment.create("string").getType());
+        Assertions.assertEquals(BigInteger.valueOf(-128), Environment.createInteger(-128).getValue());
+    }
+
     private static Scope test(Ast ast, Object expected, Scope scope) {
         Interpreter interpreter = new Interpreter(scope);
         if (expected != null) {
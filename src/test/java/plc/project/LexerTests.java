@@ -6,6 +6,10 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
@@ -128,7 +132,10 @@ public class LexerTests {
                 Arguments.of("Unicode", "\u0000", true),
                 Arguments.of("Plus", "+", true),
                 //Arguments.of("Hypen", "-", true),
-                Arguments.of("Form Feed", "\f", true)
+                Arguments.of("Form Feed", "\f", true),
+                Arguments.of("And", "&&", true),
+                Arguments.of("Non-ASCII", "\u00e9", true),
+                Arguments.of("Line Separator", "\u2028", false)
         );
     }
 
@@ -167,6 +174,12 @@ public class LexerTests {
                 )),
                 Arguments.of("Example 6", "\t", Arrays.asList(
 
+                )),
+                Arguments.of("Or", "a || b", Arrays.asList(
+                        new Token(Token.Type.IDENTIFIER, "a", 0),
+                        new Token(Token.Type.OPERATOR, "|", 2),
+                        new Token(Token.Type.OPERATOR, "|", 3),
+                        new Token(Token.Type.IDENTIFIER, "b", 5)
                 ))
 
         );
@@ -189,6 +202,49 @@ public class LexerTests {
 
     }
 
+    @Test
+    void testStreaming() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            builder.append("LET x").append(i).append(" = \"a long string literal\" + -12.5 * ").append(i).append(";\n");
+        }
+        String input = builder.toString();
+        List<Token> expected = new Lexer(input).lex();
+        // A tiny buffer forces both compaction and growth for long tokens.
+        Assertions.assertEquals(expected, new Lexer(new StringReader(input), 4).lex());
+        Assertions.assertEquals(expected, new Lexer(Channels.newChannel(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)))).lex());
+
+        ParseException exception = Assertions.assertThrows(ParseException.class,
+                () -> new Lexer(new StringReader("x = \"unterminated"), 4).lex());
+        Assertions.assertEquals(17, exception.getIndex());
+    }
+
+    @Test
+    void testTokenBuffer() {
+        List<Token> tokens = new Lexer("LET name = \"x\";").lex();
+        Assertions.assertEquals(Arrays.asList(
+                new Token(Token.Type.IDENTIFIER, "LET", 0),
+                new Token(Token.Type.IDENTIFIER, "name", 4),
+                new Token(Token.Type.OPERATOR, "=", 9),
+                new Token(Token.Type.STRING, "\"x\"", 11),
+                new Token(Token.Type.OPERATOR, ";", 14)
+        ), tokens);
+        TokenBuffer buffer = (TokenBuffer) tokens;
+        // Keywords and operators share a single literal instance.
+        Assertions.assertSame(buffer.getLiteral(0), new Lexer("LET").lex().get(0).getLiteral());
+        Assertions.assertSame(buffer.getLiteral(2), buffer.getLiteral(2));
+        Assertions.assertTrue(buffer.literalEquals(1, "name"));
+        Assertions.assertFalse(buffer.literalEquals(1, "nam"));
+        Assertions.assertEquals(Token.Type.STRING, buffer.getType(3));
+    }
+
+    @Test
+    void testNullLiteral() {
+        Token token = new Token(Token.Type.IDENTIFIER, null, 0);
+        Assertions.assertNull(token.getLiteral());
+        Assertions.assertEquals(0, token.getLength());
+    }
+
     /**
      * Tests that lexing the input through {@link Lexer#lexToken()} produces a
      * single token with the expected type and literal matching the input.
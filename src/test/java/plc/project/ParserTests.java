@@ -8,10 +8,12 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -503,6 +505,142 @@ final class ParserTests {
         test(input, expected, Parser::parseSource);
     }
 
+    @Test
+    void testTokenIterator() {
+        String input = "VAR first: Integer = 1; FUN main(): Integer DO WHILE first != 10 DO print(first); first = first + 1; END RETURN 0; END";
+        Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(expected, new Parser(new Lexer(new java.io.StringReader(input)).tokens()).parseSource());
+
+        ParseException exception = Assertions.assertThrows(ParseException.class,
+                () -> new Parser(new Lexer("FUN main() DO RETURN 0 END").tokens()).parseSource());
+        Assertions.assertEquals(23, exception.getIndex());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testPrecedence(String test, String input, Ast.Expression expected) {
+        Assertions.assertEquals(expected, new Parser(new Lexer(input).lex()).parseExpression());
+    }
+
+    private static Stream<Arguments> testPrecedence() {
+        return Stream.of(
+                Arguments.of("Left Associative", "a - b - c",
+                        new Ast.Expression.Binary("-",
+                                new Ast.Expression.Binary("-", access("a"), access("b")),
+                                access("c")
+                        )
+                ),
+                Arguments.of("Multiplicative Over Additive", "a + b * c - d",
+                        new Ast.Expression.Binary("-",
+                                new Ast.Expression.Binary("+",
+                                        access("a"),
+                                        new Ast.Expression.Binary("*", access("b"), access("c"))
+                                ),
+                                access("d")
+                        )
+                ),
+                Arguments.of("Additive Over Comparison", "a + b < c * d",
+                        new Ast.Expression.Binary("<",
+                                new Ast.Expression.Binary("+", access("a"), access("b")),
+                                new Ast.Expression.Binary("*", access("c"), access("d"))
+                        )
+                ),
+                Arguments.of("Comparison Over Logical", "a == b && c != d && e",
+                        new Ast.Expression.Binary("&&",
+                                new Ast.Expression.Binary("&&",
+                                        new Ast.Expression.Binary("==", access("a"), access("b")),
+                                        new Ast.Expression.Binary("!=", access("c"), access("d"))
+                                ),
+                                access("e")
+                        )
+                ),
+                Arguments.of("Group", "a * (b + c) ^ d",
+                        new Ast.Expression.Binary("^",
+                                new Ast.Expression.Binary("*",
+                                        access("a"),
+                                        new Ast.Expression.Group(new Ast.Expression.Binary("+", access("b"), access("c")))
+                                ),
+                                access("d")
+                        )
+                )
+        );
+    }
+
+    @Test
+    void testLongChain() {
+        StringBuilder input = new StringBuilder("x0");
+        for (int i = 1; i < 10_000; i++) {
+            input.append(i % 3 == 0 ? " * x" : " + x").append(i);
+        }
+        Ast.Expression expression = new Parser(new Lexer(input.toString()).lex()).parseExpression();
+        int terms = 1;
+        while (expression instanceof Ast.Expression.Binary) {
+            Ast.Expression.Binary binary = (Ast.Expression.Binary) expression;
+            Assertions.assertEquals("+", binary.getOperator());
+            terms += binary.getRight() instanceof Ast.Expression.Binary ? 2 : 1;
+            expression = binary.getLeft();
+        }
+        Assertions.assertEquals(10_000, terms);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testRecovery(String test, String input, List<String> messages, List<String> functions) {
+        List<ParseException> errors = new ArrayList<>();
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource(errors);
+        Assertions.assertEquals(messages, errors.stream().map(ParseException::getMessage).collect(Collectors.toList()));
+        Assertions.assertEquals(functions, ast.getFunctions().stream().map(Ast.Function::getName).collect(Collectors.toList()));
+        if (errors.isEmpty()) {
+            Assertions.assertEquals(new Parser(new Lexer(input).lex()).parseSource(), ast);
+        } else {
+            Assertions.assertThrows(ParseException.class, () -> new Parser(new Lexer(input).lex()).parseSource());
+        }
+    }
+
+    private static Stream<Arguments> testRecovery() {
+        return Stream.of(
+                Arguments.of("Valid",
+                        "VAR x = 1;\nFUN main() DO\n    print(x);\n    RETURN 0;\nEND",
+                        Arrays.asList(),
+                        Arrays.asList("main")
+                ),
+                Arguments.of("Statements",
+                        "FUN main() DO\n    LET x = ;\n    print(1);\n    y = ;\n    RETURN 0;\nEND",
+                        Arrays.asList("Invalid expression", "Invalid expression"),
+                        Arrays.asList("main")
+                ),
+                Arguments.of("Functions",
+                        "FUN f() DO RETURN 1 END\nFUN g() DO RETURN 2; END\nFUN h( DO END",
+                        Arrays.asList("Invalid Return", "Expected colon"),
+                        Arrays.asList("f", "g")
+                ),
+                Arguments.of("Globals",
+                        "VAR x = ;\nVAL y = 1;\nLIST z: Integer = [1, ;\nFUN main() DO END",
+                        Arrays.asList("Invalid expression", "Invalid expression"),
+                        Arrays.asList("main")
+                ),
+                Arguments.of("Missing End",
+                        "FUN f() DO print(1);\nFUN main() DO RETURN 0; END",
+                        Arrays.asList("Expected END"),
+                        Arrays.asList("main")
+                ),
+                Arguments.of("Trailing",
+                        "FUN main() DO END\nRETURN 0;",
+                        Arrays.asList("Invalid Source"),
+                        Arrays.asList("main")
+                ),
+                Arguments.of("Unterminated",
+                        "FUN main() DO print(1);",
+                        Arrays.asList("Invalid expression"),
+                        Arrays.asList()
+                )
+        );
+    }
+
+    private static Ast.Expression.Access access(String name) {
+        return new Ast.Expression.Access(Optional.empty(), name);
+    }
+
     /**
      * Standard test function. If expected is null, a ParseException is expected
      * to be thrown (not used in the provided tests).
@@ -0,0 +1,97 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+final class ResolverTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSource(String test, String input, Object expected) {
+        Ast.Source unresolved = new Parser(new Lexer(input).lex()).parseSource();
+        Ast.Source resolved = new Parser(new Lexer(input).lex()).parseSource();
+        new Resolver().visit(resolved);
+        for (Ast.Source ast : new Ast.Source[] {unresolved, resolved}) {
+            Interpreter interpreter = new Interpreter(new Scope(null));
+            if (expected != null) {
+                Assertions.assertEquals(expected, interpreter.visit(ast).getValue());
+            } else {
+                Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(ast));
+            }
+        }
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Locals",
+                        "FUN main() DO LET x = 1; LET y = 2; RETURN x + y; END",
+                        BigInteger.valueOf(3)
+                ),
+                Arguments.of("Globals",
+                        "VAR x: Integer = 1; VAR y: Integer = 10; FUN main() DO x = x + y; RETURN x; END",
+                        BigInteger.valueOf(11)
+                ),
+                Arguments.of("Parameters",
+                        "FUN f(a: Integer, b: Integer): Integer DO RETURN a - b; END FUN main() DO RETURN f(5, 3); END",
+                        BigInteger.valueOf(2)
+                ),
+                Arguments.of("Caller Locals",
+                        "FUN f(): Integer DO RETURN 1; END FUN main() DO LET x = 2; f(); RETURN x; END",
+                        BigInteger.valueOf(2)
+                ),
+                Arguments.of("Loop Shadowing",
+                        "FUN main() DO LET x = 1; LET i = 0; WHILE i < 3 DO LET x = 10; i = i + 1; END RETURN x; END",
+                        BigInteger.ONE
+                ),
+                Arguments.of("Untaken Branch",
+                        "VAR x: Integer = 1; FUN main() DO IF FALSE DO LET x = 2; END RETURN x; END",
+                        BigInteger.ONE
+                ),
+                Arguments.of("Conditional Shadowing",
+                        "FUN main() DO LET x = 1; LET i = 0; WHILE i < 1 DO IF FALSE DO LET x = 2; END i = i + 1; END RETURN x; END",
+                        BigInteger.ONE
+                ),
+                Arguments.of("Redefined",
+                        "FUN main() DO LET x = 1; LET x = 2; RETURN x; END",
+                        null
+                ),
+                Arguments.of("Undefined",
+                        "FUN main() DO RETURN y; END",
+                        null
+                )
+        );
+    }
+
+    @Test
+    void testSlots() {
+        Ast.Source ast = new Parser(new Lexer(
+                "VAR g: Integer = 0; FUN f(a: Integer): Integer DO LET b = a; WHILE b < g DO LET c = b; END RETURN g; END"
+        ).lex()).parseSource();
+        new Resolver().visit(ast);
+
+        Ast.Function function = ast.getFunctions().get(0);
+        Assertions.assertEquals(1, ast.getFrameSize());
+        Assertions.assertEquals(3, function.getFrameSize());
+
+        Ast.Statement.Declaration b = (Ast.Statement.Declaration) function.getStatements().get(0);
+        Ast.Expression.Access a = (Ast.Expression.Access) b.getValue().get();
+        Assertions.assertEquals(0, a.getDepth());
+        Assertions.assertEquals(0, a.getSlot());
+        Assertions.assertEquals(1, b.getSlot());
+
+        Ast.Statement.While loop = (Ast.Statement.While) function.getStatements().get(1);
+        Assertions.assertEquals(2, loop.getFirstSlot());
+        Assertions.assertEquals(3, loop.getLastSlot());
+
+        Ast.Expression.Access g = (Ast.Expression.Access) ((Ast.Statement.Return) function.getStatements().get(2)).getValue();
+        Assertions.assertEquals(1, g.getDepth());
+        Assertions.assertEquals(0, g.getSlot());
+    }
+
+}
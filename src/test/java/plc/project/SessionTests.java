@@ -0,0 +1,115 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Tests that editing a {@link Session} gives the same result as analyzing the
+ * edited input from scratch, while analyzing only the affected functions.
+ */
+public final class SessionTests {
+
+    private static final String INPUT = "VAR x: Integer = 1;\n"
+            + "FUN f(): Integer DO\n    RETURN x + 1;\nEND\n"
+            + "FUN g(): String DO\n    RETURN \"g\";\nEND\n"
+            + "FUN h(): Integer DO\n    RETURN f() * 2;\nEND\n"
+            + "FUN main(): Integer DO\n    print(g());\n    RETURN h();\nEND\n";
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    public void testEdit(String test, String target, String replacement, int reanalyzed, String error) {
+        Session session = new Session(INPUT);
+        Assertions.assertEquals(List.of(), session.getErrors());
+        int start = INPUT.indexOf(target);
+        List<RuntimeException> errors = session.edit(start, start + target.length(), replacement);
+        String input = INPUT.substring(0, start) + replacement + INPUT.substring(start + target.length());
+        Assertions.assertEquals(input, session.getInput());
+        Assertions.assertEquals(reanalyzed, session.getReanalyzed());
+        if (error == null) {
+            Assertions.assertEquals(List.of(), errors);
+            Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+            new Analyzer(new Scope(null)).visit(expected);
+            Assertions.assertEquals(expected, session.getSource());
+        } else {
+            Assertions.assertEquals(1, errors.size(), errors::toString);
+            Assertions.assertEquals(error, errors.get(0).getClass().getSimpleName());
+        }
+    }
+
+    private static Stream<Arguments> testEdit() {
+        return Stream.of(
+                Arguments.of("Body", "RETURN x + 1;", "RETURN x + 2;", 1, null),
+                Arguments.of("Statement", "print(g());", "print(g());\n    print(\"main\");", 1, null),
+                Arguments.of("Return Type", "FUN g(): String", "FUN g(): Integer", 2, "RuntimeException"),
+                Arguments.of("Callers", "FUN f(): Integer DO\n    RETURN x + 1;", "FUN f(): Decimal DO\n    RETURN 1.0;", 2, "RuntimeException"),
+                Arguments.of("Rename", "FUN g(): String DO\n    RETURN \"g\";", "FUN k(): String DO\n    RETURN \"g\";", 2, "RuntimeException"),
+                Arguments.of("New Function", "END\nFUN main", "END\nFUN k(): Integer DO\n    RETURN 0;\nEND\nFUN main", 5, null),
+                Arguments.of("Global", "VAR x: Integer = 1;", "VAR x: Integer = 2;", 4, null),
+                Arguments.of("Undefined", "RETURN x + 1;", "RETURN y + 1;", 1, "RuntimeException"),
+                Arguments.of("Parse Error", "RETURN x + 1;", "RETURN x +;", 0, "ParseException"),
+                Arguments.of("Missing Main", "FUN main()", "FUN other()", 1, "RuntimeException")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    public void testRecovery(String test, String target, String replacement) {
+        Session session = new Session(INPUT);
+        int start = INPUT.indexOf(target);
+        Assertions.assertFalse(session.edit(start, start + target.length(), replacement).isEmpty());
+        Assertions.assertEquals(List.of(), session.edit(start, start + replacement.length(), target));
+        Assertions.assertEquals(INPUT, session.getInput());
+        Ast.Source expected = new Parser(new Lexer(INPUT).lex()).parseSource();
+        new Analyzer(new Scope(null)).visit(expected);
+        Assertions.assertEquals(expected, session.getSource());
+    }
+
+    private static Stream<Arguments> testRecovery() {
+        return Stream.of(
+                Arguments.of("Body", "RETURN x + 1;", "RETURN TRUE;"),
+                Arguments.of("Signature", "FUN f(): Integer", "FUN f(): Boolean"),
+                Arguments.of("Duplicate", "FUN g()", "FUN f()"),
+                Arguments.of("Parse Error", "RETURN x + 1;", "RETURN x + 1")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    public void testErrors(String test, String input, int errors) {
+        Assertions.assertEquals(errors, new Session(input).getErrors().size());
+    }
+
+    private static Stream<Arguments> testErrors() {
+        return Stream.of(
+                Arguments.of("Valid", INPUT, 0),
+                Arguments.of("Every Function",
+                        "FUN f(): Integer DO RETURN TRUE; END\n"
+                                + "FUN g(): Integer DO RETURN undefined; END\n"
+                                + "FUN main(): Integer DO RETURN 0; END",
+                        2
+                ),
+                Arguments.of("Missing Main",
+                        "FUN f(): Integer DO RETURN TRUE; END\n",
+                        2
+                ),
+                Arguments.of("Global", "VAR x: Integer = TRUE;\nFUN f(): Integer DO RETURN TRUE; END", 1)
+        );
+    }
+
+    @Test
+    public void testDeep() {
+        String input = "FUN f(): Integer DO\n    RETURN 1;\nEND\nFUN main(): Integer DO\n    RETURN f()" + " + 1".repeat(200_000) + ";\nEND\n";
+        Session session = new Session(input);
+        Assertions.assertEquals(List.of(), session.getErrors());
+        int start = input.indexOf("RETURN 1;");
+        Assertions.assertEquals(List.of(), session.edit(start, start + "RETURN 1;".length(), "RETURN 2;"));
+        Assertions.assertEquals(1, session.getReanalyzed());
+    }
+
+}